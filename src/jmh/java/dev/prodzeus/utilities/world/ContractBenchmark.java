@@ -0,0 +1,165 @@
+package dev.prodzeus.utilities.world;
+
+import dev.prodzeus.utilities.world.Cuboid.CuboidDirection;
+import org.bukkit.Chunk;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Proxy;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the single-pass {@link CuboidSnapshot#contract()} against contracting one face at a time,
+ * as {@link Cuboid#contract()} did before: shifting each face inward while it holds only air, allocating a Cuboid per step.<br><br>
+ * <p>
+ * The regions span the full height of a world from -64 to 319 and are mostly empty, holding either a single structure in their center,
+ * or a few blocks scattered across them. Both sides read the same snapshot, whose chunks are proxies since no server runs the benchmark,
+ * so every block read costs the same and the difference comes from the number of blocks read and the Cuboids allocated.
+ * Build and run with {@code mvn -P benchmark package} and {@code java -jar target/utilities-<version>-benchmarks.jar ContractBenchmark}.
+ *
+ * @author prodzeus
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ContractBenchmark {
+
+    private static final String WORLD = "world";
+    private static final int MIN_HEIGHT = -64, MAX_HEIGHT = 320;
+    private static final int SECTIONS = (MAX_HEIGHT - MIN_HEIGHT) >> 4;
+
+    /**
+     * The size of the region along the X and Z-axes.
+     */
+    @Param({"64", "256"})
+    public int size;
+
+    /**
+     * Where the non-air blocks are placed, either {@code center} or {@code scattered}.
+     */
+    @Param({"center", "scattered"})
+    public String layout;
+
+    private Cuboid cuboid;
+    private CuboidSnapshot snapshot;
+
+    @Setup
+    public void setup() {
+        this.cuboid = Cuboid.create(WORLD, 0, MIN_HEIGHT, 0, this.size - 1, MAX_HEIGHT - 1, this.size - 1);
+        final int chunks = (this.size + 15) >> 4;
+        final boolean[][][] solid = new boolean[chunks][chunks][16 * 16 * (MAX_HEIGHT - MIN_HEIGHT)];
+        if (this.layout.equals("center")) {
+            final int center = this.size / 2;
+            for (int x = center - 4; x < center + 4; x++) {
+                for (int y = 60; y < 68; y++) {
+                    for (int z = center - 4; z < center + 4; z++) solid[x >> 4][z >> 4][index(x, y, z)] = true;
+                }
+            }
+        } else {
+            final SplittableRandom random = new SplittableRandom(42);
+            for (int i = 0; i < 16; i++) {
+                final int x = random.nextInt(8, this.size - 8), y = random.nextInt(0, 120), z = random.nextInt(8, this.size - 8);
+                solid[x >> 4][z >> 4][index(x, y, z)] = true;
+            }
+        }
+
+        final ChunkSnapshot[][] snapshots = new ChunkSnapshot[chunks][chunks];
+        for (int cx = 0; cx < chunks; cx++) {
+            for (int cz = 0; cz < chunks; cz++) snapshots[cx][cz] = chunk(cx, cz, solid[cx][cz]);
+        }
+        final World world = (World) Proxy.newProxyInstance(World.class.getClassLoader(), new Class[]{World.class}, (proxy, method, args) -> switch (method.getName()) {
+            case "getName" -> WORLD;
+            case "getMinHeight" -> MIN_HEIGHT;
+            case "getMaxHeight" -> MAX_HEIGHT;
+            case "getChunkAt" -> {
+                final ChunkSnapshot chunk = snapshots[(int) args[0]][(int) args[1]];
+                yield Proxy.newProxyInstance(Chunk.class.getClassLoader(), new Class[]{Chunk.class}, (p, m, a) -> chunk);
+            }
+            default -> throw new UnsupportedOperationException(method.getName());
+        });
+        this.snapshot = new CuboidSnapshot(this.cuboid, world, false);
+        for (int i = 0; i < this.snapshot.getChunkCount(); i++) this.snapshot.capture(i);
+    }
+
+    @Benchmark
+    public Cuboid singlePass() {
+        return this.snapshot.contract();
+    }
+
+    @Benchmark
+    public Cuboid faceByFace() {
+        return contract(contract(contract(contract(contract(contract(this.cuboid,
+                CuboidDirection.Down), CuboidDirection.South), CuboidDirection.East),
+                CuboidDirection.Up), CuboidDirection.North), CuboidDirection.West);
+    }
+
+    /**
+     * Contract the given Cuboid in the given direction, as {@link Cuboid#contract(CuboidDirection)} does, reading the snapshot instead of the world.
+     */
+    private Cuboid contract(final Cuboid cuboid, final CuboidDirection direction) {
+        Cuboid face = cuboid.getFace(direction.opposite());
+        switch (direction) {
+            case Down -> {
+                while (onlyAir(face) && face.getLowerY() > cuboid.getLowerY()) face = face.shift(CuboidDirection.Down, 1);
+                return Cuboid.create(WORLD, cuboid.getLowerX(), cuboid.getLowerY(), cuboid.getLowerZ(), cuboid.getUpperX(), face.getUpperY(), cuboid.getUpperZ());
+            }
+            case Up -> {
+                while (onlyAir(face) && face.getUpperY() < cuboid.getUpperY()) face = face.shift(CuboidDirection.Up, 1);
+                return Cuboid.create(WORLD, cuboid.getLowerX(), face.getLowerY(), cuboid.getLowerZ(), cuboid.getUpperX(), cuboid.getUpperY(), cuboid.getUpperZ());
+            }
+            case North -> {
+                while (onlyAir(face) && face.getLowerX() > cuboid.getLowerX()) face = face.shift(CuboidDirection.North, 1);
+                return Cuboid.create(WORLD, cuboid.getLowerX(), cuboid.getLowerY(), cuboid.getLowerZ(), face.getUpperX(), cuboid.getUpperY(), cuboid.getUpperZ());
+            }
+            case South -> {
+                while (onlyAir(face) && face.getUpperX() < cuboid.getUpperX()) face = face.shift(CuboidDirection.South, 1);
+                return Cuboid.create(WORLD, face.getLowerX(), cuboid.getLowerY(), cuboid.getLowerZ(), cuboid.getUpperX(), cuboid.getUpperY(), cuboid.getUpperZ());
+            }
+            case East -> {
+                while (onlyAir(face) && face.getLowerZ() > cuboid.getLowerZ()) face = face.shift(CuboidDirection.East, 1);
+                return Cuboid.create(WORLD, cuboid.getLowerX(), cuboid.getLowerY(), cuboid.getLowerZ(), cuboid.getUpperX(), cuboid.getUpperY(), face.getUpperZ());
+            }
+            case West -> {
+                while (onlyAir(face) && face.getUpperZ() < cuboid.getUpperZ()) face = face.shift(CuboidDirection.West, 1);
+                return Cuboid.create(WORLD, cuboid.getLowerX(), cuboid.getLowerY(), face.getLowerZ(), cuboid.getUpperX(), cuboid.getUpperY(), cuboid.getUpperZ());
+            }
+            default -> throw new IllegalArgumentException("Invalid direction: %s".formatted(direction.toString()));
+        }
+    }
+
+    private boolean onlyAir(final Cuboid face) {
+        for (int x = (int) face.getLowerX(); x <= (int) face.getUpperX(); x++) {
+            for (int y = (int) face.getLowerY(); y <= (int) face.getUpperY(); y++) {
+                for (int z = (int) face.getLowerZ(); z <= (int) face.getUpperZ(); z++) {
+                    if (!this.snapshot.getType(x, y, z).isAir()) return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static ChunkSnapshot chunk(final int chunkX, final int chunkZ, final boolean[] solid) {
+        final boolean[] empty = new boolean[SECTIONS];
+        for (int section = 0; section < SECTIONS; section++) {
+            empty[section] = true;
+            for (int i = section << 8 << 4; i < (section + 1) << 8 << 4 && empty[section]; i++) empty[section] = !solid[i];
+        }
+        return (ChunkSnapshot) Proxy.newProxyInstance(ChunkSnapshot.class.getClassLoader(), new Class[]{ChunkSnapshot.class}, (proxy, method, args) -> switch (method.getName()) {
+            case "getX" -> chunkX;
+            case "getZ" -> chunkZ;
+            case "getBlockType" -> solid[index((int) args[0], (int) args[1], (int) args[2])] ? Material.STONE : Material.AIR;
+            case "isSectionEmpty" -> empty[(int) args[0]];
+            default -> throw new UnsupportedOperationException(method.getName());
+        });
+    }
+
+    private static int index(final int x, final int y, final int z) {
+        return (y - MIN_HEIGHT) << 8 | (z & 15) << 4 | (x & 15);
+    }
+}
@@ -0,0 +1,96 @@
+package dev.prodzeus.utilities.world;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the lookups of a {@link CuboidIndex} against a linear scan of every region, as done before the index existed.<br><br>
+ * <p>
+ * The regions are spread over a square of 20000 blocks, mostly claim-sized with a few arena-sized ones, and queried at random locations.
+ * The world is a proxy which only answers {@link World#getName()}, since no server runs the benchmark,
+ * and the regions are created by name, so every {@link Cuboid#contains(Location)} compares world names as it does on a server without a cached world.
+ * Build and run with {@code mvn -P benchmark package} and {@code java -jar target/utilities-<version>-benchmarks.jar CuboidIndexBenchmark}.
+ *
+ * @author prodzeus
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CuboidIndexBenchmark {
+
+    private static final String WORLD = "world";
+    private static final int QUERIES = 1024;
+
+    @Param({"1000", "20000"})
+    public int regions;
+
+    private final List<Cuboid> cuboids = new ArrayList<>();
+    private final CuboidIndex index = new CuboidIndex();
+    private final Location[] locations = new Location[QUERIES];
+    private int next = 0;
+
+    @Setup
+    public void setup() {
+        final World world = (World) Proxy.newProxyInstance(World.class.getClassLoader(), new Class[]{World.class}, (proxy, method, args) -> WORLD);
+        final SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < this.regions; i++) {
+            final int x = random.nextInt(-10_000, 10_000), y = random.nextInt(-64, 200), z = random.nextInt(-10_000, 10_000);
+            final int size = random.nextInt(50) == 0 ? random.nextInt(256, 1024) : random.nextInt(8, 128);
+            final Cuboid cuboid = Cuboid.create(WORLD, x, y, z, x + size, y + random.nextInt(8, 128), z + size);
+            this.cuboids.add(cuboid);
+            this.index.add(cuboid);
+        }
+        for (int i = 0; i < QUERIES; i++) {
+            this.locations[i] = new Location(world, random.nextDouble(-10_000, 10_000), random.nextDouble(-64, 320), random.nextDouble(-10_000, 10_000));
+        }
+    }
+
+    private Location next() {
+        return this.locations[this.next++ & (QUERIES - 1)];
+    }
+
+    @Benchmark
+    public List<Cuboid> scanContains() {
+        final Location location = next();
+        final List<Cuboid> found = new ArrayList<>();
+        for (final Cuboid cuboid : this.cuboids) {
+            if (cuboid.contains(location)) found.add(cuboid);
+        }
+        return found;
+    }
+
+    @Benchmark
+    public List<Cuboid> indexRegionsAt() {
+        return this.index.getRegionsAt(next());
+    }
+
+    @Benchmark
+    public Cuboid scanNearest() {
+        final Location location = next();
+        Cuboid nearest = null;
+        double best = Double.POSITIVE_INFINITY;
+        for (final Cuboid cuboid : this.cuboids) {
+            final double distance = cuboid.squaredDistanceToSurface(location.getX(), location.getY(), location.getZ());
+            if (distance < best) {
+                best = distance;
+                nearest = cuboid;
+            }
+        }
+        return nearest;
+    }
+
+    @Benchmark
+    public Cuboid indexNearest() {
+        return this.index.getNearest(next());
+    }
+}
@@ -0,0 +1,73 @@
+package dev.prodzeus.utilities.world;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the {@link IterationOrder}s by reading every position of a box through a {@link BlockCursor},
+ * from storage laid out like the chunk sections of a world: one array of 4096 blocks per section, indexed as {@code y << 8 | z << 4 | x}.<br><br>
+ * <p>
+ * The box starts off the chunk grid, so every order also pays for clipping its first and last chunks and sections.
+ * Build and run with {@code mvn -P benchmark package} and {@code java -jar target/utilities-<version>-benchmarks.jar IterationOrderBenchmark}.
+ *
+ * @author prodzeus
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IterationOrderBenchmark {
+
+    /**
+     * The size of the box along the X, Y and Z-axes.
+     */
+    @Param({"128x64x128", "512x16x512", "1x384x1"})
+    public String size;
+
+    @Param({"LINEAR", "CHUNK_SECTION", "MORTON"})
+    public IterationOrder order;
+
+    private short[][] sections;
+    private int minX, minY, minZ, maxX, maxY, maxZ;
+    private int chunkX, chunkZ, section, chunksZ, sectionsY;
+
+    @Setup
+    public void setup() {
+        final String[] lengths = this.size.split("x");
+        this.minX = 5;
+        this.minY = -59;
+        this.minZ = 7;
+        this.maxX = this.minX + Integer.parseInt(lengths[0]) - 1;
+        this.maxY = this.minY + Integer.parseInt(lengths[1]) - 1;
+        this.maxZ = this.minZ + Integer.parseInt(lengths[2]) - 1;
+        this.chunkX = this.minX >> 4;
+        this.chunkZ = this.minZ >> 4;
+        this.section = this.minY >> 4;
+        this.chunksZ = (this.maxZ >> 4) - this.chunkZ + 1;
+        this.sectionsY = (this.maxY >> 4) - this.section + 1;
+        final int chunksX = (this.maxX >> 4) - this.chunkX + 1;
+
+        final SplittableRandom random = new SplittableRandom(42);
+        this.sections = new short[chunksX * this.chunksZ * this.sectionsY][4096];
+        for (final short[] blocks : this.sections) {
+            for (int i = 0; i < blocks.length; i++) blocks[i] = (short) random.nextInt(1024);
+        }
+    }
+
+    @Benchmark
+    public long read() {
+        final BlockCursor cursor = new BlockCursor(this.order, this.minX, this.minY, this.minZ, this.maxX, this.maxY, this.maxZ);
+        long sum = 0;
+        while (cursor.next()) sum += get(cursor.x(), cursor.y(), cursor.z());
+        return sum;
+    }
+
+    private int get(final int x, final int y, final int z) {
+        final int index = (((x >> 4) - this.chunkX) * this.chunksZ + (z >> 4) - this.chunkZ) * this.sectionsY + (y >> 4) - this.section;
+        return this.sections[index][(y & 15) << 8 | (z & 15) << 4 | (x & 15)];
+    }
+}
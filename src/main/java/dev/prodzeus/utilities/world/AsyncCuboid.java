@@ -0,0 +1,322 @@
+package dev.prodzeus.utilities.world;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.block.Block;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitRunnable;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Asynchronous access to the bulk operations of a {@link Cuboid}, created through {@link Cuboid#async(Plugin)}.<br><br>
+ * <p>
+ * Work which must happen on the main thread is split into slices, using at most the configured budget of each tick.
+ * Queries which can be answered from a {@link CuboidSnapshot} capture the snapshot in slices, and are then processed off the main thread.<br><br>
+ * <p>
+ * Every operation returns a {@link CompletableFuture}. Cancelling the future stops any work remaining on the main thread.
+ *
+ * @author prodzeus
+ */
+@SuppressWarnings("unused")
+public final class AsyncCuboid {
+
+    /**
+     * The default budget of each tick, in milliseconds.
+     */
+    public static final long DEFAULT_BUDGET = 5;
+
+    private final Cuboid cuboid;
+    private final Plugin plugin;
+    private long budget = TimeUnit.MILLISECONDS.toNanos(DEFAULT_BUDGET);
+    private boolean preloadChunks = false;
+    private int maxChunkLoads = ChunkTickets.DEFAULT_MAX_LOADS;
+
+    /**
+     * Create asynchronous access to the given Cuboid.
+     * @param cuboid The Cuboid.
+     * @param plugin The plugin used for scheduling tasks.
+     */
+    AsyncCuboid(@NotNull final Cuboid cuboid, @NotNull final Plugin plugin) {
+        this.cuboid = cuboid;
+        this.plugin = plugin;
+    }
+
+    /**
+     * Set the maximum time each operation may spend on the main thread per tick.
+     * Only affects operations started after this call.
+     * @param millis The budget in milliseconds. (Default: 5 milliseconds)
+     * @return The AsyncCuboid instance.
+     */
+    public @NotNull AsyncCuboid budget(final long millis) {
+        if (millis <= 0) throw new IllegalArgumentException("Budget must be positive!");
+        this.budget = TimeUnit.MILLISECONDS.toNanos(millis);
+        return this;
+    }
+
+    /**
+     * Set whether the chunks of the Cuboid should be loaded asynchronously before each operation,
+     * and held loaded through {@link ChunkTickets} until the operation completes.
+     * Without this, chunks which are not loaded are loaded synchronously when captured.
+     * Only affects operations started after this call.
+     * @param preload True | False (Default: False)
+     * @return The AsyncCuboid instance.
+     */
+    public @NotNull AsyncCuboid preloadChunks(final boolean preload) {
+        this.preloadChunks = preload;
+        return this;
+    }
+
+    /**
+     * Set the maximum number of chunk loads in flight at once, when preloading chunks.
+     * Only affects operations started after this call.
+     * @param loads The number of loads. (Default: 16 loads)
+     * @return The AsyncCuboid instance.
+     */
+    public @NotNull AsyncCuboid maxChunkLoads(final int loads) {
+        if (loads <= 0) throw new IllegalArgumentException("Maximum loads must be positive!");
+        this.maxChunkLoads = loads;
+        return this;
+    }
+
+    /**
+     * Load every chunk of the Cuboid asynchronously, and hold a ticket on each of them until released.
+     * Must be called on the main thread.
+     * @return A future completed with the tickets once every chunk has loaded.
+     */
+    public @NotNull CompletableFuture<ChunkTickets> loadChunks() {
+        return ChunkTickets.acquire(this.plugin, this.cuboid, this.maxChunkLoads);
+    }
+
+    /**
+     * Get the Cuboid the operations are performed on.
+     * @return The Cuboid.
+     */
+    public @NotNull Cuboid getCuboid() {
+        return this.cuboid;
+    }
+
+    /**
+     * Capture a {@link CuboidSnapshot} of the Cuboid, capturing as many chunks each tick as the budget allows.
+     * @return A future completed with the snapshot.
+     */
+    public @NotNull CompletableFuture<CuboidSnapshot> snapshot() {
+        return snapshot(false);
+    }
+
+    /**
+     * Capture a {@link CuboidSnapshot} of the Cuboid, capturing as many chunks each tick as the budget allows.
+     * @param biomes Whether the biomes of the chunks should be captured.
+     * @return A future completed with the snapshot.
+     */
+    public @NotNull CompletableFuture<CuboidSnapshot> snapshot(final boolean biomes) {
+        return withChunks(() -> capture(biomes));
+    }
+
+    /**
+     * Capture a {@link CuboidSnapshot} of the Cuboid, capturing as many chunks each tick as the budget allows.
+     * @param biomes Whether the biomes of the chunks should be captured.
+     * @return A future completed with the snapshot.
+     */
+    private @NotNull CompletableFuture<CuboidSnapshot> capture(final boolean biomes) {
+        final CuboidSnapshot snapshot = new CuboidSnapshot(this.cuboid, this.cuboid.getWorld(), biomes);
+        return new BudgetedTask<CuboidSnapshot>() {
+            private int index = 0;
+
+            @Override
+            protected boolean step() {
+                if (index < snapshot.getChunkCount()) snapshot.capture(index++);
+                if (index < snapshot.getChunkCount()) return false;
+                future.complete(snapshot);
+                return true;
+            }
+        }.start();
+    }
+
+    /**
+     * Get all the blocks present in the Cuboid of the given Material.
+     * @param material The Material.
+     * @return A future completed with a list of all the matching blocks found.
+     * @see CuboidSnapshot#getBlocks(Material)
+     */
+    public @NotNull CompletableFuture<List<Block>> getBlocks(@NotNull final Material material) {
+        return offThread(snapshot -> snapshot.getBlocks(material));
+    }
+
+    /**
+     * Get all the blocks in the Cuboid.
+     * @param includeAir Whether blocks of the type {@link Material#AIR} should be included in the list.
+     * @return A future completed with a list of all blocks in the Cuboid.
+     * @see CuboidSnapshot#getBlocks(boolean)
+     */
+    public @NotNull CompletableFuture<List<Block>> getBlocks(final boolean includeAir) {
+        return offThread(snapshot -> snapshot.getBlocks(includeAir));
+    }
+
+    /**
+     * Get the average light level of all empty blocks in the Cuboid.
+     * @return A future completed with the average light level of the Cuboid.
+     * @see CuboidSnapshot#getAverageLightLevel()
+     */
+    public @NotNull CompletableFuture<Byte> getAverageLightLevel() {
+        return offThread(CuboidSnapshot::getAverageLightLevel);
+    }
+
+    /**
+     * Contract the Cuboid, returning a Cuboid with any air around the edges removed, just large enough to include all non-air blocks.
+     * @return A future completed with the contracted Cuboid.
+     * @see Cuboid#contract()
+     */
+    public @NotNull CompletableFuture<Cuboid> contract() {
+        return offThread(CuboidSnapshot::contract);
+    }
+
+    /**
+     * Compute the {@link CuboidStats} of the Cuboid, including the distribution of biomes.
+     * @return A future completed with the statistics of the Cuboid.
+     * @see CuboidStats#compute(CuboidSnapshot)
+     */
+    public @NotNull CompletableFuture<CuboidStats> getStats() {
+        return offThread(true, CuboidStats::compute);
+    }
+
+    /**
+     * Capture a {@link CuboidBaseline} of the Cuboid, which later states of the Cuboid can be compared against.
+     * The sections of the snapshot are hashed off the main thread.
+     * @return A future completed with the baseline.
+     */
+    public @NotNull CompletableFuture<CuboidBaseline> baseline() {
+        return offThread(CuboidBaseline::of);
+    }
+
+    /**
+     * Compare the current state of the Cuboid against the given baseline.
+     * @param baseline The baseline, which must have been captured from the same Cuboid.
+     * @return A future completed with the blocks which differ from the baseline.
+     * @see CuboidBaseline#diff(CuboidSnapshot)
+     */
+    public @NotNull CompletableFuture<CuboidDiff> diff(@NotNull final CuboidBaseline baseline) {
+        return offThread(baseline::diff);
+    }
+
+    /**
+     * Save the blocks of the Cuboid as a {@link CuboidSchematic}, capturing as many chunks each tick as the budget allows.
+     * The chunks are encoded and written to disk off the main thread as they are captured.
+     * @param path The path to save the schematic to, which is replaced once the schematic is complete.
+     * @return A future completed with the saved schematic.
+     */
+    public @NotNull CompletableFuture<CuboidSchematic> saveSchematic(@NotNull final Path path) {
+        return withChunks(() -> CuboidSchematic.save(this.plugin, this.cuboid, path, this.budget));
+    }
+
+    /**
+     * Find the safe location closest to the center of the Cuboid with one solid block beneath and 2 non-solid blocks above.
+     * @return A future completed with the location of the solid block, or null if none was found.
+     * @see SafeLocationFinder#find(CuboidSnapshot)
+     */
+    public @NotNull CompletableFuture<@Nullable Location> getSafeTeleportLocation() {
+        return offThread(snapshot -> SafeLocationFinder.find(snapshot));
+    }
+
+    /**
+     * Capture a snapshot of the Cuboid, and apply the given query to it off the main thread.
+     * @param query The query.
+     * @return A future completed with the result of the query.
+     */
+    private <T> @NotNull CompletableFuture<T> offThread(@NotNull final Function<CuboidSnapshot, T> query) {
+        return offThread(false, query);
+    }
+
+    /**
+     * Capture a snapshot of the Cuboid, and apply the given query to it off the main thread.
+     * @param biomes Whether the biomes of the chunks should be captured.
+     * @param query  The query.
+     * @return A future completed with the result of the query.
+     */
+    private <T> @NotNull CompletableFuture<T> offThread(final boolean biomes, @NotNull final Function<CuboidSnapshot, T> query) {
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        final CompletableFuture<CuboidSnapshot> capture = snapshot(biomes);
+        capture.whenComplete((snapshot, error) -> {
+            if (error != null) {
+                result.completeExceptionally(error);
+                return;
+            }
+            Bukkit.getScheduler().runTaskAsynchronously(this.plugin, () -> {
+                if (result.isDone()) return;
+                try {
+                    result.complete(query.apply(snapshot));
+                } catch (Throwable t) {
+                    result.completeExceptionally(t);
+                }
+            });
+        });
+        result.whenComplete((value, error) -> capture.cancel(false));
+        return result;
+    }
+
+    /**
+     * Run the given operation, holding the chunks of the Cuboid loaded while it runs if chunks are preloaded.
+     * @param operation The operation.
+     * @return A future completed with the result of the operation.
+     */
+    private <T> @NotNull CompletableFuture<T> withChunks(@NotNull final Supplier<CompletableFuture<T>> operation) {
+        if (!this.preloadChunks) return operation.get();
+        return ChunkTickets.holding(this.plugin, this.cuboid.getWorld(),
+                (int) this.cuboid.getLowerX() >> 4, (int) this.cuboid.getLowerZ() >> 4,
+                (int) this.cuboid.getUpperX() >> 4, (int) this.cuboid.getUpperZ() >> 4,
+                this.maxChunkLoads, operation);
+    }
+
+    /**
+     * A task which repeats a step of work every tick, for as long as the budget of the operation allows.
+     * The task stops once a step reports that it has finished, or the future is completed or cancelled elsewhere.
+     */
+    private abstract class BudgetedTask<T> extends BukkitRunnable {
+
+        protected final CompletableFuture<T> future = new CompletableFuture<>();
+        private final long budget = AsyncCuboid.this.budget;
+
+        /**
+         * Perform a single step of work.
+         * @return True if the work has finished, and the future has been completed.
+         */
+        protected abstract boolean step();
+
+        @Override
+        public void run() {
+            if (future.isDone()) {
+                cancel();
+                return;
+            }
+            final long deadline = System.nanoTime() + budget;
+            try {
+                do {
+                    if (step()) {
+                        cancel();
+                        return;
+                    }
+                } while (System.nanoTime() < deadline);
+            } catch (Throwable t) {
+                cancel();
+                future.completeExceptionally(t);
+            }
+        }
+
+        /**
+         * Schedule the task to run every tick.
+         * @return The future of the task.
+         */
+        protected CompletableFuture<T> start() {
+            runTaskTimer(plugin, 0L, 1L);
+            return future;
+        }
+    }
+}
@@ -0,0 +1,323 @@
+package dev.prodzeus.utilities.world;
+
+import dev.prodzeus.utilities.world.util.BlockKey;
+import dev.prodzeus.utilities.world.util.LongIntMap;
+import org.bukkit.Bukkit;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockState;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.*;
+import org.bukkit.event.entity.EntityExplodeEvent;
+import org.bukkit.event.player.PlayerBucketEmptyEvent;
+import org.bukkit.event.player.PlayerBucketFillEvent;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/**
+ * Tracks the blocks changed within a set of {@link Cuboid}s, recording the tick of the latest change of every position.<br><br>
+ * <p>
+ * The tracker listens to blocks being placed, broken, exploded, moved by pistons, and changed by flowing fluids or buckets.
+ * Changed positions are looked up through a {@link CuboidIndex}, and stored per Cuboid as packed {@link BlockKey}s in a {@link LongIntMap}.
+ * This allows asking what changed since a given tick without scanning the Cuboid. Positions are kept until cleared or pruned.<br><br>
+ * <p>
+ * Blocks changed by plugins without firing events, such as through a {@link CuboidEditor}, are not detected,
+ * and should be reported through {@link #markChanged(Block)}. The tracker must only be used from the main thread.
+ *
+ * @author prodzeus
+ */
+@SuppressWarnings("unused")
+public final class BlockChangeTracker implements Listener {
+
+    private final CuboidIndex index = new CuboidIndex();
+    private final Map<Cuboid, Changes> changes = new IdentityHashMap<>();
+    private final List<ChangeListener> listeners = new ArrayList<>();
+
+    private BlockChangeTracker() {
+    }
+
+    /**
+     * Create a tracker and register its listeners.
+     * @param plugin The plugin instance.
+     * @return The tracker.
+     */
+    public static @NotNull BlockChangeTracker create(@NotNull final Plugin plugin) {
+        final BlockChangeTracker tracker = new BlockChangeTracker();
+        Bukkit.getPluginManager().registerEvents(tracker, plugin);
+        return tracker;
+    }
+
+    /**
+     * Unregister the listeners of the tracker. The recorded changes are kept.
+     */
+    public void unregister() {
+        HandlerList.unregisterAll(this);
+    }
+
+    /**
+     * Start tracking the changes within the given Cuboid.
+     * @param cuboid The Cuboid.
+     * @return True if the Cuboid was not already tracked.
+     */
+    public boolean track(@NotNull final Cuboid cuboid) {
+        if (!this.index.add(cuboid)) return false;
+        this.changes.put(cuboid, new Changes());
+        return true;
+    }
+
+    /**
+     * Stop tracking the given Cuboid, discarding its recorded changes.
+     * @param cuboid The Cuboid.
+     * @return True if the Cuboid was tracked.
+     */
+    public boolean untrack(@NotNull final Cuboid cuboid) {
+        if (!this.index.remove(cuboid)) return false;
+        this.changes.remove(cuboid);
+        return true;
+    }
+
+    /**
+     * Check if the given Cuboid is tracked.
+     * @param cuboid The Cuboid.
+     * @return True | False
+     */
+    public boolean isTracking(@NotNull final Cuboid cuboid) {
+        return this.index.contains(cuboid);
+    }
+
+    /**
+     * Get every tracked Cuboid.
+     * @return An unmodifiable set of the Cuboids.
+     */
+    public @NotNull Set<Cuboid> getTracked() {
+        return this.index.getRegions();
+    }
+
+    /**
+     * Add a listener notified of every change within a tracked Cuboid.
+     * @param listener The listener.
+     */
+    public void addListener(@NotNull final ChangeListener listener) {
+        this.listeners.add(listener);
+    }
+
+    /**
+     * Remove a listener.
+     * @param listener The listener.
+     * @return True if the listener was registered.
+     */
+    public boolean removeListener(@NotNull final ChangeListener listener) {
+        return this.listeners.remove(listener);
+    }
+
+    /**
+     * Check if any block of the given Cuboid has changed since the given tick.
+     * @param cuboid The Cuboid.
+     * @param tick   The tick, inclusive.
+     * @return True | False
+     * @throws IllegalArgumentException If the Cuboid is not tracked.
+     */
+    public boolean hasChangedSince(@NotNull final Cuboid cuboid, final int tick) {
+        return get(cuboid).lastTick >= tick;
+    }
+
+    /**
+     * Get the tick of the latest change within the given Cuboid.
+     * @param cuboid The Cuboid.
+     * @return The tick, or -1 if no changes have been recorded.
+     * @throws IllegalArgumentException If the Cuboid is not tracked.
+     */
+    public int getLastChange(@NotNull final Cuboid cuboid) {
+        return get(cuboid).lastTick;
+    }
+
+    /**
+     * Get the tick of the latest change of the given position.
+     * @param cuboid The Cuboid.
+     * @param x      The X coordinate.
+     * @param y      The Y coordinate.
+     * @param z      The Z coordinate.
+     * @return The tick, or -1 if no changes have been recorded.
+     * @throws IllegalArgumentException If the Cuboid is not tracked.
+     */
+    public int getLastChange(@NotNull final Cuboid cuboid, final int x, final int y, final int z) {
+        return get(cuboid).positions.get(BlockKey.pack(x, y, z), -1);
+    }
+
+    /**
+     * Get the number of changed positions recorded for the given Cuboid.
+     * @param cuboid The Cuboid.
+     * @return The number of positions.
+     * @throws IllegalArgumentException If the Cuboid is not tracked.
+     */
+    public int getChangeCount(@NotNull final Cuboid cuboid) {
+        return get(cuboid).positions.size();
+    }
+
+    /**
+     * Get every position of the given Cuboid which has changed since the given tick.
+     * @param cuboid The Cuboid.
+     * @param tick   The tick, inclusive.
+     * @return The packed positions, in no particular order.
+     * @throws IllegalArgumentException If the Cuboid is not tracked.
+     * @see BlockKey
+     */
+    public long @NotNull [] getChangedSince(@NotNull final Cuboid cuboid, final int tick) {
+        final Changes changes = get(cuboid);
+        return changes.lastTick < tick ? new long[0] : changes.positions.keysAtLeast(tick);
+    }
+
+    /**
+     * Perform the given action for every changed position of the given Cuboid, along with the tick of its latest change.
+     * @param cuboid The Cuboid.
+     * @param action The action, given the packed position and the tick.
+     * @throws IllegalArgumentException If the Cuboid is not tracked.
+     */
+    public void forEachChange(@NotNull final Cuboid cuboid, @NotNull final LongIntMap.Consumer action) {
+        get(cuboid).positions.forEach(action);
+    }
+
+    /**
+     * Discard every change recorded before the given tick.
+     * @param cuboid The Cuboid.
+     * @param tick   The tick, exclusive.
+     * @return The number of positions discarded.
+     * @throws IllegalArgumentException If the Cuboid is not tracked.
+     */
+    public int prune(@NotNull final Cuboid cuboid, final int tick) {
+        return get(cuboid).positions.removeIf((key, changed) -> changed < tick);
+    }
+
+    /**
+     * Discard every change recorded for the given Cuboid.
+     * @param cuboid The Cuboid.
+     * @throws IllegalArgumentException If the Cuboid is not tracked.
+     */
+    public void clear(@NotNull final Cuboid cuboid) {
+        get(cuboid).positions.clear();
+    }
+
+    /**
+     * Record a change of the given block, for changes which do not fire an event.
+     * @param block The block.
+     */
+    public void markChanged(@NotNull final Block block) {
+        markChanged(block.getWorld().getName(), block.getX(), block.getY(), block.getZ());
+    }
+
+    /**
+     * Record a change of the given position, for changes which do not fire an event.
+     * @param worldName The name of the world.
+     * @param x         The X coordinate.
+     * @param y         The Y coordinate.
+     * @param z         The Z coordinate.
+     */
+    public void markChanged(@NotNull final String worldName, final int x, final int y, final int z) {
+        final List<Cuboid> regions = this.index.getRegionsAt(worldName, x, y, z);
+        if (regions.isEmpty()) return;
+        final int tick = Bukkit.getCurrentTick();
+        final long key = BlockKey.pack(x, y, z);
+        for (final Cuboid cuboid : regions) {
+            final Changes changes = this.changes.get(cuboid);
+            changes.positions.put(key, tick);
+            changes.lastTick = tick;
+            for (final ChangeListener listener : this.listeners) listener.onChange(cuboid, x, y, z);
+        }
+    }
+
+    private void markChanged(@NotNull final List<Block> blocks) {
+        for (final Block block : blocks) markChanged(block);
+    }
+
+    private @NotNull Changes get(@NotNull final Cuboid cuboid) {
+        final Changes changes = this.changes.get(cuboid);
+        if (changes == null) throw new IllegalArgumentException("Cuboid is not tracked!");
+        return changes;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockPlace(final BlockPlaceEvent e) {
+        if (e instanceof BlockMultiPlaceEvent multi) {
+            for (final BlockState state : multi.getReplacedBlockStates()) markChanged(state.getBlock());
+        } else {
+            markChanged(e.getBlockPlaced());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockBreak(final BlockBreakEvent e) {
+        markChanged(e.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockExplode(final BlockExplodeEvent e) {
+        markChanged(e.getBlock());
+        markChanged(e.blockList());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityExplode(final EntityExplodeEvent e) {
+        markChanged(e.blockList());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPistonExtend(final BlockPistonExtendEvent e) {
+        markChanged(e.getBlock().getRelative(e.getDirection()));
+        for (final Block block : e.getBlocks()) {
+            markChanged(block);
+            markChanged(block.getRelative(e.getDirection()));
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPistonRetract(final BlockPistonRetractEvent e) {
+        // The direction of a retracting piston is the direction the blocks move in, away from the piston head.
+        markChanged(e.getBlock().getRelative(e.getDirection().getOppositeFace()));
+        for (final Block block : e.getBlocks()) {
+            markChanged(block);
+            markChanged(block.getRelative(e.getDirection()));
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onFluidFlow(final BlockFromToEvent e) {
+        markChanged(e.getToBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBucketEmpty(final PlayerBucketEmptyEvent e) {
+        markChanged(e.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBucketFill(final PlayerBucketFillEvent e) {
+        markChanged(e.getBlock());
+    }
+
+    /**
+     * Listens for changes within the tracked Cuboids.
+     */
+    @FunctionalInterface
+    public interface ChangeListener {
+        /**
+         * Called on the main thread whenever a position within a tracked Cuboid changes.
+         * @param cuboid The Cuboid containing the position.
+         * @param x      The X coordinate.
+         * @param y      The Y coordinate.
+         * @param z      The Z coordinate.
+         */
+        void onChange(@NotNull Cuboid cuboid, int x, int y, int z);
+    }
+
+    /**
+     * The recorded changes of a single Cuboid.
+     */
+    private static final class Changes {
+        private final LongIntMap positions = new LongIntMap();
+        private int lastTick = -1;
+    }
+}
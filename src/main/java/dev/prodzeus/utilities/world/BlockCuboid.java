@@ -0,0 +1,338 @@
+package dev.prodzeus.utilities.world;
+
+import dev.prodzeus.utilities.world.util.BlockKey;
+import dev.prodzeus.utilities.world.util.IntTriConsumer;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Serializable;
+import java.util.function.LongConsumer;
+
+/**
+ * A block-aligned {@link Cuboid}, storing its bounds as ints rather than doubles.<br><br>
+ * <p>
+ * Containment checks compare ints without floating-point conversion or branching on each axis,
+ * and block positions can be addressed by a single packed {@code long}, see {@link BlockKey}.
+ * This makes the BlockCuboid suited for hot checks, such as protection and region lookups, and for holding large numbers of regions in memory.<br><br>
+ * <p>
+ * The coordinates of a BlockCuboid must be within the range supported by {@link BlockKey}, which covers every position of a vanilla world.
+ *
+ * @author prodzeus
+ */
+@SuppressWarnings("unused")
+public final class BlockCuboid implements Serializable {
+
+    /**
+     * The name of the {@link World}.
+     */
+    private final String worldName;
+    /**
+     * The lower bounds of the BlockCuboid, inclusive.
+     */
+    private final int minX, minY, minZ;
+    /**
+     * The upper bounds of the BlockCuboid, inclusive.
+     */
+    private final int maxX, maxY, maxZ;
+
+    private BlockCuboid(@NotNull final String worldName, final int x1, final int y1, final int z1, final int x2, final int y2, final int z2) {
+        this.worldName = worldName;
+        this.minX = Math.min(x1, x2);
+        this.minY = Math.min(y1, y2);
+        this.minZ = Math.min(z1, z2);
+        this.maxX = Math.max(x1, x2);
+        this.maxY = Math.max(y1, y2);
+        this.maxZ = Math.max(z1, z2);
+    }
+
+    /**
+     * Construct a BlockCuboid in the world of the given world name and XYZ-coordinates.
+     * @param worldName The world's name.
+     * @param x1        X coordinate of the first corner.
+     * @param y1        Y coordinate of the first corner.
+     * @param z1        Z coordinate of the first corner.
+     * @param x2        X coordinate of the second corner.
+     * @param y2        Y coordinate of the second corner.
+     * @param z2        Z coordinate of the second corner.
+     */
+    public static @NotNull BlockCuboid create(@NotNull final String worldName, final int x1, final int y1, final int z1, final int x2, final int y2, final int z2) {
+        return new BlockCuboid(worldName, x1, y1, z1, x2, y2, z2);
+    }
+
+    /**
+     * Construct a BlockCuboid in the given world and XYZ-coordinates.
+     * @param world The BlockCuboid's world.
+     * @param x1    X coordinate of the first corner.
+     * @param y1    Y coordinate of the first corner.
+     * @param z1    Z coordinate of the first corner.
+     * @param x2    X coordinate of the second corner.
+     * @param y2    Y coordinate of the second corner.
+     * @param z2    Z coordinate of the second corner.
+     */
+    public static @NotNull BlockCuboid create(@NotNull final World world, final int x1, final int y1, final int z1, final int x2, final int y2, final int z2) {
+        return new BlockCuboid(world.getName(), x1, y1, z1, x2, y2, z2);
+    }
+
+    /**
+     * Construct a BlockCuboid covering the same blocks as the given Cuboid.
+     * @param cuboid The Cuboid.
+     */
+    public static @NotNull BlockCuboid create(@NotNull final Cuboid cuboid) {
+        return new BlockCuboid(cuboid.getWorldName(),
+                (int) cuboid.getLowerX(), (int) cuboid.getLowerY(), (int) cuboid.getLowerZ(),
+                (int) cuboid.getUpperX(), (int) cuboid.getUpperY(), (int) cuboid.getUpperZ());
+    }
+
+    /**
+     * Construct a BlockCuboid given two location objects which represent any two corners of the BlockCuboid.
+     * @param locationOne First corner.
+     * @param locationTwo Second corner.
+     * @apiNote The 2 locations provided must be in the same world.
+     */
+    public static @NotNull BlockCuboid create(@NotNull final Location locationOne, @NotNull final Location locationTwo) {
+        if (!locationOne.getWorld().equals(locationTwo.getWorld())) {
+            throw new IllegalArgumentException("Locations must be on the same world");
+        }
+        return new BlockCuboid(locationOne.getWorld().getName(),
+                locationOne.getBlockX(), locationOne.getBlockY(), locationOne.getBlockZ(),
+                locationTwo.getBlockX(), locationTwo.getBlockY(), locationTwo.getBlockZ());
+    }
+
+    /**
+     * Convert the BlockCuboid to a {@link Cuboid} covering the same blocks.
+     * @return A new Cuboid.
+     */
+    public @NotNull Cuboid toCuboid() {
+        return Cuboid.create(this.worldName, this.minX, this.minY, this.minZ, this.maxX, this.maxY, this.maxZ);
+    }
+
+    /**
+     * Get the name of the world of the BlockCuboid.
+     * @return The world's name.
+     */
+    public @NotNull String getWorldName() {
+        return this.worldName;
+    }
+
+    /**
+     * Get the world of the BlockCuboid.
+     * @return The world object representing this BlockCuboid's world.
+     * @throws IllegalStateException If the world is not loaded.
+     */
+    public @NotNull World getWorld() {
+        final World world = WorldResolver.getWorld(this.worldName);
+        if (world == null) {
+            throw new IllegalStateException("World '%s' is not loaded!".formatted(this.worldName));
+        }
+        return world;
+    }
+
+    /**
+     * Get the minimum X coordinate of the BlockCuboid.
+     * @return The minimum X coordinate.
+     */
+    public int getMinX() {
+        return this.minX;
+    }
+
+    /**
+     * Get the minimum Y coordinate of the BlockCuboid.
+     * @return The minimum Y coordinate.
+     */
+    public int getMinY() {
+        return this.minY;
+    }
+
+    /**
+     * Get the minimum Z coordinate of the BlockCuboid.
+     * @return The minimum Z coordinate.
+     */
+    public int getMinZ() {
+        return this.minZ;
+    }
+
+    /**
+     * Get the maximum X coordinate of the BlockCuboid.
+     * @return The maximum X coordinate.
+     */
+    public int getMaxX() {
+        return this.maxX;
+    }
+
+    /**
+     * Get the maximum Y coordinate of the BlockCuboid.
+     * @return The maximum Y coordinate.
+     */
+    public int getMaxY() {
+        return this.maxY;
+    }
+
+    /**
+     * Get the maximum Z coordinate of the BlockCuboid.
+     * @return The maximum Z coordinate.
+     */
+    public int getMaxZ() {
+        return this.maxZ;
+    }
+
+    /**
+     * Get the size of the BlockCuboid along the X-Axis.
+     * @return Size of the BlockCuboid along the X-Axis.
+     */
+    public int getSizeX() {
+        return this.maxX - this.minX + 1;
+    }
+
+    /**
+     * Get the size of the BlockCuboid along the Y-Axis.
+     * @return Size of the BlockCuboid along the Y-Axis.
+     */
+    public int getSizeY() {
+        return this.maxY - this.minY + 1;
+    }
+
+    /**
+     * Get the size of the BlockCuboid along the Z-Axis.
+     * @return Size of the BlockCuboid along the Z-Axis.
+     */
+    public int getSizeZ() {
+        return this.maxZ - this.minZ + 1;
+    }
+
+    /**
+     * Get the volume of the BlockCuboid.
+     * @return The volume, in blocks.
+     */
+    public long getVolume() {
+        return (long) getSizeX() * getSizeY() * getSizeZ();
+    }
+
+    /**
+     * Returns true if the point at (X,Y,Z) is contained within this BlockCuboid.
+     * @param x The X coordinate.
+     * @param y The Y coordinate.
+     * @param z The Z coordinate.
+     * @return True if the given point is within this BlockCuboid, otherwise false.
+     */
+    public boolean contains(final int x, final int y, final int z) {
+        // Any coordinate outside the bounds makes one of the differences negative, setting the sign bit.
+        return ((x - this.minX) | (this.maxX - x) | (y - this.minY) | (this.maxY - y) | (z - this.minZ) | (this.maxZ - z)) >= 0;
+    }
+
+    /**
+     * Returns true if the position of the packed key is contained within this BlockCuboid.
+     * @param key The packed key, see {@link BlockKey}.
+     * @return True if the given position is within this BlockCuboid, otherwise false.
+     */
+    public boolean contains(final long key) {
+        return contains(BlockKey.x(key), BlockKey.y(key), BlockKey.z(key));
+    }
+
+    /**
+     * Check if the given Block is contained within this BlockCuboid.
+     * @param block The Block to check.
+     * @return True if the Block is within this BlockCuboid, otherwise false.
+     */
+    public boolean contains(@NotNull final Block block) {
+        return this.worldName.equals(block.getWorld().getName()) && contains(block.getX(), block.getY(), block.getZ());
+    }
+
+    /**
+     * Check if the given location is contained within this BlockCuboid.
+     * @param location The location to check.
+     * @return True if the location is within this BlockCuboid, otherwise false.
+     */
+    public boolean contains(@NotNull final Location location) {
+        return this.worldName.equals(location.getWorld().getName()) && contains(location.getBlockX(), location.getBlockY(), location.getBlockZ());
+    }
+
+    /**
+     * Check if the given BlockCuboid is entirely contained within this BlockCuboid.
+     * @param other The other BlockCuboid.
+     * @return True if every block of the other BlockCuboid is within this BlockCuboid, otherwise false.
+     */
+    public boolean contains(@NotNull final BlockCuboid other) {
+        return this.worldName.equals(other.worldName) && contains(other.minX, other.minY, other.minZ) && contains(other.maxX, other.maxY, other.maxZ);
+    }
+
+    /**
+     * Check if the given BlockCuboid shares any block with this BlockCuboid.
+     * @param other The other BlockCuboid.
+     * @return True if the BlockCuboids overlap, otherwise false.
+     */
+    public boolean intersects(@NotNull final BlockCuboid other) {
+        return this.worldName.equals(other.worldName)
+                && this.minX <= other.maxX && this.maxX >= other.minX
+                && this.minY <= other.maxY && this.maxY >= other.minY
+                && this.minZ <= other.maxZ && this.maxZ >= other.minZ;
+    }
+
+    /**
+     * Get the BlockCuboid of the blocks shared by this and the given BlockCuboid.
+     * @param other The other BlockCuboid.
+     * @return The shared BlockCuboid, or null if the BlockCuboids do not overlap.
+     */
+    public @Nullable BlockCuboid intersection(@NotNull final BlockCuboid other) {
+        if (!intersects(other)) return null;
+        return new BlockCuboid(this.worldName,
+                Math.max(this.minX, other.minX), Math.max(this.minY, other.minY), Math.max(this.minZ, other.minZ),
+                Math.min(this.maxX, other.maxX), Math.min(this.maxY, other.maxY), Math.min(this.maxZ, other.maxZ));
+    }
+
+    /**
+     * Visit the coordinates of every block in the BlockCuboid, iterating X first, then Y, then Z.
+     * @param consumer The consumer of the X, Y and Z coordinates.
+     */
+    public void forEachPosition(@NotNull final IntTriConsumer consumer) {
+        for (int z = this.minZ; z <= this.maxZ; z++) {
+            for (int y = this.minY; y <= this.maxY; y++) {
+                for (int x = this.minX; x <= this.maxX; x++) {
+                    consumer.accept(x, y, z);
+                }
+            }
+        }
+    }
+
+    /**
+     * Visit the packed key of every block in the BlockCuboid, iterating X first, then Y, then Z.
+     * @param consumer The consumer of the packed keys, see {@link BlockKey}.
+     */
+    public void forEachKey(@NotNull final LongConsumer consumer) {
+        for (int z = this.minZ; z <= this.maxZ; z++) {
+            for (int y = this.minY; y <= this.maxY; y++) {
+                for (int x = this.minX; x <= this.maxX; x++) {
+                    consumer.accept(BlockKey.pack(x, y, z));
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (!(o instanceof BlockCuboid other)) return false;
+        return this.minX == other.minX && this.minY == other.minY && this.minZ == other.minZ
+                && this.maxX == other.maxX && this.maxY == other.maxY && this.maxZ == other.maxZ
+                && this.worldName.equals(other.worldName);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = this.worldName.hashCode();
+        result = 31 * result + this.minX;
+        result = 31 * result + this.minY;
+        result = 31 * result + this.minZ;
+        result = 31 * result + this.maxX;
+        result = 31 * result + this.maxY;
+        result = 31 * result + this.maxZ;
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "BlockCuboid{worldName='%s', min=%d,%d,%d, max=%d,%d,%d}".formatted(this.worldName, this.minX, this.minY, this.minZ, this.maxX, this.maxY, this.maxZ);
+    }
+}
@@ -0,0 +1,227 @@
+package dev.prodzeus.utilities.world;
+
+/**
+ * A resumable cursor over the block positions of a box, in one of the {@link IterationOrder}s.<br><br>
+ * <p>
+ * By default, chunks are visited along the Z-axis first, then the X-axis, and the positions within each chunk are visited
+ * along the X-axis first, then the Z-axis, then the Y-axis, see {@link IterationOrder#CHUNK_SECTION}.
+ * This matches the order of {@link CuboidSnapshot#forEach(CuboidSnapshot.Visitor)}.
+ * Unlike a visitor, the cursor can be stopped and resumed at any position, which allows work to be spread across ticks.
+ */
+final class BlockCursor {
+
+    /**
+     * The local positions of a chunk section in Z-order, packed as {@code x | z << 4 | y << 8}.
+     * The bits of the order interleave X, then Z, then Y, so the Y-axis changes slowest at every level.
+     */
+    private static final short[] MORTON = new short[4096];
+
+    static {
+        for (int code = 0; code < MORTON.length; code++) {
+            int x = 0, y = 0, z = 0;
+            for (int bit = 0; bit < 4; bit++) {
+                x |= ((code >> (bit * 3)) & 1) << bit;
+                z |= ((code >> (bit * 3 + 1)) & 1) << bit;
+                y |= ((code >> (bit * 3 + 2)) & 1) << bit;
+            }
+            MORTON[code] = (short) (x | z << 4 | y << 8);
+        }
+    }
+
+    private final IterationOrder order;
+    private final int minX, minY, minZ, maxX, maxY, maxZ;
+    private final int maxChunkZ;
+    private final long total;
+    private int chunkX, chunkZ, sectionY;
+    private int x1, x2, z1, z2, y1, y2;
+    private int mortonIndex;
+    private int x, y, z;
+    private long index = -1;
+
+    /**
+     * Create a cursor over the given bounds, which are all inclusive, in the {@link IterationOrder#CHUNK_SECTION} order.
+     */
+    BlockCursor(final int minX, final int minY, final int minZ, final int maxX, final int maxY, final int maxZ) {
+        this(IterationOrder.CHUNK_SECTION, minX, minY, minZ, maxX, maxY, maxZ);
+    }
+
+    /**
+     * Create a cursor over the given bounds, which are all inclusive, in the given order.
+     */
+    BlockCursor(final IterationOrder order, final int minX, final int minY, final int minZ, final int maxX, final int maxY, final int maxZ) {
+        this.order = order;
+        this.minX = minX;
+        this.minY = minY;
+        this.minZ = minZ;
+        this.maxX = maxX;
+        this.maxY = maxY;
+        this.maxZ = maxZ;
+        this.maxChunkZ = maxZ >> 4;
+        this.total = maxX < minX || maxY < minY || maxZ < minZ ? 0 : (long) (maxX - minX + 1) * (maxY - minY + 1) * (maxZ - minZ + 1);
+    }
+
+    /**
+     * Move the cursor to the next position.
+     * @return True if the cursor moved, or false if every position has been visited.
+     */
+    boolean next() {
+        if (index + 1 >= total) return false;
+        if (++index == 0) {
+            if (order == IterationOrder.LINEAR) {
+                x = minX;
+                y = minY;
+                z = minZ;
+            } else {
+                enterChunk(minX >> 4, minZ >> 4);
+            }
+            return true;
+        }
+        switch (order) {
+            case LINEAR -> nextLinear();
+            case CHUNK_SECTION -> nextChunkSection();
+            case MORTON -> nextMorton();
+        }
+        return true;
+    }
+
+    private void nextLinear() {
+        if (++x > maxX) {
+            x = minX;
+            if (++y > maxY) {
+                y = minY;
+                ++z;
+            }
+        }
+    }
+
+    private void nextChunkSection() {
+        if (++x > x2) {
+            x = x1;
+            if (++z > z2) {
+                z = z1;
+                if (++y > maxY) nextChunk();
+            }
+        }
+    }
+
+    private void nextMorton() {
+        while (!advanceMorton()) {
+            if (sectionY < maxY >> 4) {
+                enterSection(sectionY + 1);
+            } else {
+                nextChunk();
+                return;
+            }
+        }
+    }
+
+    private void nextChunk() {
+        if (++chunkZ > maxChunkZ) {
+            chunkZ = minZ >> 4;
+            ++chunkX;
+        }
+        enterChunk(chunkX, chunkZ);
+    }
+
+    private void enterChunk(final int chunkX, final int chunkZ) {
+        this.chunkX = chunkX;
+        this.chunkZ = chunkZ;
+        this.x1 = Math.max(minX, chunkX << 4);
+        this.x2 = Math.min(maxX, (chunkX << 4) + 15);
+        this.z1 = Math.max(minZ, chunkZ << 4);
+        this.z2 = Math.min(maxZ, (chunkZ << 4) + 15);
+        this.x = x1;
+        this.y = minY;
+        this.z = z1;
+        if (order == IterationOrder.MORTON) {
+            enterSection(minY >> 4);
+            advanceMorton();
+        }
+    }
+
+    private void enterSection(final int sectionY) {
+        this.sectionY = sectionY;
+        this.y1 = Math.max(minY, sectionY << 4);
+        this.y2 = Math.min(maxY, (sectionY << 4) + 15);
+        this.mortonIndex = -1;
+    }
+
+    /**
+     * Move to the next position of the current section along the Z-order curve, skipping positions outside the bounds.
+     * Every run of {@code 8^n} codes starting at a multiple of {@code 8^n} covers an aligned cube of side {@code 2^n},
+     * so where a position is outside the bounds, the largest such cube outside the bounds is skipped at once,
+     * rather than probing each of its codes. A thin box therefore only probes the codes around its own positions.
+     * @return True if moved, or false if the section has no positions left.
+     */
+    private boolean advanceMorton() {
+        final int baseX = chunkX << 4, baseY = sectionY << 4, baseZ = chunkZ << 4;
+        int code = mortonIndex + 1;
+        while (code < MORTON.length) {
+            final int local = MORTON[code];
+            final int px = baseX + (local & 15), pz = baseZ + (local >> 4 & 15), py = baseY + (local >> 8);
+            if (px >= x1 && px <= x2 && pz >= z1 && pz <= z2 && py >= y1 && py <= y2) {
+                mortonIndex = code;
+                x = px;
+                y = py;
+                z = pz;
+                return true;
+            }
+            // The position is the lower corner of every cube whose codes start at this code, largest first.
+            int level = Integer.numberOfTrailingZeros(code | MORTON.length) / 3;
+            while (level > 0) {
+                final int side = (1 << level) - 1;
+                if (px + side < x1 || px > x2 || pz + side < z1 || pz > z2 || py + side < y1 || py > y2) break;
+                --level;
+            }
+            code += 1 << (3 * level);
+        }
+        mortonIndex = code;
+        return false;
+    }
+
+    IterationOrder order() {
+        return order;
+    }
+
+    int minX() {
+        return minX;
+    }
+
+    int minZ() {
+        return minZ;
+    }
+
+    int maxX() {
+        return maxX;
+    }
+
+    int maxZ() {
+        return maxZ;
+    }
+
+    int x() {
+        return x;
+    }
+
+    int y() {
+        return y;
+    }
+
+    int z() {
+        return z;
+    }
+
+    /**
+     * Get the number of positions visited so far, including the current one.
+     */
+    long visited() {
+        return index + 1;
+    }
+
+    /**
+     * Get the total number of positions.
+     */
+    long total() {
+        return total;
+    }
+}
@@ -0,0 +1,251 @@
+package dev.prodzeus.utilities.world;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.WorldBorder;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitRunnable;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * Shows the borders of a set of {@link Cuboid}s to many players, each player seeing the border of the closest Cuboid within range.<br><br>
+ * <p>
+ * Instead of sending every border to every player at once, as {@link Cuboid#showBorder(Player...)} does,
+ * viewers are visited round-robin, a limited number per tick, spreading the sends over several ticks.
+ * A border is only sent when the region chosen for a player differs from the one last sent to them,
+ * so a crowd standing still causes no sends at all. Changes made to a border after it has been sent are kept in sync by the server.<br><br>
+ * <p>
+ * The closest Cuboid is found through a {@link CuboidIndex}, at the distance of {@link Cuboid#squaredDistanceToSurface(double, double, double)}.
+ * Cuboids must not be modified while added.
+ * Only Cuboids with a {@link Cuboid#hasWorldBorder() world border} can be shown. The visualizer must only be used from the main thread.
+ *
+ * @author prodzeus
+ */
+@SuppressWarnings("unused")
+public final class BorderVisualizer implements Listener {
+
+    /**
+     * The default number of viewers visited per tick.
+     */
+    public static final int DEFAULT_VIEWERS_PER_TICK = 20;
+
+    private final CuboidIndex regions = new CuboidIndex();
+    private final Map<UUID, Viewer> viewers = new HashMap<>();
+    private final ArrayDeque<Viewer> queue = new ArrayDeque<>();
+    private final BukkitRunnable task;
+    private int viewersPerTick = DEFAULT_VIEWERS_PER_TICK;
+    private double maxDistance = Double.POSITIVE_INFINITY;
+
+    private BorderVisualizer() {
+        this.task = new BukkitRunnable() {
+            @Override
+            public void run() {
+                tick();
+            }
+        };
+    }
+
+    /**
+     * Create a visualizer, register its listeners, and start visiting viewers every tick.
+     * @param plugin The plugin instance.
+     * @return The visualizer.
+     */
+    public static @NotNull BorderVisualizer create(@NotNull final Plugin plugin) {
+        final BorderVisualizer visualizer = new BorderVisualizer();
+        Bukkit.getPluginManager().registerEvents(visualizer, plugin);
+        visualizer.task.runTaskTimer(plugin, 1L, 1L);
+        return visualizer;
+    }
+
+    /**
+     * Stop the visualizer, unregister its listeners, and reset the border of every viewer to the border of their world.
+     */
+    public void stop() {
+        this.task.cancel();
+        HandlerList.unregisterAll(this);
+        for (final Viewer viewer : this.viewers.values()) {
+            if (viewer.shown != null && viewer.player.isOnline()) viewer.player.setWorldBorder(null);
+        }
+        this.viewers.clear();
+        this.queue.clear();
+        this.regions.clear();
+    }
+
+    /**
+     * Set the number of viewers visited per tick.
+     * @param viewersPerTick The number of viewers, at least 1.
+     * @return This visualizer.
+     */
+    public @NotNull BorderVisualizer viewersPerTick(final int viewersPerTick) {
+        if (viewersPerTick <= 0) throw new IllegalArgumentException("Viewers per tick must be positive!");
+        this.viewersPerTick = viewersPerTick;
+        return this;
+    }
+
+    /**
+     * Set the maximum distance between a viewer and a Cuboid for its border to be shown.
+     * Viewers farther away from every Cuboid see the border of their world.
+     * @param distance The distance in blocks, or {@link Double#POSITIVE_INFINITY} for no limit.
+     * @return This visualizer.
+     */
+    public @NotNull BorderVisualizer maxDistance(final double distance) {
+        if (distance < 0) throw new IllegalArgumentException("Distance must not be negative!");
+        this.maxDistance = distance;
+        return this;
+    }
+
+    /**
+     * Add a Cuboid whose border is shown to the viewers closest to it.
+     * @param cuboid The Cuboid.
+     * @return True if the Cuboid was not already added.
+     * @throws IllegalArgumentException If the Cuboid has no world border.
+     */
+    public boolean addRegion(@NotNull final Cuboid cuboid) {
+        if (!cuboid.hasWorldBorder()) throw new IllegalArgumentException("Cuboid has no world border!");
+        return this.regions.add(cuboid);
+    }
+
+    /**
+     * Remove a Cuboid. Viewers seeing its border are switched to another border during their next visit.
+     * @param cuboid The Cuboid.
+     * @return True if the Cuboid was added.
+     */
+    public boolean removeRegion(@NotNull final Cuboid cuboid) {
+        return this.regions.remove(cuboid);
+    }
+
+    /**
+     * Add a viewer. The first border is sent during their first visit.
+     * @param player The player.
+     * @return True if the player was not already a viewer.
+     */
+    public boolean addViewer(@NotNull final Player player) {
+        if (this.viewers.containsKey(player.getUniqueId())) return false;
+        final Viewer viewer = new Viewer(player);
+        this.viewers.put(player.getUniqueId(), viewer);
+        this.queue.add(viewer);
+        return true;
+    }
+
+    /**
+     * Add every given player as a viewer.
+     * @param players The players.
+     */
+    public void addViewers(@NotNull final Collection<? extends Player> players) {
+        for (final Player player : players) addViewer(player);
+    }
+
+    /**
+     * Remove a viewer, resetting their border to the border of their world if a Cuboid border was shown.
+     * @param player The player.
+     * @return True if the player was a viewer.
+     */
+    public boolean removeViewer(@NotNull final Player player) {
+        final Viewer viewer = this.viewers.remove(player.getUniqueId());
+        if (viewer == null) return false;
+        viewer.removed = true;
+        if (viewer.shown != null && player.isOnline()) player.setWorldBorder(null);
+        return true;
+    }
+
+    /**
+     * Check if the given player is a viewer.
+     * @param player The player.
+     * @return True | False
+     */
+    public boolean isViewing(@NotNull final Player player) {
+        return this.viewers.containsKey(player.getUniqueId());
+    }
+
+    /**
+     * Get the number of viewers.
+     * @return The number of viewers.
+     */
+    public int getViewerCount() {
+        return this.viewers.size();
+    }
+
+    /**
+     * Get the Cuboid whose border was last sent to the given player.
+     * @param player The player.
+     * @return The Cuboid, or null if the player sees the border of their world or is not a viewer.
+     */
+    public @Nullable Cuboid getShown(@NotNull final Player player) {
+        final Viewer viewer = this.viewers.get(player.getUniqueId());
+        return viewer == null ? null : viewer.shown;
+    }
+
+    /**
+     * Force the border of every viewer to be sent again during their next visit, even if their region has not changed.
+     */
+    public void refreshAll() {
+        for (final Viewer viewer : this.viewers.values()) viewer.stale = true;
+    }
+
+    /**
+     * Visit the next viewers in line, sending a border to those whose closest region has changed.
+     */
+    private void tick() {
+        final int visits = Math.min(this.viewersPerTick, this.queue.size());
+        for (int i = 0; i < visits; i++) {
+            final Viewer viewer = this.queue.poll();
+            if (viewer.removed) continue;
+            this.queue.add(viewer);
+            final Cuboid closest = closest(viewer.player.getLocation());
+            if (closest == viewer.shown && !viewer.stale) continue;
+            final WorldBorder border = closest == null ? null : closest.getWorldBorder();
+            viewer.player.setWorldBorder(border);
+            viewer.shown = closest;
+            viewer.stale = false;
+        }
+    }
+
+    /**
+     * Get the region closest to the given location, within the maximum distance.
+     * With a finite maximum distance, only the columns within range are searched, rather than searching outward until the nearest region is found.
+     */
+    private @Nullable Cuboid closest(@NotNull final Location location) {
+        final double x = location.getX(), y = location.getY(), z = location.getZ();
+        final String worldName = location.getWorld().getName();
+        if (this.maxDistance == Double.POSITIVE_INFINITY) return this.regions.getNearest(worldName, x, y, z);
+        Cuboid closest = null;
+        double best = Double.POSITIVE_INFINITY;
+        for (final Cuboid cuboid : this.regions.getInRange(worldName, x, y, z, this.maxDistance)) {
+            final double distance = cuboid.squaredDistanceToSurface(x, y, z);
+            if (distance < best) {
+                best = distance;
+                closest = cuboid;
+            }
+        }
+        return closest;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(final PlayerQuitEvent e) {
+        final Viewer viewer = this.viewers.remove(e.getPlayer().getUniqueId());
+        if (viewer != null) viewer.removed = true;
+    }
+
+    /**
+     * A viewer, and the region whose border was last sent to them.
+     */
+    private static final class Viewer {
+        private final Player player;
+        private Cuboid shown = null;
+        private boolean stale = false;
+        private boolean removed = false;
+
+        private Viewer(@NotNull final Player player) {
+            this.player = player;
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package dev.prodzeus.utilities.world;
+
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Plugin chunk tickets held on the chunks of a {@link Cuboid}, keeping them loaded while a bulk operation runs.<br><br>
+ * <p>
+ * Chunks are loaded asynchronously through {@link World#getChunkAtAsync(int, int)}, with a limited number of loads in flight at once,
+ * and a ticket is added to each chunk as soon as it has loaded. This avoids loading or generating chunks synchronously on the main thread.
+ * Tickets are counted per chunk, so overlapping operations of the same plugin never release each other's tickets.<br><br>
+ * <p>
+ * Tickets are acquired through {@link AsyncCuboid#loadChunks()}, and must be released once the operation is done.
+ *
+ * @author prodzeus
+ */
+@SuppressWarnings("unused")
+public final class ChunkTickets implements AutoCloseable {
+
+    /**
+     * The default maximum number of chunk loads in flight at once.
+     */
+    public static final int DEFAULT_MAX_LOADS = 16;
+
+    /**
+     * The number of holders of every ticket, by plugin and world. Only accessed on the main thread.
+     */
+    private static final Map<Plugin, Map<String, Map<Long, int[]>>> holders = new HashMap<>();
+
+    private final Plugin plugin;
+    private final World world;
+    private final int minChunkX, minChunkZ, chunksX, chunksZ;
+    /**
+     * The indices of the chunks which have loaded and hold a ticket.
+     */
+    private final BitSet held = new BitSet();
+    private boolean released = false;
+
+    private ChunkTickets(@NotNull final Plugin plugin, @NotNull final World world,
+                         final int minChunkX, final int minChunkZ, final int maxChunkX, final int maxChunkZ) {
+        this.plugin = plugin;
+        this.world = world;
+        this.minChunkX = minChunkX;
+        this.minChunkZ = minChunkZ;
+        this.chunksX = Math.max(0, maxChunkX - minChunkX + 1);
+        this.chunksZ = Math.max(0, maxChunkZ - minChunkZ + 1);
+    }
+
+    /**
+     * Load every chunk intersecting the given Cuboid asynchronously, and hold a ticket on each of them.
+     * Must be called on the main thread.
+     * @param plugin   The plugin holding the tickets.
+     * @param cuboid   The Cuboid.
+     * @param maxLoads The maximum number of chunk loads in flight at once.
+     * @return A future completed with the tickets once every chunk has loaded.
+     * Cancelling the future stops any remaining loads, and releases the tickets acquired so far.
+     */
+    static @NotNull CompletableFuture<ChunkTickets> acquire(@NotNull final Plugin plugin, @NotNull final Cuboid cuboid, final int maxLoads) {
+        return acquire(plugin, cuboid.getWorld(), (int) cuboid.getLowerX() >> 4, (int) cuboid.getLowerZ() >> 4,
+                (int) cuboid.getUpperX() >> 4, (int) cuboid.getUpperZ() >> 4, maxLoads);
+    }
+
+    /**
+     * Load every chunk within the given chunk bounds asynchronously, and hold a ticket on each of them.
+     * Must be called on the main thread.
+     * @return A future completed with the tickets once every chunk has loaded.
+     */
+    static @NotNull CompletableFuture<ChunkTickets> acquire(@NotNull final Plugin plugin, @NotNull final World world,
+                                                           final int minChunkX, final int minChunkZ, final int maxChunkX, final int maxChunkZ,
+                                                           final int maxLoads) {
+        if (maxLoads <= 0) throw new IllegalArgumentException("Maximum loads must be positive!");
+        final Loader loader = new Loader(plugin, new ChunkTickets(plugin, world, minChunkX, minChunkZ, maxChunkX, maxChunkZ), maxLoads);
+        loader.pump();
+        return loader.future;
+    }
+
+    /**
+     * Run the given operation while holding tickets on every chunk within the given chunk bounds.
+     * The operation is started once every chunk has loaded, and the tickets are released once it completes.
+     * Cancelling the returned future cancels both the loading and the operation. Must be called on the main thread.
+     * @param operation The operation.
+     * @return A future completed with the result of the operation.
+     */
+    static <T> @NotNull CompletableFuture<T> holding(@NotNull final Plugin plugin, @NotNull final World world,
+                                                    final int minChunkX, final int minChunkZ, final int maxChunkX, final int maxChunkZ,
+                                                    final int maxLoads, @NotNull final Supplier<CompletableFuture<T>> operation) {
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        final CompletableFuture<ChunkTickets> loading = acquire(plugin, world, minChunkX, minChunkZ, maxChunkX, maxChunkZ, maxLoads);
+        loading.whenComplete((tickets, error) -> {
+            if (error != null) {
+                result.completeExceptionally(error);
+                return;
+            }
+            if (result.isDone()) {
+                tickets.release();
+                return;
+            }
+            final CompletableFuture<T> running;
+            try {
+                running = operation.get();
+            } catch (Throwable t) {
+                tickets.release();
+                result.completeExceptionally(t);
+                return;
+            }
+            running.whenComplete((value, failure) -> {
+                tickets.release();
+                if (failure != null) result.completeExceptionally(failure);
+                else result.complete(value);
+            });
+            result.whenComplete((value, failure) -> running.cancel(false));
+        });
+        result.whenComplete((value, failure) -> loading.cancel(false));
+        return result;
+    }
+
+    /**
+     * Get the world of the chunks.
+     * @return The world.
+     */
+    public @NotNull World getWorld() {
+        return this.world;
+    }
+
+    /**
+     * Get the number of chunks covered by the tickets.
+     * @return The number of chunks.
+     */
+    public int getChunkCount() {
+        return this.chunksX * this.chunksZ;
+    }
+
+    /**
+     * Check if the tickets have been released.
+     * @return True | False
+     */
+    public boolean isReleased() {
+        return this.released;
+    }
+
+    /**
+     * Release every ticket held, allowing the chunks to unload. Releasing more than once has no effect.
+     * If called off the main thread, the tickets are released on the main thread during the next tick.
+     */
+    public void release() {
+        if (!Bukkit.isPrimaryThread()) {
+            onMainThread(this.plugin, this::release);
+            return;
+        }
+        if (this.released) return;
+        this.released = true;
+        final Map<String, Map<Long, int[]>> worlds = holders.get(this.plugin);
+        final Map<Long, int[]> counts = worlds == null ? null : worlds.get(this.world.getName());
+        if (counts == null) return;
+        for (int i = this.held.nextSetBit(0); i >= 0; i = this.held.nextSetBit(i + 1)) {
+            final int chunkX = this.minChunkX + i / this.chunksZ, chunkZ = this.minChunkZ + i % this.chunksZ;
+            final long key = key(chunkX, chunkZ);
+            final int[] count = counts.get(key);
+            if (count != null && --count[0] == 0) {
+                counts.remove(key);
+                this.world.removePluginChunkTicket(chunkX, chunkZ, this.plugin);
+            }
+        }
+        this.held.clear();
+        if (counts.isEmpty()) worlds.remove(this.world.getName());
+        if (worlds.isEmpty()) holders.remove(this.plugin);
+    }
+
+    /**
+     * Release every ticket held.
+     * @see #release()
+     */
+    @Override
+    public void close() {
+        release();
+    }
+
+    /**
+     * Hold a ticket on the chunk at the given index, adding the plugin ticket if no other holder exists.
+     */
+    private void hold(final int index) {
+        final int chunkX = this.minChunkX + index / this.chunksZ, chunkZ = this.minChunkZ + index % this.chunksZ;
+        final int[] count = holders.computeIfAbsent(this.plugin, plugin -> new HashMap<>())
+                .computeIfAbsent(this.world.getName(), name -> new HashMap<>())
+                .computeIfAbsent(key(chunkX, chunkZ), key -> new int[1]);
+        if (count[0]++ == 0) this.world.addPluginChunkTicket(chunkX, chunkZ, this.plugin);
+        this.held.set(index);
+    }
+
+    /**
+     * Run the given task on the main thread, immediately if already on it.
+     */
+    static void onMainThread(@NotNull final Plugin plugin, @NotNull final Runnable task) {
+        if (Bukkit.isPrimaryThread()) task.run();
+        else Bukkit.getScheduler().runTask(plugin, task);
+    }
+
+    /**
+     * Loads the chunks of the tickets, keeping at most the given number of loads in flight.
+     * Only accessed on the main thread.
+     */
+    private static final class Loader {
+
+        private final CompletableFuture<ChunkTickets> future = new CompletableFuture<>();
+        private final Plugin plugin;
+        private final ChunkTickets tickets;
+        private final int maxLoads, total;
+        private int requested = 0, inFlight = 0, loaded = 0;
+        private boolean pumping = false;
+
+        private Loader(@NotNull final Plugin plugin, @NotNull final ChunkTickets tickets, final int maxLoads) {
+            this.plugin = plugin;
+            this.tickets = tickets;
+            this.maxLoads = maxLoads;
+            this.total = tickets.getChunkCount();
+            this.future.whenComplete((value, error) -> {
+                if (error != null) tickets.release();
+            });
+        }
+
+        /**
+         * Request loads until the limit is reached. Loads of chunks already loaded may complete immediately,
+         * in which case this is re-entered, so re-entrant calls return at once and the outer loop continues.
+         */
+        private void pump() {
+            if (this.pumping) return;
+            this.pumping = true;
+            try {
+                if (this.total == 0) this.future.complete(this.tickets);
+                while (!this.future.isDone() && this.inFlight < this.maxLoads && this.requested < this.total) {
+                    final int index = this.requested++;
+                    ++this.inFlight;
+                    this.tickets.world.getChunkAtAsync(this.tickets.minChunkX + index / this.tickets.chunksZ, this.tickets.minChunkZ + index % this.tickets.chunksZ)
+                            .whenComplete((chunk, error) -> onMainThread(this.plugin, () -> loaded(index, error)));
+                }
+            } finally {
+                this.pumping = false;
+            }
+        }
+
+        private void loaded(final int index, final Throwable error) {
+            --this.inFlight;
+            if (this.future.isDone()) return;
+            if (error != null) {
+                this.future.completeExceptionally(error);
+                return;
+            }
+            this.tickets.hold(index);
+            if (++this.loaded == this.total) this.future.complete(this.tickets);
+            else pump();
+        }
+    }
+
+    private static long key(final int chunkX, final int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+}
@@ -1,15 +1,23 @@
 package dev.prodzeus.utilities.world;
 
+import dev.prodzeus.utilities.world.util.BlockKey;
+import dev.prodzeus.utilities.world.util.IntTriConsumer;
+import dev.prodzeus.utilities.world.util.IntTriPredicate;
+import lombok.AccessLevel;
 import lombok.Getter;
 import org.bukkit.*;
 import org.bukkit.block.Block;
 import org.bukkit.configuration.serialization.ConfigurationSerializable;
 import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.Serializable;
 import java.util.*;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * This class is a region/Cuboid from one location to another. It can be used for {@link Block}s protection and things like WorldEdit.<br><br>
@@ -58,9 +66,16 @@ public final class Cuboid implements Iterable<Block>, Cloneable, ConfigurationSe
      */
     private final double volume;
     /**
-     * The border of the Cuboid.
+     * The border of the Cuboid, created on first use. Null if the Cuboid was created without a server.
+     * Clones hold a border of their own, so changing the border of a clone leaves the original unchanged.
      */
-    private final WorldBorder border;
+    @Getter(AccessLevel.NONE)
+    private final transient BorderHolder border;
+    /**
+     * The resolved world of the Cuboid, cached to avoid looking the world up by name on every call.
+     */
+    @Getter(AccessLevel.NONE)
+    private transient volatile WorldResolver.Handle world;
 
     /**
      * Construct a Cuboid in the world of the given world name and XYZ-coordinates.
@@ -105,13 +120,32 @@ public final class Cuboid implements Iterable<Block>, Cloneable, ConfigurationSe
         this.volume = this.lengthX * this.lengthY * this.lengthZ;
         this.shortestDistance = Math.min(Math.min(this.lengthX, this.lengthZ), this.lengthY);
         this.longestDistance = Math.max(Math.max(x2 - x1, z2 - z1), y2 - y1);
-        if (server == null) this.border = null;
-        else {
-            final WorldBorder border = server.createWorldBorder();
-            border.setCenter(centerX, centerZ);
-            border.setSize(longestDistance);
-            this.border = border;
-        }
+        this.border = server == null ? null : new BorderHolder(server, this.centerX, this.centerZ, this.longestDistance);
+    }
+
+    /**
+     * Construct a copy of the given Cuboid, with a border of its own, created on first use.
+     * @param other The Cuboid to copy.
+     */
+    private Cuboid(@NotNull final Cuboid other) {
+        this.worldName = other.worldName;
+        this.x1 = other.x1;
+        this.x2 = other.x2;
+        this.y1 = other.y1;
+        this.y2 = other.y2;
+        this.z1 = other.z1;
+        this.z2 = other.z2;
+        this.centerX = other.centerX;
+        this.centerY = other.centerY;
+        this.centerZ = other.centerZ;
+        this.lengthX = other.lengthX;
+        this.lengthY = other.lengthY;
+        this.lengthZ = other.lengthZ;
+        this.volume = other.volume;
+        this.shortestDistance = other.shortestDistance;
+        this.longestDistance = other.longestDistance;
+        this.border = other.border == null ? null : other.border.copy();
+        this.world = other.world;
     }
 
     /**
@@ -202,14 +236,14 @@ public final class Cuboid implements Iterable<Block>, Cloneable, ConfigurationSe
      */
     public static Cuboid create(Map<String, Object> map) {
         String worldName = (String) map.get("worldName");
-        double x1 = (Integer) map.get("x1");
-        double x2 = (Integer) map.get("x2");
-        double y1 = (Integer) map.get("y1");
-        double y2 = (Integer) map.get("y2");
-        double z1 = (Integer) map.get("z1");
-        double z2 = (Integer) map.get("z2");
+        double x1 = ((Number) map.get("x1")).doubleValue();
+        double x2 = ((Number) map.get("x2")).doubleValue();
+        double y1 = ((Number) map.get("y1")).doubleValue();
+        double y2 = ((Number) map.get("y2")).doubleValue();
+        double z1 = ((Number) map.get("z1")).doubleValue();
+        double z2 = ((Number) map.get("z2")).doubleValue();
 
-        return new Cuboid(worldName, (int) x1, (int) y1, (int) z1, (int) x2, (int) y2, (int) z2);
+        return new Cuboid(worldName, x1, y1, z1, x2, y2, z2);
     }
 
     @Override
@@ -229,15 +263,28 @@ public final class Cuboid implements Iterable<Block>, Cloneable, ConfigurationSe
      * Get the world of the Cuboid.
      * @return The world object representing this Cuboid's world.
      * @throws IllegalStateException If the world is not loaded.
+     * @apiNote The world is cached once {@link WorldResolver} has been registered, see {@link WorldResolver#register}.
      */
     public World getWorld() {
-        World world = Bukkit.getWorld(this.worldName);
+        final World cached = getCachedWorld();
+        if (cached != null) return cached;
+        final World world = WorldResolver.getWorld(this.worldName);
         if (world == null) {
             throw new IllegalStateException("World '%s' is not loaded!".formatted(this.worldName));
         }
+        this.world = WorldResolver.handle(world);
         return world;
     }
 
+    /**
+     * Get the cached world of the Cuboid, without looking it up.
+     * @return The cached world, or null if the world is not cached.
+     */
+    private @Nullable World getCachedWorld() {
+        final WorldResolver.Handle handle = this.world;
+        return handle == null ? null : handle.getIfValid();
+    }
+
     /**
      * Get the size of the Cuboid along the X-Axis.
      * @return Size of the Cuboid along the X-Axis.
@@ -397,19 +444,8 @@ public final class Cuboid implements Iterable<Block>, Cloneable, ConfigurationSe
      *              or null if the location is in a different world or otherwise invalid.
      */
     public Double getShortestSquaredDistanceToSurface(Location point) {
-        if (point.getWorld() != getWorld()) return null;
-
-        double px = point.getX(), py = point.getY(), pz = point.getZ();
-
-        double dx = (px < x1) ? (x1 - px) : (px > x2) ? (px - x2) : 0;
-        double dy = (py < y1) ? (y1 - py) : (py > y2) ? (py - y2) : 0;
-        double dz = (pz < z1) ? (z1 - pz) : (pz > z2) ? (pz - z2) : 0;
-
-        if (dx == 0 && dy == 0 && dz == 0) {
-            return 0.0;
-        }
-
-        return dx * dx + dy * dy + dz * dz;
+        if (!isInWorld(point)) return null;
+        return squaredDistanceToSurface(point.getX(), point.getY(), point.getZ());
     }
 
     /**
@@ -418,8 +454,46 @@ public final class Cuboid implements Iterable<Block>, Cloneable, ConfigurationSe
      * @return      The true distance to the nearest face of the Cuboid or null if the location is invalid.
      */
     public Double getShortestDistanceToSurface(Location point) {
-        Double squaredDistance = getShortestSquaredDistanceToSurface(point);
-        return (squaredDistance != null) ? Math.sqrt(squaredDistance) : null;
+        if (!isInWorld(point)) return null;
+        return distanceToSurface(point.getX(), point.getY(), point.getZ());
+    }
+
+    /**
+     * Calculates the squared distance between the given point and the nearest face of the Cuboid, ignoring the world.
+     * Unlike {@link #getShortestSquaredDistanceToSurface(Location)}, this neither boxes the result nor looks up the world.
+     * @param x The X coordinate.
+     * @param y The Y coordinate.
+     * @param z The Z coordinate.
+     * @return The squared distance, or 0 if the point is inside the Cuboid.
+     */
+    public double squaredDistanceToSurface(final double x, final double y, final double z) {
+        final double dx = (x < this.x1) ? (this.x1 - x) : (x > this.x2) ? (x - this.x2) : 0;
+        final double dy = (y < this.y1) ? (this.y1 - y) : (y > this.y2) ? (y - this.y2) : 0;
+        final double dz = (z < this.z1) ? (this.z1 - z) : (z > this.z2) ? (z - this.z2) : 0;
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    /**
+     * Calculates the distance between the given point and the nearest face of the Cuboid, ignoring the world.
+     * @param x The X coordinate.
+     * @param y The Y coordinate.
+     * @param z The Z coordinate.
+     * @return The distance, or 0 if the point is inside the Cuboid.
+     */
+    public double distanceToSurface(final double x, final double y, final double z) {
+        return Math.sqrt(squaredDistanceToSurface(x, y, z));
+    }
+
+    /**
+     * Check if the given point is within range of this Cuboid, ignoring the world.
+     * @param x     The X coordinate.
+     * @param y     The Y coordinate.
+     * @param z     The Z coordinate.
+     * @param range The maximum distance to the Cuboid.
+     * @return True if the point is within range of the Cuboid, otherwise false.
+     */
+    public boolean isPointInRange(final double x, final double y, final double z, final double range) {
+        return squaredDistanceToSurface(x, y, z) <= range * range;
     }
 
     /**
@@ -427,17 +501,11 @@ public final class Cuboid implements Iterable<Block>, Cloneable, ConfigurationSe
      * @return A list of all the matching blocks found.
      */
     public List<Block> getBlocks(Material material) {
-        Iterator<Block> blockI = this.iterator();
-        List<Block> copy = new ArrayList<>();
-        try {
-            while (blockI.hasNext()) {
-                Block block = blockI.next();
-                if (block.getType().equals(material)) {
-                    copy.add(block);
-                }
-            }
-        } catch (Exception ignored) {
-        }
+        final World w = this.getWorld();
+        final List<Block> copy = new ArrayList<>();
+        forEachPosition((x, y, z) -> {
+            if (w.getType(x, y, z) == material) copy.add(w.getBlockAt(x, y, z));
+        });
         return copy;
     }
 
@@ -455,15 +523,69 @@ public final class Cuboid implements Iterable<Block>, Cloneable, ConfigurationSe
      * @return           A list of all blocks in the Cuboid.
      */
     public List<Block> getBlocks(final boolean includeAir) {
-        Iterator<Block> blockI = this.iterator();
-        List<Block> copy = new ArrayList<>();
-        blockI.forEachRemaining(block -> {
-            if (!includeAir && block.getType().equals(Material.AIR)) return;
-            copy.add(block);
+        final World w = this.getWorld();
+        final List<Block> copy = new ArrayList<>();
+        forEachPosition((x, y, z) -> {
+            if (!includeAir && w.getType(x, y, z) == Material.AIR) return;
+            copy.add(w.getBlockAt(x, y, z));
         });
         return copy;
     }
 
+    /**
+     * Visit the coordinates of every block in the Cuboid, in the same order as {@link Cuboid#iterator()}.
+     * Unlike the iterator, no {@link Block} is created for the visited positions.
+     *
+     * @param consumer The consumer of the X, Y and Z coordinates.
+     */
+    public void forEachPosition(@NotNull final IntTriConsumer consumer) {
+        final int x1 = (int) this.x1, y1 = (int) this.y1, z1 = (int) this.z1;
+        final int x2 = (int) this.x2, y2 = (int) this.y2, z2 = (int) this.z2;
+        for (int z = z1; z <= z2; z++) {
+            for (int y = y1; y <= y2; y++) {
+                for (int x = x1; x <= x2; x++) {
+                    consumer.accept(x, y, z);
+                }
+            }
+        }
+    }
+
+    /**
+     * Visit the coordinates of every block in the Cuboid, in the given order.
+     * No {@link Block} is created for the visited positions.
+     *
+     * @param order    The order of the positions.
+     * @param consumer The consumer of the X, Y and Z coordinates.
+     */
+    public void forEachPosition(@NotNull final IterationOrder order, @NotNull final IntTriConsumer consumer) {
+        if (order == IterationOrder.LINEAR) {
+            forEachPosition(consumer);
+            return;
+        }
+        final BlockCursor cursor = cursor(order);
+        while (cursor.next()) consumer.accept(cursor.x(), cursor.y(), cursor.z());
+    }
+
+    /**
+     * Check if any block position in the Cuboid matches the given predicate, in the same order as {@link Cuboid#iterator()}.
+     * The search stops at the first match, and no {@link Block} is created for the visited positions.
+     *
+     * @param predicate The predicate tested against the X, Y and Z coordinates.
+     * @return True if any position matched the predicate, otherwise false.
+     */
+    public boolean anyPosition(@NotNull final IntTriPredicate predicate) {
+        final int x1 = (int) this.x1, y1 = (int) this.y1, z1 = (int) this.z1;
+        final int x2 = (int) this.x2, y2 = (int) this.y2, z2 = (int) this.z2;
+        for (int z = z1; z <= z2; z++) {
+            for (int y = y1; y <= y2; y++) {
+                for (int x = x1; x <= x2; x++) {
+                    if (predicate.test(x, y, z)) return true;
+                }
+            }
+        }
+        return false;
+    }
+
     /**
      * Get the center of the Cuboid.
      * @return The location at the center of the Cuboid.
@@ -633,6 +755,37 @@ public final class Cuboid implements Iterable<Block>, Cloneable, ConfigurationSe
         return x >= this.x1 && x <= this.x2 && y >= this.y1 && y <= this.y2 && z >= this.z1 && z <= this.z2;
     }
 
+    /**
+     * Check which of the given points are contained within this Cuboid, as {@link #contains(Location)} would for each of them,
+     * without creating a {@link Location} or looking up the world per point.
+     * The i-th point is given by the i-th element of each array, and is contained if its block is within the Cuboid.
+     *
+     * @param xs  The X coordinates.
+     * @param ys  The Y coordinates.
+     * @param zs  The Z coordinates.
+     * @param out The set in which the bit of every contained point is set, and the bit of every other point is cleared.
+     * @return The number of contained points.
+     * @throws IllegalArgumentException If the arrays differ in length.
+     * @see CuboidBatch
+     */
+    public int containsAll(final double @NotNull [] xs, final double @NotNull [] ys, final double @NotNull [] zs, @NotNull final BitSet out) {
+        final int length = xs.length;
+        if (ys.length != length || zs.length != length) throw new IllegalArgumentException("Coordinate arrays must have the same length!");
+        // A point is within the block range [ceil(x1), floor(x2)] exactly when it lies within [ceil(x1), floor(x2) + 1).
+        final double minX = Math.ceil(this.x1), minY = Math.ceil(this.y1), minZ = Math.ceil(this.z1);
+        final double maxX = Math.floor(this.x2) + 1, maxY = Math.floor(this.y2) + 1, maxZ = Math.floor(this.z2) + 1;
+        out.clear(0, length);
+        int count = 0;
+        for (int i = 0; i < length; i++) {
+            final double x = xs[i], y = ys[i], z = zs[i];
+            if (x >= minX & x < maxX & y >= minY & y < maxY & z >= minZ & z < maxZ) {
+                out.set(i);
+                ++count;
+            }
+        }
+        return count;
+    }
+
     /**
      * Check if the given Block is contained within this Cuboid.
      *
@@ -650,10 +803,16 @@ public final class Cuboid implements Iterable<Block>, Cloneable, ConfigurationSe
      * @return True if the location is within this Cuboid, otherwise false.
      */
     public boolean contains(Location location) {
-        if (!this.worldName.equals(location.getWorld().getName())) {
-            return false;
-        }
-        return this.contains(location.getBlockX(), location.getBlockY(), location.getBlockZ());
+        return isInWorld(location) && this.contains(location.getBlockX(), location.getBlockY(), location.getBlockZ());
+    }
+
+    /**
+     * Check if the given location is in the world of this Cuboid, without resolving the world if it is not cached.
+     */
+    private boolean isInWorld(@NotNull final Location location) {
+        final World cached = getCachedWorld();
+        if (location.getWorld() == null) return false;
+        return cached != null ? cached == location.getWorld() : this.worldName.equals(location.getWorld().getName());
     }
 
     /**
@@ -679,7 +838,8 @@ public final class Cuboid implements Iterable<Block>, Cloneable, ConfigurationSe
      * @param distance How many blocks the entities should be teleported away from the Cuboid.
      */
     public void removeEntities(final int distance) {
-        final Location safeLocation = new Location(getWorld(), getUpperX(), getWorld().getHighestBlockAt((int) getUpperX() + distance, (int) getUpperZ()).getY(), getUpperZ() + distance);
+        final World w = getWorld();
+        final Location safeLocation = new Location(w, getUpperX(), w.getHighestBlockAt((int) getUpperX() + distance, (int) getUpperZ()).getY(), getUpperZ() + distance);
         getCenter().getNearbyLivingEntities(getRadiusX(), getRadiusY(), getRadiusZ()).forEach(entity -> entity.teleport(safeLocation));
     }
 
@@ -696,7 +856,8 @@ public final class Cuboid implements Iterable<Block>, Cloneable, ConfigurationSe
      * @param distance How many blocks the players should be teleported away from the Cuboid.
      */
     public void removePlayers(final int distance) {
-        final Location safeLocation = new Location(getWorld(), getUpperX(), getWorld().getHighestBlockAt((int) getUpperX() + distance, (int) getUpperZ()).getY(), getUpperZ() + distance);
+        final World w = getWorld();
+        final Location safeLocation = new Location(w, getUpperX(), w.getHighestBlockAt((int) getUpperX() + distance, (int) getUpperZ()).getY(), getUpperZ() + distance);
         getCenter().getNearbyLivingEntities(getRadiusX(), getRadiusY(), getRadiusZ()).forEach(entity -> {
             if (entity instanceof Player player) player.teleport(safeLocation);
         });
@@ -706,6 +867,7 @@ public final class Cuboid implements Iterable<Block>, Cloneable, ConfigurationSe
      * Get the average light level of all empty blocks ({@link Material#AIR}) in the Cuboid. Returns 0 if there are no empty blocks.
      *
      * @return The average light level of this Cuboid
+     * @apiNote Visits every block. For large Cuboids, see {@link #sampler()} for an estimate from a sample of the blocks.
      */
     public byte getAverageLightLevel() {
         long total = 0;
@@ -719,18 +881,37 @@ public final class Cuboid implements Iterable<Block>, Cloneable, ConfigurationSe
         return n > 0 ? (byte) (total / n) : 0;
     }
 
+    /**
+     * Compute the {@link CuboidStats} of the Cuboid in a single pass, split across the chunks of the Cuboid and run in parallel.
+     *
+     * @param biomes Whether the distribution of biomes should be included.
+     * @return The statistics of the Cuboid.
+     * @apiNote The chunks are captured on the calling thread, which must be the main thread. See {@link AsyncCuboid#getStats()} for an asynchronous alternative.
+     */
+    public @NotNull CuboidStats getStats(final boolean biomes) {
+        return CuboidStats.compute(CuboidSnapshot.capture(this, biomes));
+    }
+
+    /**
+     * Create a {@link CuboidSampler} of the Cuboid, estimating its statistics from a sample of its blocks,
+     * at a cost independent of the volume of the Cuboid.
+     *
+     * @return The sampler.
+     * @apiNote {@link CuboidSampler#estimate()} only reads loaded chunks, on the calling thread, which must be the main thread.
+     * See {@link CuboidSampler#estimateAsync(Plugin)} to load the sampled chunks asynchronously.
+     */
+    public @NotNull CuboidSampler sampler() {
+        return CuboidSampler.of(this);
+    }
+
     /**
      * Contract the Cuboid, returning a Cuboid with any air around the edges removed, just large enough to include all non-air blocks.
+     * All six faces are contracted in a single pass over a {@link CuboidSnapshot}, see {@link CuboidSnapshot#contract()}.
      *
      * @return A new Cuboid with no external air blocks.
      */
     public Cuboid contract() {
-        return this.contract(CuboidDirection.Down)
-                .contract(CuboidDirection.South)
-                .contract(CuboidDirection.East)
-                .contract(CuboidDirection.Up)
-                .contract(CuboidDirection.North)
-                .contract(CuboidDirection.West);
+        return this.snapshot().contract();
     }
 
     /**
@@ -744,37 +925,37 @@ public final class Cuboid implements Iterable<Block>, Cloneable, ConfigurationSe
         Cuboid face = getFace(direction.opposite());
         switch (direction) {
             case Down -> {
-                while (face.containsOnly(0) && face.getLowerY() > this.getLowerY()) {
+                while (face.containsOnlyAir() && face.getLowerY() > this.getLowerY()) {
                     face = face.shift(CuboidDirection.Down, 1);
                 }
                 return new Cuboid(this.worldName, this.x1, this.y1, this.z1, this.x2, face.getUpperY(), this.z2);
             }
             case Up -> {
-                while (face.containsOnly(0) && face.getUpperY() < this.getUpperY()) {
+                while (face.containsOnlyAir() && face.getUpperY() < this.getUpperY()) {
                     face = face.shift(CuboidDirection.Up, 1);
                 }
                 return new Cuboid(this.worldName, this.x1, face.getLowerY(), this.z1, this.x2, this.y2, this.z2);
             }
             case North -> {
-                while (face.containsOnly(0) && face.getLowerX() > this.getLowerX()) {
+                while (face.containsOnlyAir() && face.getLowerX() > this.getLowerX()) {
                     face = face.shift(CuboidDirection.North, 1);
                 }
                 return new Cuboid(this.worldName, this.x1, this.y1, this.z1, face.getUpperX(), this.y2, this.z2);
             }
             case South -> {
-                while (face.containsOnly(0) && face.getUpperX() < this.getUpperX()) {
+                while (face.containsOnlyAir() && face.getUpperX() < this.getUpperX()) {
                     face = face.shift(CuboidDirection.South, 1);
                 }
                 return new Cuboid(this.worldName, face.getLowerX(), this.y1, this.z1, this.x2, this.y2, this.z2);
             }
             case East -> {
-                while (face.containsOnly(0) && face.getLowerZ() > this.getLowerZ()) {
+                while (face.containsOnlyAir() && face.getLowerZ() > this.getLowerZ()) {
                     face = face.shift(CuboidDirection.East, 1);
                 }
                 return new Cuboid(this.worldName, this.x1, this.y1, this.z1, this.x2, this.y2, face.getUpperZ());
             }
             case West -> {
-                while (face.containsOnly(0) && face.getUpperZ() < this.getUpperZ()) {
+                while (face.containsOnlyAir() && face.getUpperZ() < this.getUpperZ()) {
                     face = face.shift(CuboidDirection.West, 1);
                 }
                 return new Cuboid(this.worldName, this.x1, this.y1, face.getLowerZ(), this.x2, this.y2, this.z2);
@@ -802,18 +983,13 @@ public final class Cuboid implements Iterable<Block>, Cloneable, ConfigurationSe
     }
 
     /**
-     * Check if the Cuboid contains only blocks of the given type.
+     * Check if the Cuboid contains only air, of any kind.
      *
-     * @param blockId The block ID to check for.
-     * @return True if this Cuboid contains only blocks of the given type, otherwise false.
+     * @return True if every block in this Cuboid is air, otherwise false.
      */
-    private boolean containsOnly(int blockId) {
-        for (Block b : this) {
-            if (b.getType().getId() != blockId) {
-                return false;
-            }
-        }
-        return true;
+    private boolean containsOnlyAir() {
+        final World w = this.getWorld();
+        return !anyPosition((x, y, z) -> !w.getType(x, y, z).isAir());
     }
 
     /**
@@ -824,8 +1000,7 @@ public final class Cuboid implements Iterable<Block>, Cloneable, ConfigurationSe
      * @return True if the location is within range of the Cuboid, otherwise false.
      */
     public boolean isPointInRange(final Location point, final double range) {
-        Double squaredDistance = getShortestSquaredDistanceToSurface(point);
-        return squaredDistance != null && squaredDistance <= range * range;
+        return isInWorld(point) && isPointInRange(point.getX(), point.getY(), point.getZ(), range);
     }
 
     /**
@@ -881,6 +1056,7 @@ public final class Cuboid implements Iterable<Block>, Cloneable, ConfigurationSe
      * Get a list of the chunks which are fully or partially contained in this Cuboid.
      *
      * @return A list of Chunk objects.
+     * @apiNote Chunks which are not loaded are loaded synchronously. See {@link AsyncCuboid#loadChunks()} to load them asynchronously instead.
      */
     public @NotNull List<Chunk> getChunks() {
         List<Chunk> res = new ArrayList<>();
@@ -898,13 +1074,106 @@ public final class Cuboid implements Iterable<Block>, Cloneable, ConfigurationSe
         return res;
     }
 
+    /**
+     * Convert this Cuboid to a block-aligned {@link BlockCuboid}, which stores its bounds as ints for cheaper containment checks.
+     *
+     * @return A new BlockCuboid covering the same blocks.
+     */
+    public @NotNull BlockCuboid toBlockCuboid() {
+        return BlockCuboid.create(this);
+    }
+
+    /**
+     * Capture a {@link CuboidSnapshot} of every chunk intersecting this Cuboid.
+     * The snapshot can be queried asynchronously, and is considerably faster for bulk queries than iterating the Cuboid.
+     *
+     * @return The captured snapshot.
+     * @apiNote Must be called on the main thread.
+     */
+    public @NotNull CuboidSnapshot snapshot() {
+        return CuboidSnapshot.capture(this);
+    }
+
+    /**
+     * Get asynchronous access to the bulk operations of this Cuboid.
+     * Operations are split into slices which use at most a set budget of each tick, see {@link AsyncCuboid}.
+     *
+     * @param plugin The plugin used for scheduling tasks.
+     * @return The asynchronous operations of this Cuboid.
+     */
+    public @NotNull AsyncCuboid async(@NotNull final Plugin plugin) {
+        return new AsyncCuboid(this, plugin);
+    }
+
+    /**
+     * Get a batched editor of the blocks in this Cuboid, which spreads its writes across ticks, see {@link CuboidEditor}.
+     *
+     * @param plugin The plugin used for scheduling tasks.
+     * @return The editor of this Cuboid.
+     */
+    public @NotNull CuboidEditor edit(@NotNull final Plugin plugin) {
+        return new CuboidEditor(this, plugin);
+    }
+
     public @NotNull Iterator<Block> iterator() {
         return new CuboidIterator(this.getWorld(), (int) this.x1, (int) this.y1, (int) this.z1, (int) this.x2, (int) this.y2, (int) this.z2);
     }
 
+    /**
+     * Get an iterator over the blocks of the Cuboid, in the given order.
+     *
+     * @param order The order of the blocks.
+     * @return The iterator.
+     */
+    public @NotNull Iterator<Block> iterator(@NotNull final IterationOrder order) {
+        if (order == IterationOrder.LINEAR) return iterator();
+        final World w = this.getWorld();
+        final BlockCursor cursor = cursor(order);
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return cursor.visited() < cursor.total();
+            }
+
+            @Override
+            public Block next() {
+                if (!cursor.next()) throw new NoSuchElementException();
+                return w.getBlockAt(cursor.x(), cursor.y(), cursor.z());
+            }
+        };
+    }
+
+    /**
+     * Get a stream of the packed positions of every block in the Cuboid, see {@link BlockKey}.
+     * The stream is sized, ordered in the {@link IterationOrder#CHUNK_SECTION} order, and splits along chunk boundaries,
+     * so it performs well in parallel. Paired with a {@link CuboidSnapshot}, the positions can be read off the main thread.
+     *
+     * @return A sequential stream of the positions.
+     */
+    public @NotNull LongStream positions() {
+        return StreamSupport.longStream(new PositionSpliterator(
+                (int) this.x1, (int) this.y1, (int) this.z1, (int) this.x2, (int) this.y2, (int) this.z2), false);
+    }
+
+    /**
+     * Get a stream of every block in the Cuboid, in the same order as {@link #positions()}.
+     * Blocks must only be accessed on the main thread, so the stream must not be made parallel.
+     * Use {@link #positions()} with a {@link CuboidSnapshot} for parallel reads.
+     *
+     * @return A sequential stream of the blocks.
+     */
+    public @NotNull Stream<Block> stream() {
+        final World w = this.getWorld();
+        return positions().mapToObj(key -> w.getBlockAt(BlockKey.x(key), BlockKey.y(key), BlockKey.z(key)));
+    }
+
+    private @NotNull BlockCursor cursor(@NotNull final IterationOrder order) {
+        return new BlockCursor(order, (int) this.x1, (int) this.y1, (int) this.z1, (int) this.x2, (int) this.y2, (int) this.z2);
+    }
+
     @Override
     public Cuboid clone() {
-        return new Cuboid(this.worldName, this.x1, this.y1, this.z1, this.x2, this.y2, this.z2);
+        return new Cuboid(this);
     }
 
     @Override
@@ -935,38 +1204,40 @@ public final class Cuboid implements Iterable<Block>, Cloneable, ConfigurationSe
     }
 
     /**
-     * Finds the first safe location in the Cuboid with one solid, non-passable block beneath and 2 air blocks above.
+     * Finds the safe location closest to the center of the Cuboid with one solid block beneath and 2 non-solid blocks above.
+     * The search moves outward from the center column, see {@link SafeLocationFinder#find(Cuboid)}.
+     * Use a {@link SafeLocationFinder} to cache the result.
      *
-     * @return The location of the non-passable block.
+     * @return The location of the solid block, or null if none was found.
      */
     public @Nullable Location getSafeTeleportLocation() {
-        for (int x = (int) x1; x <= x2; x++) {
-            for (int z = (int) z1; z <= z2; z++) {
-                for (int y = (int) y1; y <= y2; y++) {
-                    if (!getWorld().getBlockAt(x, y, z).isPassable()
-                            && getWorld().getBlockAt(x, y + 1, z).isPassable()
-                            && getWorld().getBlockAt(x, y + 2, z).isPassable()) continue;
-                    return new Location(getWorld(), x, y, z);
-                }
-            }
-        }
-        return null;
+        return SafeLocationFinder.find(this);
     }
 
     /**
-     * Check if the Cuboid has a WorldBorder.
-     * @return The WorldBorder.
+     * Check if the Cuboid has a WorldBorder, which is the case for Cuboids created with a {@link Server}.
+     * This does not create the border.
+     * @return True | False
      */
     public boolean hasWorldBorder() {
         return this.border != null;
     }
 
     /**
-     * Get the border of the Cuboid.
-     * @return The WorldBorder.
+     * Get the border of the Cuboid, creating it on first use.
+     * @return The WorldBorder, or null if the Cuboid was created without a {@link Server}.
      */
     public @Nullable WorldBorder getWorldBorder() {
-        return this.border;
+        return this.border == null ? null : this.border.get();
+    }
+
+    /**
+     * Get the border of the Cuboid, creating it on first use.
+     * @return The WorldBorder, or null if the Cuboid was created without a {@link Server}.
+     * @see #getWorldBorder()
+     */
+    public @Nullable WorldBorder getBorder() {
+        return getWorldBorder();
     }
 
     /**
@@ -976,8 +1247,9 @@ public final class Cuboid implements Iterable<Block>, Cloneable, ConfigurationSe
      * @return The WorldBorder.
      */
     public @Nullable WorldBorder setWarningTime(final int seconds) {
-        this.border.setWarningTime(seconds);
-        return this.border;
+        final WorldBorder border = getWorldBorder();
+        if (border != null) border.setWarningTime(seconds);
+        return border;
     }
 
     /**
@@ -987,8 +1259,9 @@ public final class Cuboid implements Iterable<Block>, Cloneable, ConfigurationSe
      * @return The WorldBorder.
      */
     public @Nullable WorldBorder setWarningDistance(final int distance) {
-        this.border.setWarningDistance(distance);
-        return this.border;
+        final WorldBorder border = getWorldBorder();
+        if (border != null) border.setWarningDistance(distance);
+        return border;
     }
 
     /**
@@ -998,8 +1271,9 @@ public final class Cuboid implements Iterable<Block>, Cloneable, ConfigurationSe
      * @return The WorldBorder.
      */
     public @Nullable WorldBorder setDamageAmount(final double amount) {
-        this.border.setDamageAmount(amount);
-        return this.border;
+        final WorldBorder border = getWorldBorder();
+        if (border != null) border.setDamageAmount(amount);
+        return border;
     }
 
     /**
@@ -1009,8 +1283,9 @@ public final class Cuboid implements Iterable<Block>, Cloneable, ConfigurationSe
      * @return The WorldBorder.
      */
     public @Nullable WorldBorder setDamageBuffer(final double distance) {
-        this.border.setDamageBuffer(distance);
-        return this.border;
+        final WorldBorder border = getWorldBorder();
+        if (border != null) border.setDamageBuffer(distance);
+        return border;
     }
 
     /**
@@ -1026,11 +1301,51 @@ public final class Cuboid implements Iterable<Block>, Cloneable, ConfigurationSe
      * Show the border for the given {@link Player}s.
      *
      * @param players The players.
+     * @apiNote Sends the border to every player at once.
+     * Use a {@link BorderVisualizer} to show the borders of several Cuboids to many players, spreading the sends over ticks.
      */
     public void showBorder(@NotNull final Player... players) {
         for (Player player : players) showBorder(player);
     }
 
+    /**
+     * Holds the border of a Cuboid, which is only created once first requested.
+     */
+    private static final class BorderHolder {
+
+        private final Server server;
+        private final double centerX, centerZ, size;
+        private volatile WorldBorder border;
+
+        private BorderHolder(@NotNull final Server server, final double centerX, final double centerZ, final double size) {
+            this.server = server;
+            this.centerX = centerX;
+            this.centerZ = centerZ;
+            this.size = size;
+        }
+
+        /**
+         * Create a holder of a new border with the same center and size, which is only created once first requested.
+         */
+        private @NotNull BorderHolder copy() {
+            return new BorderHolder(this.server, this.centerX, this.centerZ, this.size);
+        }
+
+        private @NotNull WorldBorder get() {
+            WorldBorder border = this.border;
+            if (border != null) return border;
+            synchronized (this) {
+                if (this.border == null) {
+                    border = this.server.createWorldBorder();
+                    border.setCenter(this.centerX, this.centerZ);
+                    border.setSize(this.size);
+                    this.border = border;
+                }
+                return this.border;
+            }
+        }
+    }
+
     public enum CuboidDirection {
         North,
         East,
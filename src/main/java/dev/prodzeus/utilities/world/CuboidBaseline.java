@@ -0,0 +1,106 @@
+package dev.prodzeus.utilities.world;
+
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.block.data.BlockData;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A baseline of the blocks of a {@link Cuboid}, which later states of the Cuboid can be compared against.<br><br>
+ * <p>
+ * The baseline holds a {@link CuboidSnapshot} along with a hash of every chunk section.
+ * When diffing, only sections whose hash differs from the baseline are compared block by block,
+ * so the cost of a diff mostly depends on the number of changed sections rather than the volume of the Cuboid.
+ * Hashes are based on the block states of the running server, and are not meant to be persisted.<br><br>
+ * <p>
+ * Baselines are created through {@link AsyncCuboid#baseline()} or {@link #of(CuboidSnapshot)},
+ * and the Cuboid is restored to its baseline through {@link CuboidEditor#restore(CuboidBaseline)}.
+ *
+ * @author prodzeus
+ */
+@SuppressWarnings("unused")
+public final class CuboidBaseline {
+
+    private final CuboidSnapshot snapshot;
+    private final int sections;
+    /**
+     * The hash of every section, indexed by {@code chunkIndex * sections + sectionIndex}.
+     */
+    private final long[] hashes;
+
+    private CuboidBaseline(@NotNull final CuboidSnapshot snapshot) {
+        this.snapshot = snapshot;
+        this.sections = snapshot.getSectionCount();
+        this.hashes = hash(snapshot);
+    }
+
+    /**
+     * Create a baseline of the given snapshot, hashing every section of it.
+     * This does not access the world, and may be called off the main thread.
+     * @param snapshot The snapshot.
+     * @return The baseline.
+     */
+    public static @NotNull CuboidBaseline of(@NotNull final CuboidSnapshot snapshot) {
+        return new CuboidBaseline(snapshot);
+    }
+
+    /**
+     * Get the snapshot of the baseline.
+     * @return The snapshot.
+     */
+    public @NotNull CuboidSnapshot getSnapshot() {
+        return this.snapshot;
+    }
+
+    /**
+     * Get the Cuboid of the baseline.
+     * @return The Cuboid.
+     */
+    public @NotNull Cuboid getCuboid() {
+        return this.snapshot.getCuboid();
+    }
+
+    /**
+     * Compare the given snapshot against the baseline, collecting every block which differs.
+     * This does not access the world, and may be called off the main thread.
+     * @param current The current snapshot, which must cover the same blocks as the baseline.
+     * @return The differences, holding the block of the baseline at every changed position.
+     * @throws IllegalArgumentException If the snapshot does not cover the same blocks as the baseline.
+     */
+    public @NotNull CuboidDiff diff(@NotNull final CuboidSnapshot current) {
+        if (!this.snapshot.hasSameBounds(current)) throw new IllegalArgumentException("Snapshot does not cover the same blocks as the baseline!");
+        final long[] currentHashes = hash(current);
+        final CuboidDiff diff = new CuboidDiff(this.snapshot.getCuboid(), this.hashes.length);
+        for (int i = 0; i < this.snapshot.getChunkCount(); i++) {
+            final ChunkSnapshot before = this.snapshot.getChunkAt(i);
+            final ChunkSnapshot after = current.getChunkAt(i);
+            for (int section = 0; section < this.sections; section++) {
+                if (this.hashes[i * this.sections + section] == currentHashes[i * this.sections + section]) continue;
+                diff.markSection();
+                this.snapshot.forEach(before, section, (chunk, x, y, z) -> {
+                    final BlockData data = before.getBlockData(x & 0xf, y, z & 0xf);
+                    if (!data.equals(after.getBlockData(x & 0xf, y, z & 0xf))) diff.add(x, y, z, data);
+                    return true;
+                });
+            }
+        }
+        return diff;
+    }
+
+    /**
+     * Hash every section of the given snapshot.
+     */
+    private static long @NotNull [] hash(@NotNull final CuboidSnapshot snapshot) {
+        final int sections = snapshot.getSectionCount();
+        final long[] hashes = new long[snapshot.getChunkCount() * sections];
+        for (int i = 0; i < snapshot.getChunkCount(); i++) {
+            for (int section = 0; section < sections; section++) {
+                final int index = i * sections + section;
+                snapshot.forEach(snapshot.getChunkAt(i), section, (chunk, x, y, z) -> {
+                    hashes[index] = hashes[index] * 0x9E3779B97F4A7C15L + chunk.getBlockData(x & 0xf, y, z & 0xf).hashCode();
+                    return true;
+                });
+            }
+        }
+        return hashes;
+    }
+}
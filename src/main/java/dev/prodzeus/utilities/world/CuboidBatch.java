@@ -0,0 +1,152 @@
+package dev.prodzeus.utilities.world;
+
+import org.bukkit.Location;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/**
+ * An immutable batch of {@link Cuboid}s, laid out as a structure of arrays for testing a single point against every Cuboid at once.<br><br>
+ * <p>
+ * The bounds of the Cuboids are stored in six flat {@code double} arrays, one per bound, and their worlds as indices into a table of world names.
+ * A query resolves its world name once, then runs a single branch-free pass over the arrays,
+ * rather than following a reference to every Cuboid and comparing world names per Cuboid.
+ * Points are contained if their block is within a Cuboid, matching {@link Cuboid#contains(Location)}.<br><br>
+ * <p>
+ * For testing many points against a single Cuboid, see {@link Cuboid#containsAll(double[], double[], double[], BitSet)}.
+ *
+ * @author prodzeus
+ */
+@SuppressWarnings("unused")
+public final class CuboidBatch {
+
+    private final Cuboid[] cuboids;
+    private final Map<String, Integer> worlds = new HashMap<>();
+    private final int[] world;
+    private final double[] minX, minY, minZ, maxX, maxY, maxZ;
+
+    private CuboidBatch(@NotNull final Cuboid[] cuboids) {
+        final int size = cuboids.length;
+        this.cuboids = cuboids;
+        this.world = new int[size];
+        this.minX = new double[size];
+        this.minY = new double[size];
+        this.minZ = new double[size];
+        this.maxX = new double[size];
+        this.maxY = new double[size];
+        this.maxZ = new double[size];
+        for (int i = 0; i < size; i++) {
+            final Cuboid cuboid = cuboids[i];
+            this.world[i] = this.worlds.computeIfAbsent(cuboid.getWorldName(), name -> this.worlds.size());
+            // A point is within the block range [ceil(lower), floor(upper)] exactly when it lies within [ceil(lower), floor(upper) + 1).
+            this.minX[i] = Math.ceil(cuboid.getLowerX());
+            this.minY[i] = Math.ceil(cuboid.getLowerY());
+            this.minZ[i] = Math.ceil(cuboid.getLowerZ());
+            this.maxX[i] = Math.floor(cuboid.getUpperX()) + 1;
+            this.maxY[i] = Math.floor(cuboid.getUpperY()) + 1;
+            this.maxZ[i] = Math.floor(cuboid.getUpperZ()) + 1;
+        }
+    }
+
+    /**
+     * Create a batch of the given Cuboids. Later changes to the collection are not reflected by the batch.
+     * @param cuboids The Cuboids, indexed in the order of the collection.
+     * @return The batch.
+     */
+    public static @NotNull CuboidBatch of(@NotNull final Collection<Cuboid> cuboids) {
+        return new CuboidBatch(cuboids.toArray(new Cuboid[0]));
+    }
+
+    /**
+     * Create a batch of the given Cuboids.
+     * @param cuboids The Cuboids, indexed in the given order.
+     * @return The batch.
+     */
+    public static @NotNull CuboidBatch of(@NotNull final Cuboid... cuboids) {
+        return new CuboidBatch(cuboids.clone());
+    }
+
+    /**
+     * Get the number of Cuboids in the batch.
+     * @return The number of Cuboids.
+     */
+    public int size() {
+        return this.cuboids.length;
+    }
+
+    /**
+     * Get the Cuboid at the given index.
+     * @param index The index.
+     * @return The Cuboid.
+     * @throws IndexOutOfBoundsException If the index is out of range.
+     */
+    public @NotNull Cuboid get(final int index) {
+        return this.cuboids[index];
+    }
+
+    /**
+     * Check which Cuboids contain the given point.
+     * @param worldName The name of the world of the point.
+     * @param x         The X coordinate.
+     * @param y         The Y coordinate.
+     * @param z         The Z coordinate.
+     * @param out       The set in which the bit of every containing Cuboid is set, and the bit of every other Cuboid is cleared.
+     * @return The number of Cuboids containing the point.
+     */
+    public int containing(@NotNull final String worldName, final double x, final double y, final double z, @NotNull final BitSet out) {
+        final int size = this.cuboids.length;
+        out.clear(0, size);
+        final Integer world = this.worlds.get(worldName);
+        if (world == null) return 0;
+        final int w = world;
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (this.world[i] == w & x >= this.minX[i] & x < this.maxX[i] & y >= this.minY[i] & y < this.maxY[i]
+                    & z >= this.minZ[i] & z < this.maxZ[i]) {
+                out.set(i);
+                ++count;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Get the index of the first Cuboid containing the given point.
+     * @param worldName The name of the world of the point.
+     * @param x         The X coordinate.
+     * @param y         The Y coordinate.
+     * @param z         The Z coordinate.
+     * @return The index, or -1 if no Cuboid contains the point.
+     */
+    public int indexOf(@NotNull final String worldName, final double x, final double y, final double z) {
+        final Integer world = this.worlds.get(worldName);
+        if (world == null) return -1;
+        final int w = world;
+        for (int i = 0; i < this.cuboids.length; i++) {
+            if (this.world[i] == w & x >= this.minX[i] & x < this.maxX[i] & y >= this.minY[i] & y < this.maxY[i]
+                    & z >= this.minZ[i] & z < this.maxZ[i]) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Check if any Cuboid contains the given point.
+     * @param worldName The name of the world of the point.
+     * @param x         The X coordinate.
+     * @param y         The Y coordinate.
+     * @param z         The Z coordinate.
+     * @return True | False
+     */
+    public boolean anyContains(@NotNull final String worldName, final double x, final double y, final double z) {
+        return indexOf(worldName, x, y, z) != -1;
+    }
+
+    /**
+     * Check if any Cuboid contains the given location.
+     * @param location The location.
+     * @return True | False
+     */
+    public boolean anyContains(@NotNull final Location location) {
+        return location.getWorld() != null && anyContains(location.getWorld().getName(), location.getX(), location.getY(), location.getZ());
+    }
+}
@@ -0,0 +1,139 @@
+package dev.prodzeus.utilities.world;
+
+import dev.prodzeus.utilities.world.util.BlockKey;
+import org.bukkit.block.data.BlockData;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+/**
+ * The blocks of a {@link Cuboid} which differ from a {@link CuboidBaseline}, computed through {@link CuboidBaseline#diff(CuboidSnapshot)}.<br><br>
+ * <p>
+ * Every changed position is stored as a packed block key along with the block of the baseline,
+ * in the same chunk-by-chunk order as the Cuboid is iterated. The diff is restored through {@link CuboidEditor#restore(CuboidDiff)}.
+ *
+ * @author prodzeus
+ */
+@SuppressWarnings("unused")
+public final class CuboidDiff {
+
+    private final Cuboid cuboid;
+    private final int sectionCount;
+    private int changedSections = 0;
+    private long[] keys = new long[64];
+    private BlockData[] blocks = new BlockData[64];
+    private int size = 0;
+
+    /**
+     * Create an empty diff of the given Cuboid.
+     * @param cuboid       The Cuboid.
+     * @param sectionCount The number of sections compared.
+     */
+    CuboidDiff(@NotNull final Cuboid cuboid, final int sectionCount) {
+        this.cuboid = cuboid;
+        this.sectionCount = sectionCount;
+    }
+
+    /**
+     * Record that a section differs from the baseline.
+     */
+    void markSection() {
+        ++this.changedSections;
+    }
+
+    /**
+     * Record a changed position, along with the block of the baseline.
+     */
+    void add(final int x, final int y, final int z, @NotNull final BlockData baseline) {
+        if (this.size == this.keys.length) {
+            this.keys = Arrays.copyOf(this.keys, this.size << 1);
+            this.blocks = Arrays.copyOf(this.blocks, this.size << 1);
+        }
+        this.keys[this.size] = BlockKey.pack(x, y, z);
+        this.blocks[this.size++] = baseline;
+    }
+
+    /**
+     * Get the Cuboid of the diff.
+     * @return The Cuboid.
+     */
+    public @NotNull Cuboid getCuboid() {
+        return this.cuboid;
+    }
+
+    /**
+     * Get the number of changed blocks.
+     * @return The number of blocks.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Check if no blocks have changed.
+     * @return True | False
+     */
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Get the number of sections compared.
+     * @return The number of sections.
+     */
+    public int getSectionCount() {
+        return this.sectionCount;
+    }
+
+    /**
+     * Get the number of sections which differ from the baseline, and were compared block by block.
+     * @return The number of sections.
+     */
+    public int getChangedSectionCount() {
+        return this.changedSections;
+    }
+
+    /**
+     * Get the packed position of the changed block at the given index.
+     * @param index The index.
+     * @return The packed block key.
+     * @see BlockKey
+     */
+    public long getKey(final int index) {
+        if (index < 0 || index >= this.size) throw new IndexOutOfBoundsException(index);
+        return this.keys[index];
+    }
+
+    /**
+     * Get the block of the baseline at the given index.
+     * @param index The index.
+     * @return The BlockData of the baseline.
+     */
+    public @NotNull BlockData getBlockData(final int index) {
+        if (index < 0 || index >= this.size) throw new IndexOutOfBoundsException(index);
+        return this.blocks[index];
+    }
+
+    /**
+     * Perform the given action for every changed block.
+     * @param action The action.
+     */
+    public void forEach(@NotNull final Change action) {
+        for (int i = 0; i < this.size; i++) {
+            final long key = this.keys[i];
+            action.accept(BlockKey.x(key), BlockKey.y(key), BlockKey.z(key), this.blocks[i]);
+        }
+    }
+
+    /**
+     * Accepts a changed block.
+     */
+    @FunctionalInterface
+    public interface Change {
+        /**
+         * Accept a changed block.
+         * @param baseline The block of the baseline at the position.
+         */
+        void accept(int x, int y, int z, @NotNull BlockData baseline);
+    }
+}
@@ -0,0 +1,476 @@
+package dev.prodzeus.utilities.world;
+
+import dev.prodzeus.utilities.world.util.BlockKey;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitRunnable;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Batched block mutations of a {@link Cuboid}, created through {@link Cuboid#edit(Plugin)}.<br><br>
+ * <p>
+ * Blocks are written one chunk at a time, and the work is spread across ticks, writing at most the configured number of blocks each tick.
+ * Physics are not applied unless enabled, and blocks which already match are skipped, avoiding needless lighting and neighbour updates.<br><br>
+ * <p>
+ * Every operation returns a {@link CompletableFuture} completed with the number of blocks changed.
+ * Cancelling the future stops the operation before the next tick. Blocks outside the build height of the world are ignored.
+ *
+ * @author prodzeus
+ */
+@SuppressWarnings("unused")
+public final class CuboidEditor {
+
+    /**
+     * The default number of blocks written each tick.
+     */
+    public static final int DEFAULT_BLOCKS_PER_TICK = 10_000;
+
+    private final Cuboid cuboid;
+    private final Plugin plugin;
+    private int blocksPerTick = DEFAULT_BLOCKS_PER_TICK;
+    private boolean applyPhysics = false;
+    private @Nullable Progress progress = null;
+    private boolean preloadChunks = false;
+    private int maxChunkLoads = ChunkTickets.DEFAULT_MAX_LOADS;
+
+    /**
+     * Create an editor of the given Cuboid.
+     * @param cuboid The Cuboid.
+     * @param plugin The plugin used for scheduling tasks.
+     */
+    CuboidEditor(@NotNull final Cuboid cuboid, @NotNull final Plugin plugin) {
+        this.cuboid = cuboid;
+        this.plugin = plugin;
+    }
+
+    /**
+     * Set the maximum number of blocks written each tick.
+     * Only affects operations started after this call.
+     * @param blocks The number of blocks. (Default: 10.000 blocks)
+     * @return The CuboidEditor instance.
+     */
+    public @NotNull CuboidEditor blocksPerTick(final int blocks) {
+        if (blocks <= 0) throw new IllegalArgumentException("Blocks per tick must be positive!");
+        this.blocksPerTick = blocks;
+        return this;
+    }
+
+    /**
+     * Set whether physics should be applied to written blocks, such as falling sand or updating neighbouring blocks.
+     * Only affects operations started after this call.
+     * @param apply True | False (Default: False)
+     * @return The CuboidEditor instance.
+     */
+    public @NotNull CuboidEditor applyPhysics(final boolean apply) {
+        this.applyPhysics = apply;
+        return this;
+    }
+
+    /**
+     * Set the listener notified of the progress of operations, called on the main thread after each tick of work.
+     * Only affects operations started after this call.
+     * @param progress The listener, or null to remove it.
+     * @return The CuboidEditor instance.
+     */
+    public @NotNull CuboidEditor onProgress(@Nullable final Progress progress) {
+        this.progress = progress;
+        return this;
+    }
+
+    /**
+     * Set whether the chunks written to should be loaded asynchronously before each operation,
+     * and held loaded through {@link ChunkTickets} until the operation completes.
+     * Without this, chunks which are not loaded are loaded synchronously when written to.
+     * Only affects operations started after this call.
+     * @param preload True | False (Default: False)
+     * @return The CuboidEditor instance.
+     */
+    public @NotNull CuboidEditor preloadChunks(final boolean preload) {
+        this.preloadChunks = preload;
+        return this;
+    }
+
+    /**
+     * Set the maximum number of chunk loads in flight at once, when preloading chunks.
+     * Only affects operations started after this call.
+     * @param loads The number of loads. (Default: 16 loads)
+     * @return The CuboidEditor instance.
+     */
+    public @NotNull CuboidEditor maxChunkLoads(final int loads) {
+        if (loads <= 0) throw new IllegalArgumentException("Maximum loads must be positive!");
+        this.maxChunkLoads = loads;
+        return this;
+    }
+
+    /**
+     * Get the Cuboid being edited.
+     * @return The Cuboid.
+     */
+    public @NotNull Cuboid getCuboid() {
+        return this.cuboid;
+    }
+
+    /**
+     * Fill the Cuboid with the given Material.
+     * @param material The Material.
+     * @return A future completed with the number of blocks changed.
+     */
+    public @NotNull CompletableFuture<Long> fill(@NotNull final Material material) {
+        return fill(material.createBlockData());
+    }
+
+    /**
+     * Fill the Cuboid with the given BlockData.
+     * @param data The BlockData.
+     * @return A future completed with the number of blocks changed.
+     */
+    public @NotNull CompletableFuture<Long> fill(@NotNull final BlockData data) {
+        final Material material = data.getMaterial();
+        return submit((world, x, y, z) -> world.getType(x, y, z) != material || !world.getBlockData(x, y, z).equals(data) ? data : null);
+    }
+
+    /**
+     * Replace every block of the given Material with another.
+     * @param from The Material to replace.
+     * @param to   The Material to replace with.
+     * @return A future completed with the number of blocks changed.
+     */
+    public @NotNull CompletableFuture<Long> replace(@NotNull final Material from, @NotNull final Material to) {
+        return replace(from, to.createBlockData());
+    }
+
+    /**
+     * Replace every block of the given Material with the given BlockData.
+     * @param from The Material to replace.
+     * @param to   The BlockData to replace with.
+     * @return A future completed with the number of blocks changed.
+     */
+    public @NotNull CompletableFuture<Long> replace(@NotNull final Material from, @NotNull final BlockData to) {
+        return submit((world, x, y, z) -> world.getType(x, y, z) == from ? to : null);
+    }
+
+    /**
+     * Remove every block in the Cuboid, replacing them with {@link Material#AIR}.
+     * @return A future completed with the number of blocks changed.
+     */
+    public @NotNull CompletableFuture<Long> clear() {
+        return fill(Material.AIR);
+    }
+
+    /**
+     * Copy the blocks of the Cuboid into the given Cuboid, aligned at the lower North-East corners of both.
+     * If the Cuboids differ in size, only the blocks within both are copied.<br><br>
+     * The blocks are captured into a {@link CuboidSnapshot} before anything is written, so the Cuboids may overlap.
+     * @param target The Cuboid to copy into, which may be in a different world.
+     * @return A future completed with the number of blocks changed.
+     */
+    public @NotNull CompletableFuture<Long> copyTo(@NotNull final Cuboid target) {
+        final int offsetX = (int) target.getLowerX() - (int) this.cuboid.getLowerX();
+        final int offsetY = (int) target.getLowerY() - (int) this.cuboid.getLowerY();
+        final int offsetZ = (int) target.getLowerZ() - (int) this.cuboid.getLowerZ();
+        final Cuboid destination = Cuboid.create(target.getWorld(),
+                target.getLowerX(), target.getLowerY(), target.getLowerZ(),
+                Math.min(target.getUpperX(), this.cuboid.getUpperX() + offsetX),
+                Math.min(target.getUpperY(), this.cuboid.getUpperY() + offsetY),
+                Math.min(target.getUpperZ(), this.cuboid.getUpperZ() + offsetZ));
+        final int minY = this.cuboid.getWorld().getMinHeight(), maxY = this.cuboid.getWorld().getMaxHeight() - 1;
+        return chain(async(this.cuboid).snapshot(), snapshot -> submit(destination, (world, x, y, z) -> {
+            final int sourceY = y - offsetY;
+            if (sourceY < minY || sourceY > maxY) return null;
+            final BlockData data = snapshot.getBlockData(x - offsetX, sourceY, z - offsetZ);
+            return world.getType(x, y, z) != data.getMaterial() || !world.getBlockData(x, y, z).equals(data) ? data : null;
+        }));
+    }
+
+    /**
+     * Paste the given schematic into the Cuboid, aligned at the lower North-East corner of the Cuboid.
+     * Blocks of the schematic outside the Cuboid are skipped.<br><br>
+     * The blocks are read from disk as they are written, so the schematic is never held in memory.
+     * @param schematic The schematic to paste.
+     * @return A future completed with the number of blocks changed.
+     */
+    public @NotNull CompletableFuture<Long> paste(@NotNull final CuboidSchematic schematic) {
+        final CuboidSchematic.Decoder decoder;
+        try {
+            decoder = schematic.open();
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        final int upperX = (int) this.cuboid.getUpperX(), upperY = (int) this.cuboid.getUpperY(), upperZ = (int) this.cuboid.getUpperZ();
+        final CompletableFuture<Long> future = submit(this.cuboid.getWorld(), schematic.cursor(),
+                (int) this.cuboid.getLowerX() - schematic.getOriginX(),
+                (int) this.cuboid.getLowerY() - schematic.getOriginY(),
+                (int) this.cuboid.getLowerZ() - schematic.getOriginZ(),
+                (world, x, y, z) -> {
+                    final BlockData data = decoder.next();
+                    if (x > upperX || y > upperY || z > upperZ) return null;
+                    return world.getType(x, y, z) != data.getMaterial() || !world.getBlockData(x, y, z).equals(data) ? data : null;
+                });
+        future.whenComplete((changed, error) -> decoder.close());
+        return future;
+    }
+
+    /**
+     * Restore the Cuboid to the given baseline, writing only the blocks which have changed since.
+     * The current state is captured and compared against the baseline off the main thread before anything is written.
+     * @param baseline The baseline of the Cuboid.
+     * @return A future completed with the number of blocks changed.
+     * @see AsyncCuboid#diff(CuboidBaseline)
+     */
+    public @NotNull CompletableFuture<Long> restore(@NotNull final CuboidBaseline baseline) {
+        return chain(async(this.cuboid).diff(baseline), this::restore);
+    }
+
+    /**
+     * Restore the changed blocks of the given diff to their baseline.
+     * Blocks which have since been changed back to the baseline are skipped.
+     * @param diff The diff.
+     * @return A future completed with the number of blocks changed.
+     */
+    public @NotNull CompletableFuture<Long> restore(@NotNull final CuboidDiff diff) {
+        final Cuboid area = diff.getCuboid();
+        final World world = area.getWorld();
+        return withChunks(world, (int) area.getLowerX() >> 4, (int) area.getLowerZ() >> 4,
+                (int) area.getUpperX() >> 4, (int) area.getUpperZ() >> 4, () -> new WriteTask(this.blocksPerTick, this.applyPhysics, this.progress) {
+            private int index = 0;
+
+            @Override
+            protected boolean write() {
+                final int end = Math.min(diff.size(), index + blocksPerTick);
+                for (; index < end; index++) {
+                    final long key = diff.getKey(index);
+                    final int x = BlockKey.x(key), y = BlockKey.y(key), z = BlockKey.z(key);
+                    final BlockData data = diff.getBlockData(index);
+                    if (world.getType(x, y, z) != data.getMaterial() || !world.getBlockData(x, y, z).equals(data)) set(world, x, y, z, data);
+                }
+                return index == diff.size();
+            }
+
+            @Override
+            protected long done() {
+                return index;
+            }
+
+            @Override
+            protected long total() {
+                return diff.size();
+            }
+        }.start());
+    }
+
+    /**
+     * Write the blocks of the given operation to every position of the Cuboid.
+     * @param operation The operation.
+     * @return A future completed with the number of blocks changed.
+     */
+    private @NotNull CompletableFuture<Long> submit(@NotNull final Operation operation) {
+        return submit(this.cuboid, operation);
+    }
+
+    /**
+     * Write the blocks of the given operation to every position of the given area.
+     * @param area      The area to write to.
+     * @param operation The operation.
+     * @return A future completed with the number of blocks changed.
+     */
+    private @NotNull CompletableFuture<Long> submit(@NotNull final Cuboid area, @NotNull final Operation operation) {
+        final World world = area.getWorld();
+        final BlockCursor cursor = new BlockCursor(
+                (int) area.getLowerX(), Math.max((int) area.getLowerY(), world.getMinHeight()), (int) area.getLowerZ(),
+                (int) area.getUpperX(), Math.min((int) area.getUpperY(), world.getMaxHeight() - 1), (int) area.getUpperZ());
+        return submit(world, cursor, 0, 0, 0, operation);
+    }
+
+    /**
+     * Write the blocks of the given operation to every position of the cursor, translated by the given offset.
+     * The operation is called for every position in the order of the cursor, even where nothing can be written.
+     * @param world     The world to write to.
+     * @param cursor    The cursor of the positions.
+     * @param offsetX   The offset along the X-axis.
+     * @param offsetY   The offset along the Y-axis.
+     * @param offsetZ   The offset along the Z-axis.
+     * @param operation The operation, which is given the translated positions.
+     * @return A future completed with the number of blocks changed.
+     */
+    @NotNull CompletableFuture<Long> submit(@NotNull final World world, @NotNull final BlockCursor cursor,
+                                            final int offsetX, final int offsetY, final int offsetZ, @NotNull final Operation operation) {
+        final int minY = world.getMinHeight(), maxY = world.getMaxHeight() - 1;
+        return withChunks(world, (cursor.minX() + offsetX) >> 4, (cursor.minZ() + offsetZ) >> 4,
+                (cursor.maxX() + offsetX) >> 4, (cursor.maxZ() + offsetZ) >> 4, () -> new WriteTask(this.blocksPerTick, this.applyPhysics, this.progress) {
+            @Override
+            protected boolean write() {
+                for (int i = 0; i < blocksPerTick; i++) {
+                    if (!cursor.next()) return true;
+                    final int x = cursor.x() + offsetX, y = cursor.y() + offsetY, z = cursor.z() + offsetZ;
+                    final BlockData data = operation.apply(world, x, y, z);
+                    if (data != null && y >= minY && y <= maxY) set(world, x, y, z, data);
+                }
+                return false;
+            }
+
+            @Override
+            protected long done() {
+                return cursor.visited();
+            }
+
+            @Override
+            protected long total() {
+                return cursor.total();
+            }
+        }.start());
+    }
+
+    /**
+     * Run the given operation, holding the chunks within the given chunk bounds loaded while it runs if chunks are preloaded.
+     * @param operation The operation.
+     * @return A future completed with the result of the operation.
+     */
+    private @NotNull CompletableFuture<Long> withChunks(@NotNull final World world, final int minChunkX, final int minChunkZ,
+                                                       final int maxChunkX, final int maxChunkZ,
+                                                       @NotNull final Supplier<CompletableFuture<Long>> operation) {
+        if (!this.preloadChunks) return operation.get();
+        return ChunkTickets.holding(this.plugin, world, minChunkX, minChunkZ, maxChunkX, maxChunkZ, this.maxChunkLoads, operation);
+    }
+
+    /**
+     * Run the given operation on the main thread once the given future completes, which may complete off the main thread.
+     * Completing or cancelling the returned future cancels both the given future and the operation, so neither keeps running.
+     * @param first     The future to wait for.
+     * @param operation The operation, given the result of the future.
+     * @return A future completed with the result of the operation.
+     */
+    private <T> @NotNull CompletableFuture<Long> chain(@NotNull final CompletableFuture<T> first,
+                                                       @NotNull final Function<T, CompletableFuture<Long>> operation) {
+        final CompletableFuture<Long> result = new CompletableFuture<>();
+        first.whenComplete((value, error) -> {
+            if (error != null) {
+                result.completeExceptionally(error);
+                return;
+            }
+            // Operations acquire chunk tickets and schedule tasks, which must happen on the main thread.
+            ChunkTickets.onMainThread(this.plugin, () -> {
+                if (result.isDone()) return;
+                final CompletableFuture<Long> running;
+                try {
+                    running = operation.apply(value);
+                } catch (Throwable t) {
+                    result.completeExceptionally(t);
+                    return;
+                }
+                running.whenComplete((changed, failure) -> {
+                    if (failure != null) result.completeExceptionally(failure);
+                    else result.complete(changed);
+                });
+                result.whenComplete((changed, failure) -> running.cancel(false));
+            });
+        });
+        result.whenComplete((changed, failure) -> first.cancel(false));
+        return result;
+    }
+
+    /**
+     * Get asynchronous access to the given Cuboid, sharing the chunk preloading settings of this editor.
+     */
+    private @NotNull AsyncCuboid async(@NotNull final Cuboid cuboid) {
+        return cuboid.async(this.plugin).preloadChunks(this.preloadChunks).maxChunkLoads(this.maxChunkLoads);
+    }
+
+    /**
+     * Decides which block, if any, should be written at a position.
+     */
+    @FunctionalInterface
+    interface Operation {
+        /**
+         * Get the block to write at the given position.
+         * @return The BlockData to write, or null if the block should be left as is.
+         */
+        @Nullable BlockData apply(@NotNull World world, int x, int y, int z);
+    }
+
+    /**
+     * Listens for the progress of an operation.
+     */
+    @FunctionalInterface
+    public interface Progress {
+        /**
+         * Called on the main thread after each tick of work.
+         * @param done  The number of positions processed so far.
+         * @param total The total number of positions.
+         */
+        void update(long done, long total);
+    }
+
+    /**
+     * A task writing a batch of blocks every tick, until the work is done or the future is completed elsewhere.
+     */
+    private abstract class WriteTask extends BukkitRunnable {
+
+        protected final CompletableFuture<Long> future = new CompletableFuture<>();
+        protected final int blocksPerTick;
+        private final boolean applyPhysics;
+        private final @Nullable Progress progress;
+        private long changed = 0;
+
+        private WriteTask(final int blocksPerTick, final boolean applyPhysics, @Nullable final Progress progress) {
+            this.blocksPerTick = blocksPerTick;
+            this.applyPhysics = applyPhysics;
+            this.progress = progress;
+        }
+
+        /**
+         * Write the next batch of blocks.
+         * @return True if every block has been written.
+         */
+        protected abstract boolean write();
+
+        protected abstract long done();
+
+        protected abstract long total();
+
+        /**
+         * Write a single block.
+         */
+        protected void set(@NotNull final World world, final int x, final int y, final int z, @NotNull final BlockData data) {
+            final Block block = world.getBlockAt(x, y, z);
+            block.setBlockData(data, applyPhysics);
+            ++changed;
+        }
+
+        @Override
+        public void run() {
+            if (future.isDone()) {
+                cancel();
+                return;
+            }
+            try {
+                final boolean finished = write();
+                if (progress != null) progress.update(done(), total());
+                if (finished) {
+                    cancel();
+                    future.complete(changed);
+                }
+            } catch (Throwable t) {
+                cancel();
+                future.completeExceptionally(t);
+            }
+        }
+
+        /**
+         * Schedule the task to run every tick.
+         * @return The future of the task.
+         */
+        protected CompletableFuture<Long> start() {
+            runTaskTimer(plugin, 0L, 1L);
+            return future;
+        }
+    }
+}
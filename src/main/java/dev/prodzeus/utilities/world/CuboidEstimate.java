@@ -0,0 +1,268 @@
+package dev.prodzeus.utilities.world;
+
+import org.bukkit.Material;
+import org.bukkit.block.Biome;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/**
+ * Estimated statistics of a {@link Cuboid}, computed by a {@link CuboidSampler} from a sample of its blocks.<br><br>
+ * <p>
+ * Every estimate is reported as {@link Bounds}: the estimated value along with the bounds of its confidence interval,
+ * at the confidence level the sampler was configured with.
+ * Fractions are estimated as proportions of the sampled blocks, bounded by Wilson score intervals, which stay wide for fractions near 0 or 1
+ * where the sample variance vanishes. The average light level is estimated as the ratio of the light of the sampled empty blocks
+ * to their number. Estimates of an exact pass have bounds equal to their value.
+ *
+ * @author prodzeus
+ */
+@SuppressWarnings("unused")
+public final class CuboidEstimate {
+
+    private static final Material[] MATERIALS = Material.values();
+
+    private final long blocks;
+    private final int samples;
+    private final int budget;
+    private final boolean exact;
+    private final double confidence;
+    private final double z;
+    private final double[] materials, materialVariances;
+    private final Map<Biome, double[]> biomes;
+    private final double air, airVariance, solid, solidVariance;
+    private final Bounds light;
+
+    /**
+     * Create an estimate from the given estimated fractions and the variances of their estimators.
+     * The biomes are mapped to their estimated fraction and its variance.
+     */
+    CuboidEstimate(final long blocks, final int samples, final int budget, final boolean exact, final double confidence, final double z,
+                   final double @NotNull [] materials, final double @NotNull [] materialVariances, @NotNull final Map<Biome, double[]> biomes,
+                   final double air, final double airVariance, final double solid, final double solidVariance, @NotNull final Bounds light) {
+        this.blocks = blocks;
+        this.samples = samples;
+        this.budget = budget;
+        this.exact = exact;
+        this.confidence = confidence;
+        this.z = z;
+        this.materials = materials;
+        this.materialVariances = materialVariances;
+        this.biomes = biomes;
+        this.air = air;
+        this.airVariance = airVariance;
+        this.solid = solid;
+        this.solidVariance = solidVariance;
+        this.light = light;
+    }
+
+    /**
+     * Get the total number of blocks of the Cuboid within the height of its world, from which the sample was drawn.
+     * @return The number of blocks.
+     */
+    public long getBlockCount() {
+        return this.blocks;
+    }
+
+    /**
+     * Get the number of blocks sampled. Equals the number of blocks if the estimate is exact.
+     * @return The number of samples.
+     */
+    public int getSampleCount() {
+        return this.samples;
+    }
+
+    /**
+     * Get the sample budget the sampler was configured with.
+     * @return The budget.
+     */
+    public int getBudget() {
+        return this.budget;
+    }
+
+    /**
+     * Check if the estimate was computed from every block, rather than a sample.
+     * @return True | False
+     */
+    public boolean isExact() {
+        return this.exact;
+    }
+
+    /**
+     * Get the confidence level of the bounds, between 0 and 1.
+     * @return The confidence level.
+     */
+    public double getConfidence() {
+        return this.confidence;
+    }
+
+    /**
+     * Get the average light level of all empty blocks.
+     * If no empty block was sampled, the value is 0 and the bounds span every light level.
+     * @return The average light level.
+     * @see Cuboid#getAverageLightLevel()
+     */
+    public @NotNull Bounds getAverageLightLevel() {
+        return this.light;
+    }
+
+    /**
+     * Get the fraction of air blocks, of any kind.
+     * @return The fraction, between 0 and 1.
+     */
+    public @NotNull Bounds getAirFraction() {
+        return fraction(this.air, this.airVariance);
+    }
+
+    /**
+     * Get the fraction of solid blocks.
+     * @return The fraction, between 0 and 1.
+     * @see Material#isSolid()
+     */
+    public @NotNull Bounds getSolidFraction() {
+        return fraction(this.solid, this.solidVariance);
+    }
+
+    /**
+     * Get the fraction of blocks of the given Material.
+     * @param material The Material.
+     * @return The fraction, between 0 and 1.
+     */
+    public @NotNull Bounds getFraction(@NotNull final Material material) {
+        return fraction(this.materials[material.ordinal()], this.materialVariances[material.ordinal()]);
+    }
+
+    /**
+     * Get the number of blocks of the given Material, scaled from its fraction.
+     * @param material The Material.
+     * @return The number of blocks.
+     */
+    public @NotNull Bounds getCount(@NotNull final Material material) {
+        return getFraction(material).scale(this.blocks);
+    }
+
+    /**
+     * Get the fraction of blocks of the given Biome.
+     * @param biome The Biome.
+     * @return The fraction, between 0 and 1, which is 0 if the sampler did not include biomes.
+     */
+    public @NotNull Bounds getBiomeFraction(@NotNull final Biome biome) {
+        final double[] estimate = this.biomes.get(biome);
+        if (estimate == null) return this.biomes.isEmpty() ? new Bounds(0, 0, 0) : fraction(0, 0);
+        return fraction(estimate[0], estimate[1]);
+    }
+
+    /**
+     * Get the estimated fraction of every Material found.
+     * @return An unmodifiable map of the fractions.
+     */
+    public @NotNull Map<Material, Double> getMaterials() {
+        final EnumMap<Material, Double> fractions = new EnumMap<>(Material.class);
+        for (int i = 0; i < this.materials.length; i++) {
+            if (this.materials[i] > 0) fractions.put(MATERIALS[i], this.materials[i]);
+        }
+        return Collections.unmodifiableMap(fractions);
+    }
+
+    /**
+     * Get the estimated fraction of every Biome found.
+     * @return An unmodifiable map of the fractions, which is empty if the sampler did not include biomes.
+     */
+    public @NotNull Map<Biome, Double> getBiomes() {
+        final Map<Biome, Double> fractions = new HashMap<>();
+        this.biomes.forEach((biome, estimate) -> fractions.put(biome, estimate[0]));
+        return Collections.unmodifiableMap(fractions);
+    }
+
+    /**
+     * Bound the given fraction, using the sample size of a uniform sample with the same variance, or the number of samples if there is none.
+     */
+    private @NotNull Bounds fraction(final double value, final double variance) {
+        if (this.exact) return new Bounds(value, value, value);
+        return wilson(value, variance > 0 ? value * (1 - value) / variance : this.samples, this.z);
+    }
+
+    /**
+     * Get the Wilson score interval of the given proportion, observed in the given number of samples.
+     * @param value   The observed proportion.
+     * @param samples The number of samples.
+     * @param z       The critical value of the confidence level.
+     * @return The proportion, along with the bounds of its interval.
+     */
+    static @NotNull Bounds wilson(final double value, final double samples, final double z) {
+        final double weight = z * z / samples;
+        final double center = (value + weight / 2) / (1 + weight);
+        final double margin = z / (1 + weight) * Math.sqrt(value * (1 - value) / samples + weight / (4 * samples));
+        return new Bounds(value, Math.max(0, center - margin), Math.min(1, center + margin));
+    }
+
+    @Override
+    public String toString() {
+        return "CuboidEstimate{samples=" + this.samples + "/" + this.blocks + ", exact=" + this.exact
+                + ", light=" + this.light + ", air=" + getAirFraction() + ", solid=" + getSolidFraction() + "}";
+    }
+
+    /**
+     * An estimated value, along with the bounds of its confidence interval.
+     */
+    public static final class Bounds {
+
+        private final double value, lower, upper;
+
+        Bounds(final double value, final double lower, final double upper) {
+            this.value = value;
+            this.lower = lower;
+            this.upper = upper;
+        }
+
+        /**
+         * Get the estimated value.
+         * @return The value.
+         */
+        public double getValue() {
+            return this.value;
+        }
+
+        /**
+         * Get the lower bound of the confidence interval.
+         * @return The lower bound.
+         */
+        public double getLower() {
+            return this.lower;
+        }
+
+        /**
+         * Get the upper bound of the confidence interval.
+         * @return The upper bound.
+         */
+        public double getUpper() {
+            return this.upper;
+        }
+
+        /**
+         * Get the largest distance from the value to either bound.
+         * @return The margin of error.
+         */
+        public double getMargin() {
+            return Math.max(this.value - this.lower, this.upper - this.value);
+        }
+
+        /**
+         * Check if the given value is within the bounds.
+         * @param value The value.
+         * @return True | False
+         */
+        public boolean contains(final double value) {
+            return value >= this.lower && value <= this.upper;
+        }
+
+        private @NotNull Bounds scale(final double factor) {
+            return new Bounds(this.value * factor, this.lower * factor, this.upper * factor);
+        }
+
+        @Override
+        public String toString() {
+            return "%.4f [%.4f, %.4f]".formatted(this.value, this.lower, this.upper);
+        }
+    }
+}
@@ -0,0 +1,474 @@
+package dev.prodzeus.utilities.world;
+
+import org.bukkit.Location;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * A spatial index of {@link Cuboid}s, answering which regions contain, intersect or are nearest to a position
+ * without testing every region.<br><br>
+ * <p>
+ * Each world is divided into columns of {@code 16x16} blocks, matching the chunks of the world, and every Cuboid is
+ * placed in the bucket of each column it intersects. A point query therefore only tests the regions of a single bucket.
+ * Cuboids spanning more than {@link CuboidIndex#MAX_COLUMNS} columns are kept in a separate list,
+ * which is tested on every query instead of filling thousands of buckets.<br><br>
+ * <p>
+ * Cuboids are indexed by identity, and must not be modified while indexed. The index is not thread-safe.
+ *
+ * @author prodzeus
+ */
+@SuppressWarnings("unused")
+public final class CuboidIndex {
+
+    /**
+     * The maximum number of columns a Cuboid may span before it is kept in the list of oversized regions.
+     */
+    public static final int MAX_COLUMNS = 4096;
+
+    private final Map<String, WorldIndex> worlds = new HashMap<>();
+    private final Set<Cuboid> regions = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /**
+     * Add a Cuboid to the index.
+     * @param cuboid The Cuboid to add.
+     * @return True if the Cuboid was added, or false if it was already indexed.
+     */
+    public boolean add(@NotNull final Cuboid cuboid) {
+        if (!regions.add(cuboid)) return false;
+        worlds.computeIfAbsent(cuboid.getWorldName(), name -> new WorldIndex()).add(cuboid);
+        return true;
+    }
+
+    /**
+     * Remove a Cuboid from the index.
+     * @param cuboid The Cuboid to remove.
+     * @return True if the Cuboid was removed, or false if it was not indexed.
+     */
+    public boolean remove(@NotNull final Cuboid cuboid) {
+        if (!regions.remove(cuboid)) return false;
+        final WorldIndex index = worlds.get(cuboid.getWorldName());
+        index.remove(cuboid);
+        if (index.isEmpty()) worlds.remove(cuboid.getWorldName());
+        return true;
+    }
+
+    /**
+     * Check if the given Cuboid is indexed.
+     * @param cuboid The Cuboid.
+     * @return True | False
+     */
+    public boolean contains(@NotNull final Cuboid cuboid) {
+        return regions.contains(cuboid);
+    }
+
+    /**
+     * Get the number of indexed Cuboids.
+     * @return The number of Cuboids.
+     */
+    public int size() {
+        return regions.size();
+    }
+
+    /**
+     * Remove every Cuboid from the index.
+     */
+    public void clear() {
+        regions.clear();
+        worlds.clear();
+    }
+
+    /**
+     * Get an unmodifiable view of every indexed Cuboid.
+     * @return The indexed Cuboids.
+     */
+    public @NotNull Set<Cuboid> getRegions() {
+        return Collections.unmodifiableSet(regions);
+    }
+
+    /**
+     * Get every indexed Cuboid containing the given location.
+     * @param location The location.
+     * @return A list of the Cuboids containing the location.
+     */
+    public @NotNull List<Cuboid> getRegionsAt(@NotNull final Location location) {
+        return getRegionsAt(location.getWorld().getName(), location.getBlockX(), location.getBlockY(), location.getBlockZ());
+    }
+
+    /**
+     * Get every indexed Cuboid containing the given block position.
+     * @param worldName The name of the world.
+     * @param x         The X coordinate.
+     * @param y         The Y coordinate.
+     * @param z         The Z coordinate.
+     * @return A list of the Cuboids containing the position.
+     */
+    public @NotNull List<Cuboid> getRegionsAt(@NotNull final String worldName, final int x, final int y, final int z) {
+        final WorldIndex index = worlds.get(worldName);
+        if (index == null) return List.of();
+        final List<Cuboid> result = new ArrayList<>();
+        for (final Cuboid cuboid : index.oversized) {
+            if (cuboid.contains(x, y, z)) result.add(cuboid);
+        }
+        final List<Cuboid> bucket = index.buckets.get(key(x >> 4, z >> 4));
+        if (bucket != null) {
+            for (final Cuboid cuboid : bucket) {
+                if (cuboid.contains(x, y, z)) result.add(cuboid);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Check if any indexed Cuboid may intersect the given chunk column.
+     * If this returns false, no position within the chunk is contained by any indexed Cuboid.
+     * @param worldName The name of the world.
+     * @param chunkX    The X coordinate of the chunk.
+     * @param chunkZ    The Z coordinate of the chunk.
+     * @return True | False
+     */
+    public boolean hasRegionsInChunk(@NotNull final String worldName, final int chunkX, final int chunkZ) {
+        final WorldIndex index = worlds.get(worldName);
+        return index != null && (!index.oversized.isEmpty() || index.buckets.containsKey(key(chunkX, chunkZ)));
+    }
+
+    /**
+     * Check if any indexed Cuboid contains the given location.
+     * @param location The location.
+     * @return True | False
+     */
+    public boolean isInsideAny(@NotNull final Location location) {
+        return isInsideAny(location.getWorld().getName(), location.getBlockX(), location.getBlockY(), location.getBlockZ());
+    }
+
+    /**
+     * Check if any indexed Cuboid contains the given block position.
+     * @param worldName The name of the world.
+     * @param x         The X coordinate.
+     * @param y         The Y coordinate.
+     * @param z         The Z coordinate.
+     * @return True | False
+     */
+    public boolean isInsideAny(@NotNull final String worldName, final int x, final int y, final int z) {
+        final WorldIndex index = worlds.get(worldName);
+        if (index == null) return false;
+        for (final Cuboid cuboid : index.oversized) {
+            if (cuboid.contains(x, y, z)) return true;
+        }
+        final List<Cuboid> bucket = index.buckets.get(key(x >> 4, z >> 4));
+        if (bucket == null) return false;
+        for (final Cuboid cuboid : bucket) {
+            if (cuboid.contains(x, y, z)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Get every indexed Cuboid intersecting the given Cuboid.
+     * @param area The Cuboid to intersect with. It does not need to be indexed.
+     * @return A list of the intersecting Cuboids.
+     */
+    public @NotNull List<Cuboid> getIntersecting(@NotNull final Cuboid area) {
+        final WorldIndex index = worlds.get(area.getWorldName());
+        if (index == null) return List.of();
+        final Set<Cuboid> result = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (final Cuboid cuboid : index.oversized) {
+            if (intersects(cuboid, area)) result.add(cuboid);
+        }
+        final int cx1 = (int) area.getLowerX() >> 4, cx2 = (int) area.getUpperX() >> 4;
+        final int cz1 = (int) area.getLowerZ() >> 4, cz2 = (int) area.getUpperZ() >> 4;
+        if ((long) (cx2 - cx1 + 1) * (cz2 - cz1 + 1) > index.buckets.size()) {
+            for (final List<Cuboid> bucket : index.buckets.values()) {
+                for (final Cuboid cuboid : bucket) {
+                    if (intersects(cuboid, area)) result.add(cuboid);
+                }
+            }
+        } else {
+            for (int cx = cx1; cx <= cx2; cx++) {
+                for (int cz = cz1; cz <= cz2; cz++) {
+                    final List<Cuboid> bucket = index.buckets.get(key(cx, cz));
+                    if (bucket == null) continue;
+                    for (final Cuboid cuboid : bucket) {
+                        if (intersects(cuboid, area)) result.add(cuboid);
+                    }
+                }
+            }
+        }
+        return new ArrayList<>(result);
+    }
+
+    /**
+     * Get the indexed Cuboid nearest to the given location. A Cuboid containing the location has a distance of 0.
+     * @param location The location.
+     * @return The nearest Cuboid, or null if no Cuboid is indexed in the world of the location.
+     */
+    public @Nullable Cuboid getNearest(@NotNull final Location location) {
+        return getNearest(location.getWorld().getName(), location.getX(), location.getY(), location.getZ());
+    }
+
+    /**
+     * Get the indexed Cuboid nearest to the given point. A Cuboid containing the point has a distance of 0.
+     * @param worldName The name of the world.
+     * @param x         The X coordinate.
+     * @param y         The Y coordinate.
+     * @param z         The Z coordinate.
+     * @return The nearest Cuboid, or null if no Cuboid is indexed in the given world.
+     */
+    public @Nullable Cuboid getNearest(@NotNull final String worldName, final double x, final double y, final double z) {
+        final WorldIndex index = worlds.get(worldName);
+        if (index == null) return null;
+        Cuboid nearest = null;
+        double best = Double.MAX_VALUE;
+        for (final Cuboid cuboid : index.oversized) {
+            final double distance = cuboid.squaredDistanceToSurface(x, y, z);
+            if (distance < best) {
+                best = distance;
+                nearest = cuboid;
+            }
+        }
+        if (index.buckets.isEmpty()) return nearest;
+
+        final int px = (int) Math.floor(x) >> 4, pz = (int) Math.floor(z) >> 4;
+        final int maxRing = Math.max(Math.max(px - index.minCX, index.maxCX - px), Math.max(pz - index.minCZ, index.maxCZ - pz));
+        long visited = 0;
+        for (int ring = 0; ring <= maxRing; ring++) {
+            // Every column of this ring is at least (ring - 1) columns away from the point.
+            final double reach = Math.max(0, ring - 1) * 16.0;
+            if (reach * reach > best) return nearest;
+            // Searching rings far away from every region costs more than testing every region once,
+            // counting each column looked up as about four regions tested.
+            if (visited * 4 > index.bucketed.size()) {
+                for (final Cuboid cuboid : index.bucketed) {
+                    final double distance = cuboid.squaredDistanceToSurface(x, y, z);
+                    if (distance < best) {
+                        best = distance;
+                        nearest = cuboid;
+                    }
+                }
+                return nearest;
+            }
+            for (int cx = px - ring; cx <= px + ring; cx++) {
+                final boolean edge = cx == px - ring || cx == px + ring;
+                for (int cz = pz - ring; cz <= pz + ring; cz += edge ? 1 : 2 * ring) {
+                    ++visited;
+                    final List<Cuboid> bucket = index.buckets.get(key(cx, cz));
+                    if (bucket == null) continue;
+                    for (final Cuboid cuboid : bucket) {
+                        final double distance = cuboid.squaredDistanceToSurface(x, y, z);
+                        if (distance < best) {
+                            best = distance;
+                            nearest = cuboid;
+                        }
+                    }
+                }
+            }
+        }
+        // Every column holding a bucket lies within the last ring.
+        return nearest;
+    }
+
+    /**
+     * Get the given number of indexed Cuboids nearest to the given point, nearest first. A Cuboid containing the point has a distance of 0.
+     * Like {@link #getNearest(String, double, double, double)}, the columns are searched one ring at a time outward from the point,
+     * stopping once no column left can hold a Cuboid nearer than the farthest one found.
+     * @param worldName The name of the world.
+     * @param x         The X coordinate.
+     * @param y         The Y coordinate.
+     * @param z         The Z coordinate.
+     * @param count     The maximum number of Cuboids.
+     * @return A list of at most the given number of Cuboids, ordered by distance.
+     */
+    public @NotNull List<Cuboid> getNearest(@NotNull final String worldName, final double x, final double y, final double z, final int count) {
+        if (count <= 0) throw new IllegalArgumentException("Count must be positive!");
+        final WorldIndex index = worlds.get(worldName);
+        if (index == null) return List.of();
+        final Nearest nearest = new Nearest(count);
+        for (final Cuboid cuboid : index.oversized) nearest.offer(cuboid, cuboid.squaredDistanceToSurface(x, y, z));
+        if (index.buckets.isEmpty()) return nearest.toList();
+
+        final Set<Cuboid> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        final int px = (int) Math.floor(x) >> 4, pz = (int) Math.floor(z) >> 4;
+        final int maxRing = Math.max(Math.max(px - index.minCX, index.maxCX - px), Math.max(pz - index.minCZ, index.maxCZ - pz));
+        long visited = 0;
+        for (int ring = 0; ring <= maxRing; ring++) {
+            final double reach = Math.max(0, ring - 1) * 16.0;
+            if (reach * reach > nearest.worst()) return nearest.toList();
+            if (visited * 4 > index.bucketed.size()) {
+                for (final Cuboid cuboid : index.bucketed) {
+                    if (seen.add(cuboid)) nearest.offer(cuboid, cuboid.squaredDistanceToSurface(x, y, z));
+                }
+                return nearest.toList();
+            }
+            for (int cx = px - ring; cx <= px + ring; cx++) {
+                final boolean edge = cx == px - ring || cx == px + ring;
+                for (int cz = pz - ring; cz <= pz + ring; cz += edge ? 1 : 2 * ring) {
+                    ++visited;
+                    final List<Cuboid> bucket = index.buckets.get(key(cx, cz));
+                    if (bucket == null) continue;
+                    for (final Cuboid cuboid : bucket) {
+                        if (seen.add(cuboid)) nearest.offer(cuboid, cuboid.squaredDistanceToSurface(x, y, z));
+                    }
+                }
+            }
+        }
+        return nearest.toList();
+    }
+
+    /**
+     * Get every indexed Cuboid within the given distance of the given point, in no particular order.
+     * Only the columns within range of the point are searched.
+     * @param worldName The name of the world.
+     * @param x         The X coordinate.
+     * @param y         The Y coordinate.
+     * @param z         The Z coordinate.
+     * @param range     The maximum distance to a Cuboid.
+     * @return A list of the Cuboids within range.
+     */
+    public @NotNull List<Cuboid> getInRange(@NotNull final String worldName, final double x, final double y, final double z, final double range) {
+        final WorldIndex index = worlds.get(worldName);
+        if (index == null) return List.of();
+        final double rangeSquared = range * range;
+        final List<Cuboid> result = new ArrayList<>();
+        for (final Cuboid cuboid : index.oversized) {
+            if (cuboid.squaredDistanceToSurface(x, y, z) <= rangeSquared) result.add(cuboid);
+        }
+        final int cx1 = (int) Math.floor(x - range) >> 4, cx2 = (int) Math.floor(x + range) >> 4;
+        final int cz1 = (int) Math.floor(z - range) >> 4, cz2 = (int) Math.floor(z + range) >> 4;
+        // Looking up a column costs about as much as testing four regions, so wide ranges test every region once instead.
+        if ((long) (cx2 - cx1 + 1) * (cz2 - cz1 + 1) * 4 > index.bucketed.size()) {
+            for (final Cuboid cuboid : index.bucketed) {
+                if (cuboid.squaredDistanceToSurface(x, y, z) <= rangeSquared) result.add(cuboid);
+            }
+        } else {
+            final Set<Cuboid> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (int cx = cx1; cx <= cx2; cx++) {
+                for (int cz = cz1; cz <= cz2; cz++) {
+                    final List<Cuboid> bucket = index.buckets.get(key(cx, cz));
+                    if (bucket == null) continue;
+                    for (final Cuboid cuboid : bucket) {
+                        if (seen.add(cuboid) && cuboid.squaredDistanceToSurface(x, y, z) <= rangeSquared) result.add(cuboid);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Check if two Cuboids overlap.
+     */
+    private static boolean intersects(@NotNull final Cuboid a, @NotNull final Cuboid b) {
+        return a.getLowerX() <= b.getUpperX() && a.getUpperX() >= b.getLowerX()
+                && a.getLowerY() <= b.getUpperY() && a.getUpperY() >= b.getLowerY()
+                && a.getLowerZ() <= b.getUpperZ() && a.getUpperZ() >= b.getLowerZ();
+    }
+
+    /**
+     * Pack the coordinates of a column into a single key.
+     * The packed coordinates are multiplied by an odd constant, which keeps every key distinct, since {@link Long#hashCode()}
+     * of the packed coordinates alone is {@code cx ^ cz}, which puts whole diagonals of columns in the same bin of the map.
+     */
+    private static long key(final int cx, final int cz) {
+        return (((long) cx << 32) | (cz & 0xffffffffL)) * 0x9E3779B97F4A7C15L;
+    }
+
+    /**
+     * The nearest Cuboids found so far, kept sorted by distance in arrays of a fixed capacity.
+     */
+    private static final class Nearest {
+
+        private final int capacity;
+        private Cuboid[] cuboids;
+        private double[] distances;
+        private int size = 0;
+
+        private Nearest(final int capacity) {
+            this.capacity = capacity;
+            this.cuboids = new Cuboid[Math.min(capacity, 16)];
+            this.distances = new double[this.cuboids.length];
+        }
+
+        /**
+         * Get the distance a Cuboid must be nearer than to be kept.
+         */
+        private double worst() {
+            return this.size < this.capacity ? Double.POSITIVE_INFINITY : this.distances[this.size - 1];
+        }
+
+        private void offer(@NotNull final Cuboid cuboid, final double distance) {
+            if (distance >= worst()) return;
+            if (this.size < this.capacity) {
+                if (this.size == this.cuboids.length) {
+                    final int length = (int) Math.min(this.capacity, this.cuboids.length * 2L);
+                    this.cuboids = Arrays.copyOf(this.cuboids, length);
+                    this.distances = Arrays.copyOf(this.distances, length);
+                }
+                ++this.size;
+            }
+            int i = this.size - 1;
+            for (; i > 0 && this.distances[i - 1] > distance; i--) {
+                this.cuboids[i] = this.cuboids[i - 1];
+                this.distances[i] = this.distances[i - 1];
+            }
+            this.cuboids[i] = cuboid;
+            this.distances[i] = distance;
+        }
+
+        private @NotNull List<Cuboid> toList() {
+            return new ArrayList<>(Arrays.asList(this.cuboids).subList(0, this.size));
+        }
+    }
+
+    /**
+     * The buckets of a single world.
+     */
+    private static final class WorldIndex {
+
+        private final Map<Long, List<Cuboid>> buckets = new HashMap<>();
+        private final List<Cuboid> oversized = new ArrayList<>();
+        // Every Cuboid held by the buckets once, for searches which cost less by testing every region.
+        private final List<Cuboid> bucketed = new ArrayList<>();
+        private int minCX = Integer.MAX_VALUE, minCZ = Integer.MAX_VALUE;
+        private int maxCX = Integer.MIN_VALUE, maxCZ = Integer.MIN_VALUE;
+
+        private void add(@NotNull final Cuboid cuboid) {
+            final int cx1 = (int) cuboid.getLowerX() >> 4, cx2 = (int) cuboid.getUpperX() >> 4;
+            final int cz1 = (int) cuboid.getLowerZ() >> 4, cz2 = (int) cuboid.getUpperZ() >> 4;
+            if ((long) (cx2 - cx1 + 1) * (cz2 - cz1 + 1) > MAX_COLUMNS) {
+                oversized.add(cuboid);
+                return;
+            }
+            bucketed.add(cuboid);
+            for (int cx = cx1; cx <= cx2; cx++) {
+                for (int cz = cz1; cz <= cz2; cz++) {
+                    buckets.computeIfAbsent(key(cx, cz), key -> new ArrayList<>(2)).add(cuboid);
+                }
+            }
+            minCX = Math.min(minCX, cx1);
+            minCZ = Math.min(minCZ, cz1);
+            maxCX = Math.max(maxCX, cx2);
+            maxCZ = Math.max(maxCZ, cz2);
+        }
+
+        private void remove(@NotNull final Cuboid cuboid) {
+            if (oversized.remove(cuboid)) return;
+            bucketed.removeIf(other -> other == cuboid);
+            final int cx1 = (int) cuboid.getLowerX() >> 4, cx2 = (int) cuboid.getUpperX() >> 4;
+            final int cz1 = (int) cuboid.getLowerZ() >> 4, cz2 = (int) cuboid.getUpperZ() >> 4;
+            for (int cx = cx1; cx <= cx2; cx++) {
+                for (int cz = cz1; cz <= cz2; cz++) {
+                    final long key = key(cx, cz);
+                    final List<Cuboid> bucket = buckets.get(key);
+                    if (bucket == null) continue;
+                    bucket.removeIf(other -> other == cuboid);
+                    if (bucket.isEmpty()) buckets.remove(key);
+                }
+            }
+        }
+
+        private boolean isEmpty() {
+            return buckets.isEmpty() && oversized.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,729 @@
+package dev.prodzeus.utilities.world;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Biome;
+import org.bukkit.block.Block;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Estimates the statistics of a {@link Cuboid} from a random sample of its blocks, rather than visiting every block.<br><br>
+ * <p>
+ * The cost of an estimate depends on the sample budget rather than the volume of the Cuboid,
+ * and every estimate reports the bounds of its confidence interval, see {@link CuboidEstimate}.
+ * Blocks are sampled with replacement, using one of the {@link Mode}s:
+ * <ul>
+ *     <li>{@link Mode#UNIFORM} samples the whole budget uniformly across the Cuboid.</li>
+ *     <li>{@link Mode#STRATIFIED} samples every chunk of the Cuboid, in proportion to its share of the volume,
+ *     which narrows the bounds of regions whose chunks differ from each other.</li>
+ *     <li>{@link Mode#ADAPTIVE} samples uniformly in rounds, and stops as soon as the estimates are within the target error,
+ *     or the budget is spent.</li>
+ * </ul>
+ * If exact statistics are requested, or the budget covers every block, every block is visited through {@link CuboidStats} instead.<br><br>
+ * <p>
+ * The samples of every round are grouped by chunk, so each chunk is accessed once per round, and only the sampled blocks are read.
+ * A sampler of a Cuboid reads loaded chunks on the main thread through {@link #estimate()},
+ * or loads the sampled chunks asynchronously through {@link #estimateAsync(Plugin)}.
+ * A sampler of a {@link CuboidSnapshot} may be used from any thread.
+ *
+ * @author prodzeus
+ */
+@SuppressWarnings("unused")
+public final class CuboidSampler {
+
+    /**
+     * The default number of blocks sampled.
+     */
+    public static final int DEFAULT_BUDGET = 16_384;
+    /**
+     * The default confidence level of the bounds.
+     */
+    public static final double DEFAULT_CONFIDENCE = 0.95;
+    /**
+     * The default target error of {@link Mode#ADAPTIVE} sampling.
+     */
+    public static final double DEFAULT_TARGET_ERROR = 0.01;
+
+    private static final Material[] MATERIALS = Material.values();
+    private static final int MIN_ROUND = 256;
+    private static final int MIN_EMPTY = 32;
+    private static final int MAX_LIGHT_LEVEL = 15;
+
+    private final Cuboid cuboid;
+    private final World world;
+    private final @Nullable CuboidSnapshot snapshot;
+    private Mode mode = Mode.ADAPTIVE;
+    private int budget = DEFAULT_BUDGET;
+    private double confidence = DEFAULT_CONFIDENCE;
+    private double targetError = DEFAULT_TARGET_ERROR;
+    private boolean exact = false;
+    private boolean biomes;
+    private @Nullable Long seed = null;
+    private int maxChunkLoads = ChunkTickets.DEFAULT_MAX_LOADS;
+
+    private CuboidSampler(@NotNull final Cuboid cuboid, @NotNull final World world, @Nullable final CuboidSnapshot snapshot, final boolean biomes) {
+        this.cuboid = cuboid;
+        this.world = world;
+        this.snapshot = snapshot;
+        this.biomes = biomes;
+    }
+
+    /**
+     * Create a sampler of the given Cuboid, reading the blocks it samples from the world.
+     * @param cuboid The Cuboid.
+     * @return The sampler.
+     * @apiNote {@link #estimate()} only reads chunks which are loaded, and must be used on the main thread.
+     * See {@link #estimateAsync(Plugin)} to load the sampled chunks asynchronously instead.
+     */
+    public static @NotNull CuboidSampler of(@NotNull final Cuboid cuboid) {
+        return new CuboidSampler(cuboid, cuboid.getWorld(), null, false);
+    }
+
+    /**
+     * Create a sampler of the given snapshot. Biomes are included if the snapshot was captured with biomes.
+     * @param snapshot The snapshot.
+     * @return The sampler.
+     */
+    public static @NotNull CuboidSampler of(@NotNull final CuboidSnapshot snapshot) {
+        return new CuboidSampler(snapshot.getCuboid(), snapshot.getWorld(), snapshot, snapshot.hasBiomes());
+    }
+
+    /**
+     * Set how blocks are sampled. Defaults to {@link Mode#ADAPTIVE}.
+     * @param mode The mode.
+     * @return This sampler.
+     */
+    public @NotNull CuboidSampler mode(@NotNull final Mode mode) {
+        this.mode = mode;
+        return this;
+    }
+
+    /**
+     * Set the maximum number of blocks sampled. Defaults to {@value #DEFAULT_BUDGET}.
+     * @param budget The budget.
+     * @return This sampler.
+     * @throws IllegalArgumentException If the budget is less than 2.
+     */
+    public @NotNull CuboidSampler budget(final int budget) {
+        if (budget < 2) throw new IllegalArgumentException("Budget must be at least 2!");
+        this.budget = budget;
+        return this;
+    }
+
+    /**
+     * Set the confidence level of the bounds. Defaults to {@value #DEFAULT_CONFIDENCE}.
+     * @param confidence The confidence level, between 0 and 1.
+     * @return This sampler.
+     * @throws IllegalArgumentException If the confidence level is not between 0 and 1.
+     */
+    public @NotNull CuboidSampler confidence(final double confidence) {
+        if (!(confidence > 0 && confidence < 1)) throw new IllegalArgumentException("Confidence must be between 0 and 1!");
+        this.confidence = confidence;
+        return this;
+    }
+
+    /**
+     * Set the target error of {@link Mode#ADAPTIVE} sampling. Defaults to {@value #DEFAULT_TARGET_ERROR}.<br>
+     * Sampling stops once the margin of the air fraction is within this error, and the margin of the average light level
+     * is within this fraction of its value, or of 1 for values below 1. The light level is only trusted once {@value #MIN_EMPTY} empty blocks were sampled.
+     * @param targetError The target error, greater than 0.
+     * @return This sampler.
+     * @throws IllegalArgumentException If the target error is not greater than 0.
+     */
+    public @NotNull CuboidSampler targetError(final double targetError) {
+        if (!(targetError > 0)) throw new IllegalArgumentException("Target error must be greater than 0!");
+        this.targetError = targetError;
+        return this;
+    }
+
+    /**
+     * Set whether every block is visited, rather than sampled, which falls back to {@link CuboidStats}. Defaults to false.
+     * @param exact Whether the statistics should be exact.
+     * @return This sampler.
+     */
+    public @NotNull CuboidSampler exact(final boolean exact) {
+        this.exact = exact;
+        return this;
+    }
+
+    /**
+     * Set whether the distribution of biomes is estimated. Defaults to false, or whether a snapshot was captured with biomes.
+     * @param biomes Whether biomes should be included.
+     * @return This sampler.
+     * @throws IllegalArgumentException If biomes are requested from a snapshot captured without biomes.
+     */
+    public @NotNull CuboidSampler biomes(final boolean biomes) {
+        if (biomes && this.snapshot != null && !this.snapshot.hasBiomes()) {
+            throw new IllegalArgumentException("Snapshot was captured without biomes!");
+        }
+        this.biomes = biomes;
+        return this;
+    }
+
+    /**
+     * Set the seed of the random positions, making the samples reproducible. Defaults to a random seed.
+     * @param seed The seed.
+     * @return This sampler.
+     */
+    public @NotNull CuboidSampler seed(final long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * Set the maximum number of chunk loads in flight at once, when estimating asynchronously.
+     * @param loads The number of loads. (Default: 16 loads)
+     * @return This sampler.
+     * @throws IllegalArgumentException If the number of loads is not positive.
+     */
+    public @NotNull CuboidSampler maxChunkLoads(final int loads) {
+        if (loads <= 0) throw new IllegalArgumentException("Maximum loads must be positive!");
+        this.maxChunkLoads = loads;
+        return this;
+    }
+
+    /**
+     * Estimate the statistics of the Cuboid on the calling thread.
+     * @return The estimate.
+     * @throws IllegalStateException If the sampler is not backed by a snapshot, and a chunk it reads is not loaded.
+     * @apiNote A sampler of a Cuboid must be used on the main thread, and never loads chunks.
+     * See {@link #estimateAsync(Plugin)} to load them asynchronously instead.
+     */
+    public @NotNull CuboidEstimate estimate() {
+        final Run run = new Run();
+        if (run.exact) {
+            if (this.snapshot != null) return run.exact(CuboidStats.compute(this.snapshot));
+            for (long index = 0; index < run.chunks; index++) requireLoaded(run.chunkX(index << 20), run.chunkZ(index << 20));
+            return run.exact(CuboidStats.compute(CuboidSnapshot.capture(this.cuboid, run.biomes)));
+        }
+        for (long[] batch = run.next(); batch != null; batch = run.next()) {
+            if (this.snapshot == null) {
+                for (int from = 0; from < batch.length; from = run.end(batch, from)) requireLoaded(run.chunkX(batch[from]), run.chunkZ(batch[from]));
+            }
+            for (int from = 0, to; from < batch.length; from = to) {
+                to = run.end(batch, from);
+                final int chunkX = run.chunkX(batch[from]), chunkZ = run.chunkZ(batch[from]);
+                if (this.snapshot != null) run.read(this.snapshot.getChunk(chunkX << 4, chunkZ << 4), batch, from, to);
+                else run.read(this.world.getChunkAt(chunkX, chunkZ), batch, from, to);
+            }
+        }
+        return run.complete();
+    }
+
+    /**
+     * Estimate the statistics of the Cuboid, loading the chunks it samples asynchronously.
+     * The samples of every chunk are read on the main thread as soon as the chunk has loaded.
+     * A sampler of a snapshot estimates off the main thread instead.<br>
+     * Exact statistics are computed through {@link AsyncCuboid#snapshot(boolean)}, with the chunks preloaded.
+     * @param plugin The plugin used for scheduling tasks.
+     * @return A future completed with the estimate. Cancelling the future stops any remaining work.
+     * @apiNote Must be called on the main thread, unless the sampler is backed by a snapshot.
+     */
+    public @NotNull CompletableFuture<CuboidEstimate> estimateAsync(@NotNull final Plugin plugin) {
+        final CompletableFuture<CuboidEstimate> future = new CompletableFuture<>();
+        if (this.snapshot != null) {
+            offThread(plugin, future, this::estimate);
+            return future;
+        }
+        final Run run = new Run();
+        if (run.exact) {
+            final CompletableFuture<CuboidSnapshot> capture = this.cuboid.async(plugin)
+                    .preloadChunks(true).maxChunkLoads(this.maxChunkLoads).snapshot(run.biomes);
+            capture.whenComplete((snapshot, error) -> {
+                if (error != null) future.completeExceptionally(error);
+                else offThread(plugin, future, () -> run.exact(CuboidStats.compute(snapshot)));
+            });
+            future.whenComplete((value, error) -> capture.cancel(false));
+            return future;
+        }
+        new Loader(plugin, this.world, run, this.maxChunkLoads, future).next();
+        return future;
+    }
+
+    /**
+     * Complete the given future with the given estimate off the main thread, unless the future is already completed.
+     */
+    private static void offThread(@NotNull final Plugin plugin, @NotNull final CompletableFuture<CuboidEstimate> future,
+                                  @NotNull final Supplier<CuboidEstimate> estimate) {
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            if (future.isDone()) return;
+            try {
+                future.complete(estimate.get());
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        });
+    }
+
+    private void requireLoaded(final int chunkX, final int chunkZ) {
+        if (!this.world.isChunkLoaded(chunkX, chunkZ)) {
+            throw new IllegalStateException("Chunk %d, %d is not loaded, see estimateAsync!".formatted(chunkX, chunkZ));
+        }
+    }
+
+    /**
+     * A single estimate, planning the samples of every round and folding the blocks read into the estimator.
+     * The settings of the sampler are copied when the run is created.<br><br>
+     * <p>
+     * Samples are encoded as the index of their chunk within the Cuboid, followed by 12 bits of height and 4 bits of Z and X within the chunk,
+     * so sorting a round groups its samples by chunk.
+     */
+    private final class Run {
+
+        private final Mode mode;
+        private final int budget;
+        private final double confidence, targetError;
+        private final boolean biomes;
+        private final int minX, minY, minZ, maxX, maxY, maxZ;
+        private final int chunkX1, chunkZ1, chunksZ;
+        private final long chunks, volume;
+        private final double z;
+        private final boolean exact;
+        private final SplittableRandom random;
+        private final Estimator estimator;
+        private final Stratum stratum = new Stratum();
+        private int sampled = 0;
+
+        private Run() {
+            this.budget = CuboidSampler.this.budget;
+            this.confidence = CuboidSampler.this.confidence;
+            this.targetError = CuboidSampler.this.targetError;
+            this.biomes = CuboidSampler.this.biomes;
+            this.minX = (int) cuboid.getLowerX();
+            this.maxX = (int) cuboid.getUpperX();
+            this.minZ = (int) cuboid.getLowerZ();
+            this.maxZ = (int) cuboid.getUpperZ();
+            this.minY = Math.max((int) cuboid.getLowerY(), world.getMinHeight());
+            this.maxY = Math.min((int) cuboid.getUpperY(), world.getMaxHeight() - 1);
+            this.chunkX1 = this.minX >> 4;
+            this.chunkZ1 = this.minZ >> 4;
+            this.chunksZ = (this.maxZ >> 4) - this.chunkZ1 + 1;
+            this.chunks = (long) ((this.maxX >> 4) - this.chunkX1 + 1) * this.chunksZ;
+            this.volume = this.maxY < this.minY ? 0 : (long) (this.maxX - this.minX + 1) * (this.maxY - this.minY + 1) * (this.maxZ - this.minZ + 1);
+            this.z = zScore(this.confidence);
+            this.exact = CuboidSampler.this.exact || this.budget >= this.volume;
+            this.random = seed == null ? new SplittableRandom() : new SplittableRandom(seed);
+            this.estimator = new Estimator(this.volume, this.z);
+            // Every stratum needs two samples for its variance, otherwise the whole Cuboid is sampled as one.
+            this.mode = CuboidSampler.this.mode == Mode.STRATIFIED && this.chunks * 2 > this.budget ? Mode.UNIFORM : CuboidSampler.this.mode;
+        }
+
+        /**
+         * Plan the samples of the next round, grouped by chunk.
+         * @return The samples, or null once sampling is complete.
+         */
+        private long @Nullable [] next() {
+            final long[] batch = switch (this.mode) {
+                case UNIFORM -> this.sampled == 0 ? uniform(this.budget) : null;
+                case STRATIFIED -> this.sampled == 0 ? stratified() : null;
+                case ADAPTIVE -> this.sampled >= this.budget || this.sampled > 0 && withinTarget()
+                        ? null : uniform(Math.min(Math.max(MIN_ROUND, this.budget / 16), this.budget - this.sampled));
+            };
+            if (batch != null) this.sampled += batch.length;
+            return batch;
+        }
+
+        /**
+         * Sample the given number of blocks uniformly across the Cuboid, sorted by chunk.
+         */
+        private long @NotNull [] uniform(final int count) {
+            final long[] batch = new long[count];
+            for (int i = 0; i < count; i++) {
+                batch[i] = encode(this.random.nextInt(this.minX, this.maxX + 1), this.random.nextInt(this.minY, this.maxY + 1),
+                        this.random.nextInt(this.minZ, this.maxZ + 1));
+            }
+            Arrays.sort(batch);
+            return batch;
+        }
+
+        /**
+         * Sample every chunk twice, and the rest of the budget in proportion to the volume of each chunk, in the order of the chunks.
+         */
+        private long @NotNull [] stratified() {
+            final long[] batch = new long[this.budget];
+            final long extra = this.budget - this.chunks * 2;
+            int position = 0;
+            long cumulative = 0, allocated = 0;
+            for (long index = 0; index < this.chunks; index++) {
+                final int cx = chunkX(index << 20), cz = chunkZ(index << 20);
+                final int x1 = Math.max(this.minX, cx << 4), x2 = Math.min(this.maxX, (cx << 4) | 0xf);
+                final int z1 = Math.max(this.minZ, cz << 4), z2 = Math.min(this.maxZ, (cz << 4) | 0xf);
+                cumulative += (long) (x2 - x1 + 1) * (this.maxY - this.minY + 1) * (z2 - z1 + 1);
+                // The extra samples are allocated in proportion to the volume, rounding such that they add up to the budget.
+                final long target = cumulative == this.volume ? extra : (long) ((double) cumulative * extra / this.volume);
+                for (long i = 2 + target - allocated; i > 0; i--) {
+                    batch[position++] = encode(this.random.nextInt(x1, x2 + 1), this.random.nextInt(this.minY, this.maxY + 1), this.random.nextInt(z1, z2 + 1));
+                }
+                allocated = target;
+            }
+            return batch;
+        }
+
+        private long encode(final int x, final int y, final int z) {
+            final long index = (long) ((x >> 4) - this.chunkX1) * this.chunksZ + ((z >> 4) - this.chunkZ1);
+            return index << 20 | (long) (y - this.minY) << 8 | (z & 0xf) << 4 | (x & 0xf);
+        }
+
+        private int chunkX(final long sample) {
+            return this.chunkX1 + (int) ((sample >>> 20) / this.chunksZ);
+        }
+
+        private int chunkZ(final long sample) {
+            return this.chunkZ1 + (int) ((sample >>> 20) % this.chunksZ);
+        }
+
+        /**
+         * Get the end of the samples of the chunk starting at the given position.
+         */
+        private int end(final long @NotNull [] batch, final int from) {
+            final long index = batch[from] >>> 20;
+            int to = from + 1;
+            while (to < batch.length && batch[to] >>> 20 == index) ++to;
+            return to;
+        }
+
+        /**
+         * Read the given samples from the given loaded chunk.
+         */
+        private void read(@NotNull final Chunk chunk, final long @NotNull [] batch, final int from, final int to) {
+            for (int i = from; i < to; i++) {
+                final long sample = batch[i];
+                final Block block = chunk.getBlock((int) sample & 0xf, this.minY + ((int) (sample >>> 8) & 0xfff), (int) (sample >>> 4) & 0xf);
+                final Material type = block.getType();
+                this.stratum.sample(type, type.isAir() ? Math.max(block.getLightFromSky(), block.getLightFromBlocks()) : 0,
+                        this.biomes ? block.getBiome() : null);
+            }
+            read(batch[from]);
+        }
+
+        /**
+         * Read the given samples from the given snapshot of their chunk.
+         */
+        private void read(@NotNull final ChunkSnapshot chunk, final long @NotNull [] batch, final int from, final int to) {
+            for (int i = from; i < to; i++) {
+                final long sample = batch[i];
+                final int x = (int) sample & 0xf, y = this.minY + ((int) (sample >>> 8) & 0xfff), z = (int) (sample >>> 4) & 0xf;
+                final Material type = chunk.getBlockType(x, y, z);
+                this.stratum.sample(type, type.isAir() ? Math.max(chunk.getBlockSkyLight(x, y, z), chunk.getBlockEmittedLight(x, y, z)) : 0,
+                        this.biomes ? chunk.getBiome(x, y, z) : null);
+            }
+            read(batch[from]);
+        }
+
+        /**
+         * Fold the chunk of the given sample into the estimator once it has been read, if every chunk is a stratum.
+         */
+        private void read(final long sample) {
+            if (this.mode != Mode.STRATIFIED) return;
+            final int cx = chunkX(sample), cz = chunkZ(sample);
+            final long size = (long) (Math.min(this.maxX, (cx << 4) | 0xf) - Math.max(this.minX, cx << 4) + 1)
+                    * (this.maxY - this.minY + 1) * (Math.min(this.maxZ, (cz << 4) | 0xf) - Math.max(this.minZ, cz << 4) + 1);
+            this.estimator.add(this.stratum, (double) size / this.volume);
+        }
+
+        /**
+         * Check if the estimates of the uniform sample read so far are within the target error.
+         * The Wilson interval of the air fraction stays wide while no air was sampled, so a round without air is not taken as converged.
+         */
+        private boolean withinTarget() {
+            final int n = this.stratum.samples;
+            if (CuboidEstimate.wilson((double) this.stratum.air / n, n, this.z).getMargin() > this.targetError) return false;
+            // Without empty blocks the air fraction is known to be below the target error, and the light level is undefined.
+            if (this.stratum.air == 0) return true;
+            if (this.stratum.air < MIN_EMPTY) return false;
+            final CuboidEstimate.Bounds light = lightBounds(List.of(this.stratum.light(1)), this.z);
+            return light.getMargin() <= this.targetError * Math.max(1, light.getValue());
+        }
+
+        private @NotNull CuboidEstimate complete() {
+            if (this.mode != Mode.STRATIFIED) this.estimator.add(this.stratum, 1);
+            return this.estimator.complete(this.budget, this.confidence);
+        }
+
+        /**
+         * Report the given statistics of every block, with bounds equal to their values.
+         */
+        private @NotNull CuboidEstimate exact(@NotNull final CuboidStats stats) {
+            final long blocks = stats.getBlockCount();
+            final double[] materials = new double[MATERIALS.length];
+            final Map<Biome, double[]> biomes = new HashMap<>();
+            if (blocks > 0) {
+                stats.getMaterials().forEach((material, count) -> materials[material.ordinal()] = (double) count / blocks);
+                if (this.biomes) stats.getBiomes().forEach((biome, count) -> biomes.put(biome, new double[]{(double) count / blocks, 0}));
+            }
+            final double light = stats.getAirCount() > 0 ? (double) stats.getLightTotal() / stats.getAirCount() : 0;
+            return new CuboidEstimate(blocks, (int) Math.min(blocks, Integer.MAX_VALUE), this.budget, true, this.confidence, this.z,
+                    materials, new double[MATERIALS.length], biomes,
+                    blocks > 0 ? (double) stats.getAirCount() / blocks : 0, 0,
+                    blocks > 0 ? (double) stats.getSolidCount() / blocks : 0, 0,
+                    stats.getAirCount() > 0 ? new CuboidEstimate.Bounds(light, light, light) : new CuboidEstimate.Bounds(0, 0, MAX_LIGHT_LEVEL));
+        }
+    }
+
+    /**
+     * Loads the chunks of every round of a run asynchronously, keeping at most the given number of loads in flight,
+     * and reads the samples of each chunk once it has loaded. Rounds are sampled one after another.
+     * Only accessed on the main thread.
+     */
+    private static final class Loader {
+
+        private final Plugin plugin;
+        private final World world;
+        private final Run run;
+        private final int maxLoads;
+        private final CompletableFuture<CuboidEstimate> future;
+        private long[] batch = new long[0];
+        private int[] starts = new int[1];
+        private int chunks = 0, requested = 0, inFlight = 0, read = 0;
+        private boolean pumping = false;
+
+        private Loader(@NotNull final Plugin plugin, @NotNull final World world, @NotNull final Run run, final int maxLoads,
+                       @NotNull final CompletableFuture<CuboidEstimate> future) {
+            this.plugin = plugin;
+            this.world = world;
+            this.run = run;
+            this.maxLoads = maxLoads;
+            this.future = future;
+        }
+
+        /**
+         * Start the next round, or complete the future once sampling is complete.
+         */
+        private void next() {
+            final long[] batch;
+            try {
+                batch = this.run.next();
+                if (batch == null) {
+                    this.future.complete(this.run.complete());
+                    return;
+                }
+            } catch (Throwable t) {
+                this.future.completeExceptionally(t);
+                return;
+            }
+            this.batch = batch;
+            // The start of the samples of every chunk, followed by the end of the last.
+            this.starts = new int[batch.length + 1];
+            this.chunks = 0;
+            for (int from = 0; from < batch.length; from = this.run.end(batch, from)) this.starts[this.chunks++] = from;
+            this.starts[this.chunks] = batch.length;
+            this.requested = this.read = 0;
+            pump();
+        }
+
+        /**
+         * Request loads until the limit is reached. Loads of chunks already loaded may complete immediately,
+         * in which case this is re-entered, so re-entrant calls return at once and the outer loop continues.
+         */
+        private void pump() {
+            if (this.pumping) return;
+            this.pumping = true;
+            try {
+                while (!this.future.isDone() && this.inFlight < this.maxLoads && this.requested < this.chunks) {
+                    final int chunk = this.requested++;
+                    final long sample = this.batch[this.starts[chunk]];
+                    ++this.inFlight;
+                    this.world.getChunkAtAsync(this.run.chunkX(sample), this.run.chunkZ(sample))
+                            .whenComplete((loaded, error) -> ChunkTickets.onMainThread(this.plugin, () -> loaded(chunk, loaded, error)));
+                }
+            } finally {
+                this.pumping = false;
+            }
+        }
+
+        private void loaded(final int chunk, final Chunk loaded, final Throwable error) {
+            --this.inFlight;
+            if (this.future.isDone()) return;
+            if (error != null) {
+                this.future.completeExceptionally(error);
+                return;
+            }
+            try {
+                this.run.read(loaded, this.batch, this.starts[chunk], this.starts[chunk + 1]);
+            } catch (Throwable t) {
+                this.future.completeExceptionally(t);
+                return;
+            }
+            if (++this.read == this.chunks) next();
+            else pump();
+        }
+    }
+
+    /**
+     * Estimate the average light level of empty blocks as the ratio of the light of sampled empty blocks to their number,
+     * with the variance of the ratio approximated by linearization across the strata.
+     * @param strata The weight, samples, empty blocks, light and squared light of every stratum.
+     */
+    private static @NotNull CuboidEstimate.Bounds lightBounds(@NotNull final List<double[]> strata, final double z) {
+        double air = 0, light = 0;
+        for (final double[] s : strata) {
+            air += s[0] * s[2] / s[1];
+            light += s[0] * s[3] / s[1];
+        }
+        if (air == 0) return new CuboidEstimate.Bounds(0, 0, MAX_LIGHT_LEVEL);
+        final double ratio = light / air;
+        double variance = 0;
+        for (final double[] s : strata) {
+            final double n = s[1];
+            if (n < 2) continue;
+            // The residual of every sample is its light minus the ratio if it is empty, and 0 otherwise.
+            final double sum = s[3] - ratio * s[2];
+            final double squares = s[4] - 2 * ratio * s[3] + ratio * ratio * s[2];
+            variance += s[0] * s[0] * ((squares - sum * sum / n) / (n - 1)) / n;
+        }
+        final double margin = z * Math.sqrt(Math.max(0, variance)) / air;
+        return new CuboidEstimate.Bounds(ratio, Math.max(0, ratio - margin), Math.min(MAX_LIGHT_LEVEL, ratio + margin));
+    }
+
+    /**
+     * Get the two-sided critical value of the standard normal distribution for the given confidence level,
+     * using the rational approximation of the inverse normal distribution by Acklam.
+     */
+    private static double zScore(final double confidence) {
+        final double p = 1 - (1 - confidence) / 2;
+        if (p > 0.97575) {
+            final double q = Math.sqrt(-2 * Math.log(1 - p));
+            return -(((((-7.784894002430293e-03 * q - 3.223964580411365e-01) * q - 2.400758277161838e+00) * q - 2.549732539343734e+00) * q
+                    + 4.374664141464968e+00) * q + 2.938163982698783e+00)
+                    / ((((7.784695709041462e-03 * q + 3.224671290700398e-01) * q + 2.445134137142996e+00) * q + 3.754408661907416e+00) * q + 1);
+        }
+        final double q = p - 0.5, r = q * q;
+        return (((((-3.969683028665376e+01 * r + 2.209460984245205e+02) * r - 2.759285104469687e+02) * r + 1.383577518672690e+02) * r
+                - 3.066479806614716e+01) * r + 2.506628277459239e+00) * q
+                / (((((-5.447609879822406e+01 * r + 1.615858368580409e+02) * r - 1.556989798598866e+02) * r + 6.680131188771972e+01) * r
+                - 1.328068155288572e+01) * r + 1);
+    }
+
+    /**
+     * How the blocks of a Cuboid are sampled.
+     */
+    public enum Mode {
+        /**
+         * Sample the whole budget uniformly across the Cuboid.
+         */
+        UNIFORM,
+        /**
+         * Sample every chunk of the Cuboid, in proportion to its share of the volume, and at least twice.
+         * Falls back to {@link #UNIFORM} if the budget does not cover two samples per chunk.
+         */
+        STRATIFIED,
+        /**
+         * Sample uniformly in rounds, stopping once the estimates are within the target error, or the budget is spent.
+         * @see #targetError(double)
+         */
+        ADAPTIVE
+    }
+
+    /**
+     * The counts of the blocks sampled from a single stratum.
+     */
+    private static final class Stratum {
+
+        private final int[] materials = new int[MATERIALS.length];
+        private final int[] touched = new int[MATERIALS.length];
+        private final Map<Biome, int[]> biomes = new HashMap<>();
+        private int size;
+        private int samples, air, solid;
+        private long light, lightSquares;
+
+        /**
+         * Count a sampled block of the given type, with the given light level if it is empty, and the given biome if biomes are included.
+         */
+        private void sample(@NotNull final Material type, final int level, @Nullable final Biome biome) {
+            if (this.materials[type.ordinal()]++ == 0) this.touched[this.size++] = type.ordinal();
+            ++this.samples;
+            if (type.isAir()) {
+                ++this.air;
+                this.light += level;
+                this.lightSquares += (long) level * level;
+            } else if (type.isSolid()) {
+                ++this.solid;
+            }
+            if (biome != null) ++this.biomes.computeIfAbsent(biome, key -> new int[1])[0];
+        }
+
+        /**
+         * Get the weight, samples, empty blocks, light and squared light of the stratum.
+         */
+        private double @NotNull [] light(final double weight) {
+            return new double[]{weight, this.samples, this.air, this.light, this.lightSquares};
+        }
+
+        private void reset() {
+            for (int i = 0; i < this.size; i++) this.materials[this.touched[i]] = 0;
+            this.biomes.clear();
+            this.size = this.samples = this.air = this.solid = 0;
+            this.light = this.lightSquares = 0;
+        }
+    }
+
+    /**
+     * Combines the strata into estimates weighted by their share of the volume.
+     */
+    private static final class Estimator {
+
+        private final long volume;
+        private final double z;
+        private final double[] materials = new double[MATERIALS.length];
+        private final double[] materialVariances = new double[MATERIALS.length];
+        private final Map<Biome, double[]> biomes = new HashMap<>();
+        private final List<double[]> light = new ArrayList<>();
+        private final double[] air = new double[2], solid = new double[2];
+        private int samples;
+
+        private Estimator(final long volume, final double z) {
+            this.volume = volume;
+            this.z = z;
+        }
+
+        /**
+         * Add the given stratum with the given weight, then reset the stratum.
+         */
+        private void add(@NotNull final Stratum stratum, final double weight) {
+            final int n = stratum.samples;
+            for (int i = 0; i < stratum.size; i++) {
+                final int ordinal = stratum.touched[i];
+                final double[] estimate = proportion(weight, stratum.materials[ordinal], n);
+                this.materials[ordinal] += estimate[0];
+                this.materialVariances[ordinal] += estimate[1];
+            }
+            stratum.biomes.forEach((biome, count) -> {
+                final double[] estimate = proportion(weight, count[0], n);
+                final double[] total = this.biomes.computeIfAbsent(biome, key -> new double[2]);
+                total[0] += estimate[0];
+                total[1] += estimate[1];
+            });
+            final double[] air = proportion(weight, stratum.air, n), solid = proportion(weight, stratum.solid, n);
+            this.air[0] += air[0];
+            this.air[1] += air[1];
+            this.solid[0] += solid[0];
+            this.solid[1] += solid[1];
+            this.light.add(stratum.light(weight));
+            this.samples += n;
+            stratum.reset();
+        }
+
+        /**
+         * Get the weighted proportion of the given count, and the variance of its estimator.
+         */
+        private static double @NotNull [] proportion(final double weight, final int count, final int samples) {
+            final double p = (double) count / samples;
+            return new double[]{weight * p, samples < 2 ? 0 : weight * weight * p * (1 - p) / (samples - 1)};
+        }
+
+        private @NotNull CuboidEstimate complete(final int budget, final double confidence) {
+            return new CuboidEstimate(this.volume, this.samples, budget, false, confidence, this.z,
+                    this.materials, this.materialVariances, this.biomes,
+                    this.air[0], this.air[1], this.solid[0], this.solid[1], lightBounds(this.light, this.z));
+        }
+    }
+}
@@ -0,0 +1,456 @@
+package dev.prodzeus.utilities.world;
+
+import org.bukkit.Bukkit;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.World;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitRunnable;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A compact schematic of the blocks of a {@link Cuboid}, stored on disk.<br><br>
+ * <p>
+ * Every distinct block state is stored once in a palette, and the blocks are stored as runs of palette indices,
+ * each written as a pair of variable-length integers. Uniform areas such as air or stone cost only a few bytes,
+ * and small palettes use a single byte per index.<br><br>
+ * <p>
+ * Both directions are streaming. Saving captures one chunk at a time on the main thread, which is encoded and written off the main thread,
+ * and pasting reads the runs from disk as the blocks are written by a {@link CuboidEditor}.
+ * Neither holds more than a few chunks in memory, regardless of the size of the Cuboid.
+ * Schematics are created through {@link AsyncCuboid#saveSchematic(Path)}, read through {@link #read(Path)}
+ * and pasted through {@link CuboidEditor#paste(CuboidSchematic)}.
+ *
+ * @author prodzeus
+ */
+@SuppressWarnings("unused")
+public final class CuboidSchematic {
+
+    private static final int MAGIC = 0x43534348;
+    private static final short VERSION = 1;
+    private static final int HEADER_SIZE = Integer.BYTES + Short.BYTES + 6 * Integer.BYTES + Long.BYTES;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int QUEUE_CAPACITY = 16;
+
+    private final Path path;
+    private final int originX, originY, originZ;
+    private final int sizeX, sizeY, sizeZ;
+    private final List<String> palette;
+
+    private CuboidSchematic(@NotNull final Path path, final int originX, final int originY, final int originZ,
+                            final int sizeX, final int sizeY, final int sizeZ, @NotNull final List<String> palette) {
+        this.path = path;
+        this.originX = originX;
+        this.originY = originY;
+        this.originZ = originZ;
+        this.sizeX = sizeX;
+        this.sizeY = sizeY;
+        this.sizeZ = sizeZ;
+        this.palette = Collections.unmodifiableList(palette);
+    }
+
+    /**
+     * Read the header and palette of a schematic. The blocks are not read until the schematic is pasted.
+     * @param path The path of the schematic.
+     * @return The schematic.
+     * @throws IOException If the file could not be read, or is not a schematic.
+     */
+    public static @NotNull CuboidSchematic read(@NotNull final Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            readFully(channel, header, 0);
+            if (header.getInt() != MAGIC) throw new IOException("Not a schematic: " + path);
+            final short version = header.getShort();
+            if (version != VERSION) throw new IOException("Unsupported schematic version %d: %s".formatted(version, path));
+            final int originX = header.getInt(), originY = header.getInt(), originZ = header.getInt();
+            final int sizeX = header.getInt(), sizeY = header.getInt(), sizeZ = header.getInt();
+            final long paletteOffset = header.getLong();
+
+            final ByteBuffer buffer = ByteBuffer.allocate((int) (channel.size() - paletteOffset));
+            readFully(channel, buffer, paletteOffset);
+            final int count = readVarInt(buffer);
+            final List<String> palette = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                final byte[] bytes = new byte[readVarInt(buffer)];
+                buffer.get(bytes);
+                palette.add(new String(bytes, StandardCharsets.UTF_8));
+            }
+            return new CuboidSchematic(path, originX, originY, originZ, sizeX, sizeY, sizeZ, palette);
+        }
+    }
+
+    /**
+     * Save the blocks of the given Cuboid as a schematic, capturing as many chunks each tick as the budget allows.
+     * The schematic is written to a temporary file, which replaces the given path once complete.
+     * @param plugin  The plugin used for scheduling tasks.
+     * @param cuboid  The Cuboid.
+     * @param path    The path to save the schematic to.
+     * @param budget  The budget of each tick, in nanoseconds.
+     * @return A future completed with the saved schematic.
+     */
+    static @NotNull CompletableFuture<CuboidSchematic> save(@NotNull final Plugin plugin, @NotNull final Cuboid cuboid,
+                                                           @NotNull final Path path, final long budget) {
+        final World world = cuboid.getWorld();
+        final int minX = (int) cuboid.getLowerX(), maxX = (int) cuboid.getUpperX();
+        final int minY = Math.max((int) cuboid.getLowerY(), world.getMinHeight()), maxY = Math.min((int) cuboid.getUpperY(), world.getMaxHeight() - 1);
+        final int minZ = (int) cuboid.getLowerZ(), maxZ = (int) cuboid.getUpperZ();
+        final int minChunkX = minX >> 4, minChunkZ = minZ >> 4;
+        final int chunksZ = (maxZ >> 4) - minChunkZ + 1;
+        final int chunks = ((maxX >> 4) - minChunkX + 1) * chunksZ;
+        final Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        final BlockingQueue<ChunkSnapshot> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        final CompletableFuture<CuboidSchematic> future = new CompletableFuture<>();
+
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            try {
+                final CuboidSchematic schematic;
+                try (Encoder encoder = new Encoder(temporary)) {
+                    for (int i = 0; i < chunks; i++) {
+                        ChunkSnapshot chunk;
+                        while ((chunk = queue.poll(50, TimeUnit.MILLISECONDS)) == null) {
+                            if (future.isDone()) return;
+                        }
+                        encoder.encode(chunk, minX, minY, minZ, maxX, maxY, maxZ);
+                    }
+                    schematic = new CuboidSchematic(path, minX, minY, minZ,
+                            maxX - minX + 1, Math.max(0, maxY - minY + 1), maxZ - minZ + 1, encoder.palette);
+                    encoder.finish(schematic);
+                }
+                Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING);
+                future.complete(schematic);
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            } finally {
+                try {
+                    Files.deleteIfExists(temporary);
+                } catch (IOException ignored) {}
+            }
+        });
+
+        new BukkitRunnable() {
+            private int index = 0;
+
+            @Override
+            public void run() {
+                if (future.isDone()) {
+                    cancel();
+                    return;
+                }
+                final long deadline = System.nanoTime() + budget;
+                try {
+                    while (index < chunks && queue.remainingCapacity() > 0 && System.nanoTime() < deadline) {
+                        final int chunkX = minChunkX + index / chunksZ, chunkZ = minChunkZ + index % chunksZ;
+                        queue.add(world.getChunkAt(chunkX, chunkZ).getChunkSnapshot(false, false, false));
+                        ++index;
+                    }
+                    if (index == chunks) cancel();
+                } catch (Throwable t) {
+                    cancel();
+                    future.completeExceptionally(t);
+                }
+            }
+        }.runTaskTimer(plugin, 0L, 1L);
+        return future;
+    }
+
+    /**
+     * Get the path of the schematic.
+     * @return The path.
+     */
+    public @NotNull Path getPath() {
+        return this.path;
+    }
+
+    /**
+     * Get the X-coordinate of the lower North-East corner the schematic was saved from.
+     * @return The X-coordinate.
+     */
+    public int getOriginX() {
+        return this.originX;
+    }
+
+    /**
+     * Get the Y-coordinate of the lower North-East corner the schematic was saved from.
+     * @return The Y-coordinate.
+     */
+    public int getOriginY() {
+        return this.originY;
+    }
+
+    /**
+     * Get the Z-coordinate of the lower North-East corner the schematic was saved from.
+     * @return The Z-coordinate.
+     */
+    public int getOriginZ() {
+        return this.originZ;
+    }
+
+    /**
+     * Get the size of the schematic along the X-axis.
+     * @return The size in blocks.
+     */
+    public int getSizeX() {
+        return this.sizeX;
+    }
+
+    /**
+     * Get the size of the schematic along the Y-axis.
+     * @return The size in blocks.
+     */
+    public int getSizeY() {
+        return this.sizeY;
+    }
+
+    /**
+     * Get the size of the schematic along the Z-axis.
+     * @return The size in blocks.
+     */
+    public int getSizeZ() {
+        return this.sizeZ;
+    }
+
+    /**
+     * Get the total number of blocks in the schematic.
+     * @return The number of blocks.
+     */
+    public long getVolume() {
+        return (long) this.sizeX * this.sizeY * this.sizeZ;
+    }
+
+    /**
+     * Get the palette of the schematic, holding every distinct block state as a string.
+     * @return An unmodifiable list of the palette.
+     * @see BlockData#getAsString()
+     */
+    public @NotNull List<String> getPalette() {
+        return this.palette;
+    }
+
+    /**
+     * Create a cursor over the positions the schematic was saved from, in the order the blocks are stored.
+     * @return The cursor.
+     */
+    @NotNull BlockCursor cursor() {
+        return new BlockCursor(this.originX, this.originY, this.originZ,
+                this.originX + this.sizeX - 1, this.originY + this.sizeY - 1, this.originZ + this.sizeZ - 1);
+    }
+
+    /**
+     * Open the blocks of the schematic for reading.
+     * @return The decoder, which must be closed afterward.
+     * @throws IOException If the file could not be opened.
+     */
+    @NotNull Decoder open() throws IOException {
+        return new Decoder(FileChannel.open(this.path, StandardOpenOption.READ), this.palette);
+    }
+
+    private static void readFully(@NotNull final FileChannel channel, @NotNull final ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            final int read = channel.read(buffer, position);
+            if (read < 0) throw new EOFException("Unexpected end of schematic.");
+            position += read;
+        }
+        buffer.flip();
+    }
+
+    private static int readVarInt(@NotNull final ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            final byte b = buffer.get();
+            value |= (b & 0x7f) << shift;
+            if (b >= 0) return value;
+        }
+    }
+
+    /**
+     * Writes the blocks of captured chunks as runs of palette indices.
+     */
+    private static final class Encoder implements Closeable {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private final Map<BlockData, Integer> indices = new HashMap<>();
+        private final List<String> palette = new ArrayList<>();
+        private BlockData last = null;
+        private int index = -1, run = 0;
+
+        private Encoder(@NotNull final Path path) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            this.channel.position(HEADER_SIZE);
+        }
+
+        /**
+         * Encode the blocks of the given chunk within the bounds, in the order of {@link BlockCursor}.
+         */
+        private void encode(@NotNull final ChunkSnapshot chunk, final int minX, final int minY, final int minZ,
+                            final int maxX, final int maxY, final int maxZ) throws IOException {
+            final int x1 = Math.max(minX, chunk.getX() << 4) & 0xf, x2 = Math.min(maxX, (chunk.getX() << 4) + 15) & 0xf;
+            final int z1 = Math.max(minZ, chunk.getZ() << 4) & 0xf, z2 = Math.min(maxZ, (chunk.getZ() << 4) + 15) & 0xf;
+            for (int y = minY; y <= maxY; y++) {
+                for (int z = z1; z <= z2; z++) {
+                    for (int x = x1; x <= x2; x++) {
+                        final BlockData data = chunk.getBlockData(x, y, z);
+                        if (run > 0 && run < Integer.MAX_VALUE && (data == last || data.equals(last))) {
+                            ++run;
+                            continue;
+                        }
+                        flushRun();
+                        last = data;
+                        index = indices.computeIfAbsent(data, key -> {
+                            palette.add(key.getAsString());
+                            return palette.size() - 1;
+                        });
+                        run = 1;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Write the remaining run, followed by the palette and the header.
+         */
+        private void finish(@NotNull final CuboidSchematic schematic) throws IOException {
+            flushRun();
+            final long paletteOffset = this.channel.position() + this.buffer.position();
+            ensure(5);
+            writeVarInt(this.palette.size());
+            for (final String entry : this.palette) {
+                final byte[] bytes = entry.getBytes(StandardCharsets.UTF_8);
+                ensure(5);
+                writeVarInt(bytes.length);
+                for (int offset = 0; offset < bytes.length; ) {
+                    ensure(1);
+                    final int length = Math.min(bytes.length - offset, this.buffer.remaining());
+                    this.buffer.put(bytes, offset, length);
+                    offset += length;
+                }
+            }
+            flush();
+
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                    .putInt(MAGIC).putShort(VERSION)
+                    .putInt(schematic.originX).putInt(schematic.originY).putInt(schematic.originZ)
+                    .putInt(schematic.sizeX).putInt(schematic.sizeY).putInt(schematic.sizeZ)
+                    .putLong(paletteOffset)
+                    .flip();
+            long position = 0;
+            while (header.hasRemaining()) position += this.channel.write(header, position);
+        }
+
+        private void flushRun() throws IOException {
+            if (run == 0) return;
+            ensure(10);
+            writeVarInt(index);
+            writeVarInt(run);
+            run = 0;
+        }
+
+        private void writeVarInt(int value) {
+            while ((value & ~0x7f) != 0) {
+                this.buffer.put((byte) ((value & 0x7f) | 0x80));
+                value >>>= 7;
+            }
+            this.buffer.put((byte) value);
+        }
+
+        private void ensure(final int bytes) throws IOException {
+            if (this.buffer.remaining() < bytes) flush();
+        }
+
+        private void flush() throws IOException {
+            this.buffer.flip();
+            while (this.buffer.hasRemaining()) this.channel.write(this.buffer);
+            this.buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.channel.close();
+        }
+    }
+
+    /**
+     * Reads the blocks of a schematic one at a time, in the order of {@link BlockCursor}.
+     * Block states are only resolved once first used, and must therefore be read on the main thread.
+     */
+    static final class Decoder implements Closeable {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private final List<String> palette;
+        private final BlockData[] resolved;
+        private BlockData current;
+        private int remaining = 0;
+
+        private Decoder(@NotNull final FileChannel channel, @NotNull final List<String> palette) throws IOException {
+            this.channel = channel;
+            this.palette = palette;
+            this.resolved = new BlockData[palette.size()];
+            this.channel.position(HEADER_SIZE);
+            this.buffer.flip();
+        }
+
+        /**
+         * Read the next block.
+         * @return The BlockData of the block.
+         * @throws UncheckedIOException If the file could not be read.
+         */
+        @NotNull BlockData next() {
+            while (remaining == 0) {
+                final int index = readVarInt();
+                remaining = readVarInt();
+                if (resolved[index] == null) resolved[index] = Bukkit.createBlockData(palette.get(index));
+                current = resolved[index];
+            }
+            --remaining;
+            return current;
+        }
+
+        private int readVarInt() {
+            int value = 0;
+            for (int shift = 0; ; shift += 7) {
+                final byte b = readByte();
+                value |= (b & 0x7f) << shift;
+                if (b >= 0) return value;
+            }
+        }
+
+        private byte readByte() {
+            if (!this.buffer.hasRemaining()) {
+                try {
+                    this.buffer.clear();
+                    final int read = this.channel.read(this.buffer);
+                    this.buffer.flip();
+                    if (read < 0) throw new EOFException("Unexpected end of schematic.");
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return this.buffer.get();
+        }
+
+        @Override
+        public void close() {
+            try {
+                this.channel.close();
+            } catch (IOException ignored) {}
+        }
+    }
+}
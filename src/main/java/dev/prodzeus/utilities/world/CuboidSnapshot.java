@@ -0,0 +1,435 @@
+package dev.prodzeus.utilities.world;
+
+import org.bukkit.*;
+import org.bukkit.block.Block;
+import org.bukkit.block.data.BlockData;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A read-only capture of a {@link Cuboid}, backed by one {@link ChunkSnapshot} per {@link Chunk} intersecting the Cuboid.<br><br>
+ * <p>
+ * Capturing a snapshot must happen on the main thread, as the chunks are loaded and copied at that point.
+ * Every query afterward only reads the captured data, which makes them safe to run asynchronously,
+ * and avoids the {@link World#getBlockAt} lookup and {@link Block} allocation made for every block by {@link Cuboid#iterator()}.<br><br>
+ * <p>
+ * Blocks outside the build height of the world are not part of the snapshot.
+ * Lists of blocks are ordered chunk by chunk, rather than in the order of {@link Cuboid.CuboidIterator}.
+ *
+ * @author prodzeus
+ */
+@SuppressWarnings("unused")
+public final class CuboidSnapshot {
+
+    /**
+     * The Cuboid this snapshot was captured from.
+     */
+    private final Cuboid cuboid;
+    /**
+     * The world of the Cuboid, resolved when the snapshot was created.
+     */
+    private final World world;
+    /**
+     * The block bounds of the snapshot, clamped to the build height of the world.
+     */
+    private final int minX, minY, minZ, maxX, maxY, maxZ;
+    /**
+     * The chunk coordinates of the lower North-East chunk, and the number of chunks along each axis.
+     */
+    private final int minChunkX, minChunkZ, chunksX, chunksZ;
+    /**
+     * The index of the lowest section in the world.
+     */
+    private final int minSection;
+    /**
+     * Whether the biomes of the chunks are captured.
+     */
+    private final boolean biomes;
+    /**
+     * The captured chunks, indexed by {@code (chunkX - minChunkX) * chunksZ + (chunkZ - minChunkZ)}.
+     */
+    private final ChunkSnapshot[] chunks;
+
+    /**
+     * Prepare an empty snapshot of the given Cuboid. No chunks are captured until {@link CuboidSnapshot#capture(int)} is called.
+     * @param cuboid The Cuboid.
+     * @param world  The world of the Cuboid.
+     * @param biomes Whether the biomes of the chunks should be captured.
+     */
+    CuboidSnapshot(@NotNull final Cuboid cuboid, @NotNull final World world, final boolean biomes) {
+        this.cuboid = cuboid;
+        this.world = world;
+        this.biomes = biomes;
+        this.minX = (int) cuboid.getLowerX();
+        this.minY = Math.max((int) cuboid.getLowerY(), world.getMinHeight());
+        this.minZ = (int) cuboid.getLowerZ();
+        this.maxX = (int) cuboid.getUpperX();
+        this.maxY = Math.min((int) cuboid.getUpperY(), world.getMaxHeight() - 1);
+        this.maxZ = (int) cuboid.getUpperZ();
+        this.minChunkX = this.minX >> 4;
+        this.minChunkZ = this.minZ >> 4;
+        this.chunksX = (this.maxX >> 4) - this.minChunkX + 1;
+        this.chunksZ = (this.maxZ >> 4) - this.minChunkZ + 1;
+        this.minSection = world.getMinHeight() >> 4;
+        this.chunks = new ChunkSnapshot[this.chunksX * this.chunksZ];
+    }
+
+    /**
+     * Capture a snapshot of every chunk intersecting the given Cuboid.
+     * @param cuboid The Cuboid to capture.
+     * @return The captured snapshot.
+     * @apiNote Must be called on the main thread. Chunks which are not loaded will be loaded synchronously.
+     */
+    public static @NotNull CuboidSnapshot capture(@NotNull final Cuboid cuboid) {
+        return capture(cuboid, false);
+    }
+
+    /**
+     * Capture a snapshot of every chunk intersecting the given Cuboid.
+     * @param cuboid The Cuboid to capture.
+     * @param biomes Whether the biomes of the chunks should be captured.
+     * @return The captured snapshot.
+     * @apiNote Must be called on the main thread. Chunks which are not loaded will be loaded synchronously.
+     */
+    public static @NotNull CuboidSnapshot capture(@NotNull final Cuboid cuboid, final boolean biomes) {
+        final CuboidSnapshot snapshot = new CuboidSnapshot(cuboid, cuboid.getWorld(), biomes);
+        for (int i = 0; i < snapshot.chunks.length; i++) snapshot.capture(i);
+        return snapshot;
+    }
+
+    /**
+     * Capture the chunk at the given index, including its heightmap.
+     * @param index The index of the chunk.
+     */
+    void capture(final int index) {
+        this.chunks[index] = this.world.getChunkAt(this.minChunkX + index / this.chunksZ, this.minChunkZ + index % this.chunksZ)
+                .getChunkSnapshot(true, this.biomes, false);
+    }
+
+    /**
+     * Get the captured chunk at the given index.
+     * @param index The index of the chunk.
+     * @return The chunk snapshot.
+     */
+    @NotNull ChunkSnapshot getChunkAt(final int index) {
+        return this.chunks[index];
+    }
+
+    /**
+     * Get the number of chunks intersecting the Cuboid.
+     * @return The number of chunks.
+     */
+    public int getChunkCount() {
+        return this.chunks.length;
+    }
+
+    /**
+     * Get the number of sections intersecting the snapshot in each chunk.
+     */
+    int getSectionCount() {
+        return this.maxY < this.minY ? 0 : (this.maxY >> 4) - (this.minY >> 4) + 1;
+    }
+
+    /**
+     * Get the index of the section containing the given Y-coordinate, relative to the lowest section of the snapshot.
+     */
+    int getSectionIndex(final int y) {
+        return (y >> 4) - (this.minY >> 4);
+    }
+
+    /**
+     * Check if the given snapshot covers the same blocks of the same world as this one.
+     */
+    boolean hasSameBounds(@NotNull final CuboidSnapshot other) {
+        return this.world.getName().equals(other.world.getName())
+                && this.minX == other.minX && this.minY == other.minY && this.minZ == other.minZ
+                && this.maxX == other.maxX && this.maxY == other.maxY && this.maxZ == other.maxZ;
+    }
+
+    /**
+     * Check if the biomes of the chunks were captured.
+     * @return True | False
+     */
+    public boolean hasBiomes() {
+        return this.biomes;
+    }
+
+    /**
+     * Get the Cuboid this snapshot was captured from.
+     * @return The Cuboid.
+     */
+    public @NotNull Cuboid getCuboid() {
+        return this.cuboid;
+    }
+
+    /**
+     * Get the world this snapshot was captured from.
+     * @return The world.
+     */
+    public @NotNull World getWorld() {
+        return this.world;
+    }
+
+    /**
+     * Get the captured chunk containing the given block coordinates.
+     * @param x The X coordinate.
+     * @param z The Z coordinate.
+     * @return The chunk snapshot.
+     * @throws IllegalArgumentException If the coordinates are outside the snapshot.
+     */
+    public @NotNull ChunkSnapshot getChunk(final int x, final int z) {
+        final int cx = (x >> 4) - this.minChunkX;
+        final int cz = (z >> 4) - this.minChunkZ;
+        if (cx < 0 || cx >= this.chunksX || cz < 0 || cz >= this.chunksZ) {
+            throw new IllegalArgumentException("Position %d, %d is outside the snapshot!".formatted(x, z));
+        }
+        return this.chunks[cx * this.chunksZ + cz];
+    }
+
+    /**
+     * Get the type of the block at the given position.
+     * @param x The X coordinate.
+     * @param y The Y coordinate.
+     * @param z The Z coordinate.
+     * @return The type of the block.
+     */
+    public @NotNull Material getType(final int x, final int y, final int z) {
+        return getChunk(x, z).getBlockType(x & 0xf, y, z & 0xf);
+    }
+
+    /**
+     * Get the data of the block at the given position.
+     * @param x The X coordinate.
+     * @param y The Y coordinate.
+     * @param z The Z coordinate.
+     * @return The data of the block.
+     */
+    public @NotNull BlockData getBlockData(final int x, final int y, final int z) {
+        return getChunk(x, z).getBlockData(x & 0xf, y, z & 0xf);
+    }
+
+    /**
+     * Get the light level of the block at the given position.
+     * @param x The X coordinate.
+     * @param y The Y coordinate.
+     * @param z The Z coordinate.
+     * @return The highest of the sky light and the light emitted by nearby blocks.
+     * @apiNote The sky light is not darkened by the time of day, unlike {@link Block#getLightLevel()}.
+     */
+    public int getLightLevel(final int x, final int y, final int z) {
+        final ChunkSnapshot chunk = getChunk(x, z);
+        return Math.max(chunk.getBlockSkyLight(x & 0xf, y, z & 0xf), chunk.getBlockEmittedLight(x & 0xf, y, z & 0xf));
+    }
+
+    /**
+     * Visit every position in the snapshot, chunk by chunk.
+     * @param visitor The visitor.
+     * @return True if every position was visited, or false if the visitor stopped early.
+     */
+    public boolean forEach(@NotNull final Visitor visitor) {
+        return forEach(visitor, false);
+    }
+
+    /**
+     * Visit every position in the snapshot, chunk by chunk.
+     * @param visitor           The visitor.
+     * @param skipEmptySections Whether sections containing only air should be skipped.
+     * @return True if every position was visited, or false if the visitor stopped early.
+     */
+    public boolean forEach(@NotNull final Visitor visitor, final boolean skipEmptySections) {
+        for (final ChunkSnapshot chunk : this.chunks) {
+            if (!forEach(chunk, visitor, skipEmptySections)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Visit every position of the snapshot within the given chunk.
+     * @param chunk             The chunk, which must be part of this snapshot.
+     * @param visitor           The visitor.
+     * @param skipEmptySections Whether sections containing only air should be skipped.
+     * @return True if every position was visited, or false if the visitor stopped early.
+     */
+    boolean forEach(@NotNull final ChunkSnapshot chunk, @NotNull final Visitor visitor, final boolean skipEmptySections) {
+        final int x1 = Math.max(this.minX, chunk.getX() << 4), x2 = Math.min(this.maxX, (chunk.getX() << 4) + 15);
+        final int z1 = Math.max(this.minZ, chunk.getZ() << 4), z2 = Math.min(this.maxZ, (chunk.getZ() << 4) + 15);
+        int y = this.minY;
+        while (y <= this.maxY) {
+            final int sectionEnd = Math.min(this.maxY, (y | 0xf));
+            if (!skipEmptySections || !chunk.isSectionEmpty((y >> 4) - this.minSection)) {
+                for (; y <= sectionEnd; y++) {
+                    for (int z = z1; z <= z2; z++) {
+                        for (int x = x1; x <= x2; x++) {
+                            if (!visitor.visit(chunk, x, y, z)) return false;
+                        }
+                    }
+                }
+            }
+            y = sectionEnd + 1;
+        }
+        return true;
+    }
+
+    /**
+     * Visit every position of the snapshot within a single section of the given chunk.
+     * @param chunk   The chunk, which must be part of this snapshot.
+     * @param section The index of the section, relative to the lowest section of the snapshot.
+     * @param visitor The visitor.
+     * @return True if every position was visited, or false if the visitor stopped early.
+     * @see CuboidSnapshot#getSectionIndex(int)
+     */
+    boolean forEach(@NotNull final ChunkSnapshot chunk, final int section, @NotNull final Visitor visitor) {
+        final int x1 = Math.max(this.minX, chunk.getX() << 4), x2 = Math.min(this.maxX, (chunk.getX() << 4) + 15);
+        final int z1 = Math.max(this.minZ, chunk.getZ() << 4), z2 = Math.min(this.maxZ, (chunk.getZ() << 4) + 15);
+        final int sectionY = ((this.minY >> 4) + section) << 4;
+        final int y1 = Math.max(this.minY, sectionY), y2 = Math.min(this.maxY, sectionY + 15);
+        for (int y = y1; y <= y2; y++) {
+            for (int z = z1; z <= z2; z++) {
+                for (int x = x1; x <= x2; x++) {
+                    if (!visitor.visit(chunk, x, y, z)) return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get all the blocks present in the snapshot of the given Material.
+     * @param material The Material.
+     * @return A list of all the matching blocks found.
+     * @see Cuboid#getBlocks(Material)
+     */
+    public @NotNull List<Block> getBlocks(@NotNull final Material material) {
+        final List<Block> blocks = new ArrayList<>();
+        forEach((chunk, x, y, z) -> {
+            if (chunk.getBlockType(x & 0xf, y, z & 0xf) == material) blocks.add(this.world.getBlockAt(x, y, z));
+            return true;
+        }, !material.isAir());
+        return blocks;
+    }
+
+    /**
+     * Get all the blocks in the snapshot.
+     * @param includeAir Whether blocks of the type {@link Material#AIR} should be included in the list.
+     * @return A list of all blocks in the snapshot.
+     * @see Cuboid#getBlocks(boolean)
+     */
+    public @NotNull List<Block> getBlocks(final boolean includeAir) {
+        final List<Block> blocks = new ArrayList<>();
+        forEach((chunk, x, y, z) -> {
+            if (includeAir || chunk.getBlockType(x & 0xf, y, z & 0xf) != Material.AIR) blocks.add(this.world.getBlockAt(x, y, z));
+            return true;
+        });
+        return blocks;
+    }
+
+    /**
+     * Get the average light level of all empty blocks in the snapshot. Returns 0 if there are no empty blocks.
+     * @return The average light level of the snapshot.
+     * @see Cuboid#getAverageLightLevel()
+     * @see CuboidSnapshot#getLightLevel(int, int, int)
+     */
+    public byte getAverageLightLevel() {
+        final long[] total = new long[2];
+        forEach((chunk, x, y, z) -> {
+            final int lx = x & 0xf, lz = z & 0xf;
+            if (chunk.getBlockType(lx, y, lz).isAir()) {
+                total[0] += Math.max(chunk.getBlockSkyLight(lx, y, lz), chunk.getBlockEmittedLight(lx, y, lz));
+                ++total[1];
+            }
+            return true;
+        });
+        return total[1] > 0 ? (byte) (total[0] / total[1]) : 0;
+    }
+
+    /**
+     * Check if the snapshot contains only blocks of the given type.
+     * @param material The Material to check for.
+     * @return True if the snapshot contains only blocks of the given type, otherwise false.
+     */
+    public boolean containsOnly(@NotNull final Material material) {
+        return forEach((chunk, x, y, z) -> chunk.getBlockType(x & 0xf, y, z & 0xf) == material);
+    }
+
+    /**
+     * Check if the snapshot contains only air, of any kind.
+     * @return True if every block in the snapshot is air, otherwise false.
+     */
+    public boolean containsOnlyAir() {
+        return forEach((chunk, x, y, z) -> chunk.getBlockType(x & 0xf, y, z & 0xf).isAir(), true);
+    }
+
+    /**
+     * Contract the snapshot, returning a Cuboid with any air around the edges removed, just large enough to include all non-air blocks.<br><br>
+     * <p>
+     * All six bounds are found in a single pass. Sections containing only air are skipped, each row along the X-axis is only scanned
+     * from both ends until a non-air block is found, and rows already within the found bounds are only scanned outside of them.
+     * @return A new Cuboid with no external air blocks.
+     * @see Cuboid#contract()
+     */
+    public @NotNull Cuboid contract() {
+        int boundMinX = Integer.MAX_VALUE, boundMinY = Integer.MAX_VALUE, boundMinZ = Integer.MAX_VALUE;
+        int boundMaxX = Integer.MIN_VALUE, boundMaxY = Integer.MIN_VALUE, boundMaxZ = Integer.MIN_VALUE;
+        for (final ChunkSnapshot chunk : this.chunks) {
+            final int x1 = Math.max(this.minX, chunk.getX() << 4), x2 = Math.min(this.maxX, (chunk.getX() << 4) + 15);
+            final int z1 = Math.max(this.minZ, chunk.getZ() << 4), z2 = Math.min(this.maxZ, (chunk.getZ() << 4) + 15);
+            for (int section = this.maxY >> 4; section >= this.minY >> 4; section--) {
+                if (chunk.isSectionEmpty(section - this.minSection)) continue;
+                final int y1 = Math.max(this.minY, section << 4), y2 = Math.min(this.maxY, (section << 4) | 0xf);
+                for (int y = y1; y <= y2; y++) {
+                    for (int z = z1; z <= z2; z++) {
+                        final int lz = z & 0xf;
+                        if (y >= boundMinY && y <= boundMaxY && z >= boundMinZ && z <= boundMaxZ) {
+                            // The row is within the found bounds, and can only extend them along the X-axis.
+                            for (int x = x1, end = Math.min(x2, boundMinX - 1); x <= end; x++) {
+                                if (chunk.getBlockType(x & 0xf, y, lz).isAir()) continue;
+                                boundMinX = x;
+                                break;
+                            }
+                            for (int x = x2, end = Math.max(x1, boundMaxX + 1); x >= end; x--) {
+                                if (chunk.getBlockType(x & 0xf, y, lz).isAir()) continue;
+                                boundMaxX = x;
+                                break;
+                            }
+                            continue;
+                        }
+                        int left = x1;
+                        while (left <= x2 && chunk.getBlockType(left & 0xf, y, lz).isAir()) left++;
+                        if (left > x2) continue;
+                        int right = x2;
+                        while (right > left && chunk.getBlockType(right & 0xf, y, lz).isAir()) right--;
+                        boundMinX = Math.min(boundMinX, left);
+                        boundMaxX = Math.max(boundMaxX, right);
+                        boundMinY = Math.min(boundMinY, y);
+                        boundMaxY = Math.max(boundMaxY, y);
+                        boundMinZ = Math.min(boundMinZ, z);
+                        boundMaxZ = Math.max(boundMaxZ, z);
+                    }
+                }
+            }
+        }
+        if (boundMinX == Integer.MAX_VALUE) {
+            return Cuboid.create(this.world, this.cuboid.getUpperX(), this.cuboid.getLowerY(), this.cuboid.getUpperZ(),
+                    this.cuboid.getUpperX(), this.cuboid.getLowerY(), this.cuboid.getUpperZ());
+        }
+        return Cuboid.create(this.world, boundMinX, boundMinY, boundMinZ, boundMaxX, boundMaxY, boundMaxZ);
+    }
+
+    /**
+     * Visits positions of a {@link CuboidSnapshot}.
+     */
+    @FunctionalInterface
+    public interface Visitor {
+        /**
+         * Visit a position of the snapshot.
+         * @param chunk The chunk containing the position. Block coordinates within the chunk are {@code x & 0xf} and {@code z & 0xf}.
+         * @param x     The X coordinate.
+         * @param y     The Y coordinate.
+         * @param z     The Z coordinate.
+         * @return True to continue visiting, or false to stop.
+         */
+        boolean visit(@NotNull ChunkSnapshot chunk, int x, int y, int z);
+    }
+}
@@ -0,0 +1,214 @@
+package dev.prodzeus.utilities.world;
+
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Material;
+import org.bukkit.block.Biome;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Statistics of a {@link Cuboid}, computed in a single pass over a {@link CuboidSnapshot}.<br><br>
+ * <p>
+ * Includes a histogram of every {@link Material}, the number of air and solid blocks, the average light level of all empty blocks,
+ * and the distribution of {@link Biome}s if the snapshot was captured with biomes.
+ * The pass is split into one {@link ForkJoinPool} task per chunk, which are run in parallel and merged afterward.
+ *
+ * @author prodzeus
+ */
+@SuppressWarnings("unused")
+public final class CuboidStats {
+
+    private static final Material[] MATERIALS = Material.values();
+    /**
+     * The biome cell before the first position of a chunk, which no position maps to.
+     */
+    static final int NO_CELL = Integer.MIN_VALUE;
+
+    private final long[] materials;
+    private final Map<Biome, long[]> biomes;
+    private long blocks, air, solid;
+    private long lightTotal;
+
+    private CuboidStats() {
+        this.materials = new long[MATERIALS.length];
+        this.biomes = new HashMap<>();
+    }
+
+    /**
+     * Compute the statistics of the given snapshot, using the common {@link ForkJoinPool}.
+     * @param snapshot The snapshot.
+     * @return The statistics of the snapshot.
+     */
+    public static @NotNull CuboidStats compute(@NotNull final CuboidSnapshot snapshot) {
+        return compute(snapshot, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Compute the statistics of the given snapshot, using the given {@link ForkJoinPool}.
+     * @param snapshot The snapshot.
+     * @param pool     The pool to run the tasks in.
+     * @return The statistics of the snapshot.
+     */
+    public static @NotNull CuboidStats compute(@NotNull final CuboidSnapshot snapshot, @NotNull final ForkJoinPool pool) {
+        return pool.invoke(new StatsTask(snapshot, 0, snapshot.getChunkCount()));
+    }
+
+    /**
+     * Get the number of blocks of the given Material.
+     * @param material The Material.
+     * @return The number of blocks.
+     */
+    public long getCount(@NotNull final Material material) {
+        return this.materials[material.ordinal()];
+    }
+
+    /**
+     * Get the histogram of every Material found, mapped to the number of blocks.
+     * @return An unmodifiable map of the histogram.
+     */
+    public @NotNull Map<Material, Long> getMaterials() {
+        final EnumMap<Material, Long> histogram = new EnumMap<>(Material.class);
+        for (int i = 0; i < this.materials.length; i++) {
+            if (this.materials[i] > 0) histogram.put(MATERIALS[i], this.materials[i]);
+        }
+        return Collections.unmodifiableMap(histogram);
+    }
+
+    /**
+     * Get the distribution of every Biome found, mapped to the number of blocks.
+     * @return An unmodifiable map of the distribution, which is empty if the snapshot was captured without biomes.
+     */
+    public @NotNull Map<Biome, Long> getBiomes() {
+        final Map<Biome, Long> distribution = new HashMap<>();
+        this.biomes.forEach((biome, count) -> distribution.put(biome, count[0]));
+        return Collections.unmodifiableMap(distribution);
+    }
+
+    /**
+     * Get the total number of blocks.
+     * @return The number of blocks.
+     */
+    public long getBlockCount() {
+        return this.blocks;
+    }
+
+    /**
+     * Get the number of air blocks, of any kind.
+     * @return The number of air blocks.
+     */
+    public long getAirCount() {
+        return this.air;
+    }
+
+    /**
+     * Get the number of solid blocks.
+     * @return The number of solid blocks.
+     * @see Material#isSolid()
+     */
+    public long getSolidCount() {
+        return this.solid;
+    }
+
+    /**
+     * Get the average light level of all empty blocks. Returns 0 if there are no empty blocks.
+     * @return The average light level.
+     * @see CuboidSnapshot#getAverageLightLevel()
+     */
+    public byte getAverageLightLevel() {
+        return this.air > 0 ? (byte) (this.lightTotal / this.air) : 0;
+    }
+
+    /**
+     * Get the total light level of all empty blocks.
+     */
+    long getLightTotal() {
+        return this.lightTotal;
+    }
+
+    /**
+     * Add the statistics of the given chunk.
+     */
+    private void accumulate(@NotNull final CuboidSnapshot snapshot, @NotNull final ChunkSnapshot chunk) {
+        final boolean includeBiomes = snapshot.hasBiomes();
+        snapshot.forEach(chunk, new CuboidSnapshot.Visitor() {
+            // Biomes are stored per 4x4x4 blocks, so the last one is reused until the position leaves its cell.
+            private int cell = NO_CELL;
+            private long[] counter;
+
+            @Override
+            public boolean visit(@NotNull final ChunkSnapshot chunk, final int x, final int y, final int z) {
+                final int lx = x & 0xf, lz = z & 0xf;
+                final Material type = chunk.getBlockType(lx, y, lz);
+                ++materials[type.ordinal()];
+                ++blocks;
+                if (type.isAir()) {
+                    ++air;
+                    lightTotal += Math.max(chunk.getBlockSkyLight(lx, y, lz), chunk.getBlockEmittedLight(lx, y, lz));
+                } else if (type.isSolid()) {
+                    ++solid;
+                }
+                if (includeBiomes) {
+                    final int next = biomeCell(lx, y, lz);
+                    if (next != cell) {
+                        cell = next;
+                        counter = biomes.computeIfAbsent(chunk.getBiome(lx, y, lz), biome -> new long[1]);
+                    }
+                    ++counter[0];
+                }
+                return true;
+            }
+        }, false);
+    }
+
+    /**
+     * Get the 4x4x4 biome cell of the given position within its chunk. Cells below Y 0 are negative, but never {@link #NO_CELL}.
+     */
+    static int biomeCell(final int x, final int y, final int z) {
+        return ((y >> 2) << 4) | ((z >> 2) << 2) | (x >> 2);
+    }
+
+    /**
+     * Merge the statistics of another instance into this one.
+     */
+    private @NotNull CuboidStats merge(@NotNull final CuboidStats other) {
+        for (int i = 0; i < this.materials.length; i++) this.materials[i] += other.materials[i];
+        other.biomes.forEach((biome, count) -> this.biomes.computeIfAbsent(biome, key -> new long[1])[0] += count[0]);
+        this.blocks += other.blocks;
+        this.air += other.air;
+        this.solid += other.solid;
+        this.lightTotal += other.lightTotal;
+        return this;
+    }
+
+    /**
+     * Computes the statistics of a range of chunks, splitting the range in half until a single chunk remains.
+     */
+    private static final class StatsTask extends RecursiveTask<CuboidStats> {
+
+        private final CuboidSnapshot snapshot;
+        private final int from, to;
+
+        private StatsTask(@NotNull final CuboidSnapshot snapshot, final int from, final int to) {
+            this.snapshot = snapshot;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected CuboidStats compute() {
+            if (to - from <= 1) {
+                final CuboidStats stats = new CuboidStats();
+                for (int i = from; i < to; i++) stats.accumulate(snapshot, snapshot.getChunkAt(i));
+                return stats;
+            }
+            final int middle = (from + to) >>> 1;
+            final StatsTask left = new StatsTask(snapshot, from, middle);
+            left.fork();
+            final CuboidStats right = new StatsTask(snapshot, middle, to).compute();
+            return left.join().merge(right);
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package dev.prodzeus.utilities.world;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.IntConsumer;
+
+/**
+ * A persistent store of {@link Cuboid}s, kept as fixed-width binary records in a memory-mapped file.<br><br>
+ * <p>
+ * Every Cuboid is identified by the index of its record. Records are appended, overwritten in place, or removed by marking them as tombstones,
+ * so the id of a Cuboid never changes. Opening a store only maps the file and validates its header;
+ * no record is read until its Cuboid is requested through {@link #get(int)}.
+ * This keeps startup independent of the number of stored Cuboids, and the catalogue out of the heap.<br><br>
+ * <p>
+ * Every record holds the world name, up to {@value #MAX_WORLD_NAME_LENGTH} bytes of UTF-8, and the bounds of the Cuboid.
+ * A store must be closed once no longer used. Stores are thread-safe.
+ *
+ * @author prodzeus
+ */
+@SuppressWarnings("unused")
+public final class CuboidStore implements Closeable {
+
+    /**
+     * The maximum length of a world name, in bytes of UTF-8.
+     */
+    public static final int MAX_WORLD_NAME_LENGTH = 62;
+
+    private static final int MAGIC = 0x43535452;
+    private static final short VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int RECORD_SIZE = 2 + MAX_WORLD_NAME_LENGTH + 6 * Double.BYTES;
+    private static final int MIN_CAPACITY = 256;
+
+    private static final byte EMPTY = 0, LIVE = 1, TOMBSTONE = 2;
+
+    private final Path path;
+    private final FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int capacity;
+    private int count;
+    private int live;
+    private boolean closed = false;
+
+    private CuboidStore(@NotNull final Path path, @NotNull final FileChannel channel) {
+        this.path = path;
+        this.channel = channel;
+    }
+
+    /**
+     * Open the store of the given file, creating it if it does not exist.
+     * @param path The path of the file.
+     * @return The store.
+     * @throws IOException If the file could not be opened, or is not a store.
+     */
+    public static @NotNull CuboidStore open(@NotNull final Path path) throws IOException {
+        final FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        final CuboidStore store = new CuboidStore(path, channel);
+        try {
+            store.load();
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        return store;
+    }
+
+    private void load() throws IOException {
+        final long size = this.channel.size();
+        if (size == 0) {
+            map(MIN_CAPACITY);
+            this.buffer.putInt(0, MAGIC);
+            this.buffer.putShort(4, VERSION);
+            this.buffer.putShort(6, (short) RECORD_SIZE);
+            this.buffer.putInt(8, 0);
+            return;
+        }
+        if (size < HEADER_SIZE) throw new IOException("Not a Cuboid store: " + this.path);
+        map((int) Math.max(MIN_CAPACITY, (size - HEADER_SIZE) / RECORD_SIZE));
+        if (this.buffer.getInt(0) != MAGIC) throw new IOException("Not a Cuboid store: " + this.path);
+        final short version = this.buffer.getShort(4);
+        if (version != VERSION) throw new IOException("Unsupported Cuboid store version " + version + ": " + this.path);
+        if (this.buffer.getShort(6) != RECORD_SIZE) throw new IOException("Corrupt Cuboid store: " + this.path);
+        this.count = this.buffer.getInt(8);
+        if (this.count < 0 || this.count > this.capacity) throw new IOException("Corrupt Cuboid store: " + this.path);
+        // Live records are counted once, without decoding them.
+        for (int id = 0; id < this.count; id++) {
+            if (this.buffer.get(offset(id)) == LIVE) ++this.live;
+        }
+    }
+
+    /**
+     * Get the path of the file.
+     * @return The path.
+     */
+    public @NotNull Path getPath() {
+        return this.path;
+    }
+
+    /**
+     * Get the number of records, including removed ones. Ids range from 0 up to, but excluding, this number.
+     * @return The number of records.
+     */
+    public synchronized int size() {
+        return this.count;
+    }
+
+    /**
+     * Get the number of stored Cuboids, excluding removed ones.
+     * @return The number of Cuboids.
+     */
+    public synchronized int getLiveCount() {
+        return this.live;
+    }
+
+    /**
+     * Append the given Cuboid to the store.
+     * @param cuboid The Cuboid.
+     * @return The id of the Cuboid.
+     * @throws IOException              If the file could not be grown.
+     * @throws IllegalArgumentException If the world name of the Cuboid is too long.
+     */
+    public synchronized int append(@NotNull final Cuboid cuboid) throws IOException {
+        ensureOpen();
+        final byte[] name = encode(cuboid);
+        if (this.count == this.capacity) map(this.capacity << 1);
+        final int id = this.count;
+        write(id, name, cuboid);
+        this.buffer.putInt(8, ++this.count);
+        ++this.live;
+        return id;
+    }
+
+    /**
+     * Overwrite the Cuboid of the given id, keeping its id. A removed id is restored.
+     * @param id     The id.
+     * @param cuboid The Cuboid.
+     * @throws IndexOutOfBoundsException If the id is out of range.
+     * @throws IllegalArgumentException  If the world name of the Cuboid is too long.
+     */
+    public synchronized void set(final int id, @NotNull final Cuboid cuboid) {
+        ensureOpen();
+        checkId(id);
+        final byte[] name = encode(cuboid);
+        if (this.buffer.get(offset(id)) != LIVE) ++this.live;
+        write(id, name, cuboid);
+    }
+
+    /**
+     * Remove the Cuboid of the given id, marking its record as a tombstone. The id is not reused.
+     * @param id The id.
+     * @return True if the Cuboid was stored.
+     * @throws IndexOutOfBoundsException If the id is out of range.
+     */
+    public synchronized boolean remove(final int id) {
+        ensureOpen();
+        checkId(id);
+        final int offset = offset(id);
+        if (this.buffer.get(offset) != LIVE) return false;
+        this.buffer.put(offset, TOMBSTONE);
+        --this.live;
+        return true;
+    }
+
+    /**
+     * Check if a Cuboid is stored for the given id.
+     * @param id The id.
+     * @return True | False
+     */
+    public synchronized boolean contains(final int id) {
+        ensureOpen();
+        return id >= 0 && id < this.count && this.buffer.get(offset(id)) == LIVE;
+    }
+
+    /**
+     * Read the Cuboid of the given id.
+     * @param id The id.
+     * @return A new Cuboid, or null if the id has been removed.
+     * @throws IndexOutOfBoundsException If the id is out of range.
+     */
+    public synchronized @Nullable Cuboid get(final int id) {
+        ensureOpen();
+        checkId(id);
+        final int offset = offset(id);
+        if (this.buffer.get(offset) != LIVE) return null;
+        return Cuboid.create(readWorldName(offset),
+                this.buffer.getDouble(offset + 64), this.buffer.getDouble(offset + 72), this.buffer.getDouble(offset + 80),
+                this.buffer.getDouble(offset + 88), this.buffer.getDouble(offset + 96), this.buffer.getDouble(offset + 104));
+    }
+
+    /**
+     * Read the world name of the Cuboid of the given id, without reading its bounds.
+     * @param id The id.
+     * @return The world's name, or null if the id has been removed.
+     * @throws IndexOutOfBoundsException If the id is out of range.
+     */
+    public synchronized @Nullable String getWorldName(final int id) {
+        ensureOpen();
+        checkId(id);
+        final int offset = offset(id);
+        return this.buffer.get(offset) == LIVE ? readWorldName(offset) : null;
+    }
+
+    /**
+     * Perform the given action for the id of every stored Cuboid, in ascending order.
+     * @param action The action.
+     */
+    public synchronized void forEachId(@NotNull final IntConsumer action) {
+        ensureOpen();
+        for (int id = 0; id < this.count; id++) {
+            if (this.buffer.get(offset(id)) == LIVE) action.accept(id);
+        }
+    }
+
+    /**
+     * Write every pending change to the file.
+     */
+    public synchronized void force() {
+        ensureOpen();
+        this.buffer.force();
+    }
+
+    /**
+     * Write every pending change to the file, and close the store. Closing more than once has no effect.
+     * @throws IOException If the file could not be closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (this.closed) return;
+        this.closed = true;
+        this.buffer.force();
+        this.buffer = null;
+        this.channel.close();
+    }
+
+    private void write(final int id, final byte @NotNull [] name, @NotNull final Cuboid cuboid) {
+        final int offset = offset(id);
+        this.buffer.put(offset + 1, (byte) name.length);
+        this.buffer.put(offset + 2, name, 0, name.length);
+        this.buffer.putDouble(offset + 64, cuboid.getLowerX());
+        this.buffer.putDouble(offset + 72, cuboid.getLowerY());
+        this.buffer.putDouble(offset + 80, cuboid.getLowerZ());
+        this.buffer.putDouble(offset + 88, cuboid.getUpperX());
+        this.buffer.putDouble(offset + 96, cuboid.getUpperY());
+        this.buffer.putDouble(offset + 104, cuboid.getUpperZ());
+        // The record is only marked as live once complete.
+        this.buffer.put(offset, LIVE);
+    }
+
+    private @NotNull String readWorldName(final int offset) {
+        final byte[] name = new byte[this.buffer.get(offset + 1) & 0xFF];
+        this.buffer.get(offset + 2, name, 0, name.length);
+        return new String(name, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Map the file with room for the given number of records, growing the file if needed.
+     */
+    private void map(final int capacity) throws IOException {
+        this.buffer = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) capacity * RECORD_SIZE);
+        this.capacity = capacity;
+    }
+
+    private void ensureOpen() {
+        if (this.closed) throw new IllegalStateException("Cuboid store is closed!");
+    }
+
+    private void checkId(final int id) {
+        if (id < 0 || id >= this.count) throw new IndexOutOfBoundsException("Id " + id + " out of range for " + this.count + " records!");
+    }
+
+    private static int offset(final int id) {
+        return HEADER_SIZE + id * RECORD_SIZE;
+    }
+
+    private static byte @NotNull [] encode(@NotNull final Cuboid cuboid) {
+        final byte[] name = cuboid.getWorldName().getBytes(StandardCharsets.UTF_8);
+        if (name.length > MAX_WORLD_NAME_LENGTH) throw new IllegalArgumentException("World name is longer than " + MAX_WORLD_NAME_LENGTH + " bytes!");
+        return name;
+    }
+}
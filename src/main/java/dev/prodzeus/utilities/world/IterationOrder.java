@@ -0,0 +1,29 @@
+package dev.prodzeus.utilities.world;
+
+/**
+ * The order in which the block positions of a {@link Cuboid} are visited.<br><br>
+ * <p>
+ * Reads and writes backed by chunk sections are fastest when every 16x16x16 section is visited once,
+ * rather than returning to it for every row, as the {@link #LINEAR} order does for Cuboids spanning several chunks.
+ *
+ * @author prodzeus
+ */
+public enum IterationOrder {
+    /**
+     * Along the X-axis first, then the Y-axis, then the Z-axis, across the whole Cuboid.
+     * This is the order of {@link Cuboid#iterator()}.
+     */
+    LINEAR,
+    /**
+     * One chunk at a time, along the Z-axis first, then the X-axis.
+     * Within each chunk, along the X-axis first, then the Z-axis, then the Y-axis, which visits each section of the chunk once, bottom to top.
+     * This is the order of {@link CuboidSnapshot#forEach(CuboidSnapshot.Visitor)}.
+     */
+    CHUNK_SECTION,
+    /**
+     * One chunk section at a time, in the same order as {@link #CHUNK_SECTION},
+     * with the positions within each section visited along a Z-order (Morton) curve.
+     * Consecutive positions stay within small 2x2x2, 4x4x4 and 8x8x8 blocks, rather than spanning whole rows.
+     */
+    MORTON
+}
@@ -0,0 +1,317 @@
+package dev.prodzeus.utilities.world;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.entity.EntityDismountEvent;
+import org.bukkit.event.player.*;
+import org.bukkit.event.vehicle.VehicleMoveEvent;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/**
+ * Keeps a live set of the players inside each of a set of {@link Cuboid}s, updated as players move, ride, teleport, respawn, join and quit.<br><br>
+ * <p>
+ * Players are only looked up through a {@link CuboidIndex} once they move to another block,
+ * and not at all while they are outside every Cuboid in a chunk containing none.
+ * Queries of the occupants of a Cuboid, or the Cuboids of a player, are answered from the live sets without any lookup.
+ * Listeners are notified whenever a player enters or leaves a Cuboid.<br><br>
+ * <p>
+ * Only players are tracked. The tracker must only be used from the main thread.
+ *
+ * @author prodzeus
+ */
+@SuppressWarnings("unused")
+public final class OccupancyTracker implements Listener {
+
+    private final Plugin plugin;
+    private final CuboidIndex index = new CuboidIndex();
+    private final Map<Cuboid, Set<Player>> occupants = new IdentityHashMap<>();
+    private final Map<UUID, State> players = new HashMap<>();
+    private final List<OccupancyListener> listeners = new ArrayList<>();
+    /**
+     * Incremented whenever a Cuboid is tracked or untracked, invalidating the cached chunk of every player.
+     */
+    private int version = 0;
+
+    private OccupancyTracker(@NotNull final Plugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Create a tracker and register its listeners.
+     * @param plugin The plugin instance.
+     * @return The tracker.
+     */
+    public static @NotNull OccupancyTracker create(@NotNull final Plugin plugin) {
+        final OccupancyTracker tracker = new OccupancyTracker(plugin);
+        Bukkit.getPluginManager().registerEvents(tracker, plugin);
+        return tracker;
+    }
+
+    /**
+     * Unregister the listeners of the tracker, and stop tracking every Cuboid.
+     */
+    public void unregister() {
+        HandlerList.unregisterAll(this);
+        this.index.clear();
+        this.occupants.clear();
+        this.players.clear();
+    }
+
+    /**
+     * Start tracking the given Cuboid. Online players already inside the Cuboid are added as occupants, notifying the listeners.
+     * @param cuboid The Cuboid.
+     * @return True if the Cuboid was not already tracked.
+     */
+    public boolean track(@NotNull final Cuboid cuboid) {
+        if (!this.index.add(cuboid)) return false;
+        this.occupants.put(cuboid, new HashSet<>());
+        ++this.version;
+        for (final Player player : Bukkit.getOnlinePlayers()) {
+            if (!cuboid.contains(player.getLocation())) continue;
+            state(player).regions.add(cuboid);
+            enter(player, cuboid);
+        }
+        return true;
+    }
+
+    /**
+     * Stop tracking the given Cuboid. The listeners are not notified.
+     * @param cuboid The Cuboid.
+     * @return True if the Cuboid was tracked.
+     */
+    public boolean untrack(@NotNull final Cuboid cuboid) {
+        if (!this.index.remove(cuboid)) return false;
+        for (final Player player : this.occupants.remove(cuboid)) {
+            final State state = this.players.get(player.getUniqueId());
+            if (state != null) state.regions.removeIf(region -> region == cuboid);
+        }
+        ++this.version;
+        return true;
+    }
+
+    /**
+     * Check if the given Cuboid is tracked.
+     * @param cuboid The Cuboid.
+     * @return True | False
+     */
+    public boolean isTracking(@NotNull final Cuboid cuboid) {
+        return this.index.contains(cuboid);
+    }
+
+    /**
+     * Add a listener notified whenever a player enters or leaves a tracked Cuboid.
+     * @param listener The listener.
+     */
+    public void addListener(@NotNull final OccupancyListener listener) {
+        this.listeners.add(listener);
+    }
+
+    /**
+     * Remove a listener.
+     * @param listener The listener.
+     * @return True if the listener was registered.
+     */
+    public boolean removeListener(@NotNull final OccupancyListener listener) {
+        return this.listeners.remove(listener);
+    }
+
+    /**
+     * Get the players inside the given Cuboid.
+     * @param cuboid The Cuboid.
+     * @return An unmodifiable view of the players.
+     * @throws IllegalArgumentException If the Cuboid is not tracked.
+     */
+    public @NotNull Set<Player> getOccupants(@NotNull final Cuboid cuboid) {
+        return Collections.unmodifiableSet(get(cuboid));
+    }
+
+    /**
+     * Get the number of players inside the given Cuboid.
+     * @param cuboid The Cuboid.
+     * @return The number of players.
+     * @throws IllegalArgumentException If the Cuboid is not tracked.
+     */
+    public int getOccupantCount(@NotNull final Cuboid cuboid) {
+        return get(cuboid).size();
+    }
+
+    /**
+     * Check if the given Cuboid has no players inside.
+     * @param cuboid The Cuboid.
+     * @return True | False
+     * @throws IllegalArgumentException If the Cuboid is not tracked.
+     */
+    public boolean isEmpty(@NotNull final Cuboid cuboid) {
+        return get(cuboid).isEmpty();
+    }
+
+    /**
+     * Check if the given player is inside the given Cuboid.
+     * @param player The player.
+     * @param cuboid The Cuboid.
+     * @return True | False
+     * @throws IllegalArgumentException If the Cuboid is not tracked.
+     */
+    public boolean isInside(@NotNull final Player player, @NotNull final Cuboid cuboid) {
+        return get(cuboid).contains(player);
+    }
+
+    /**
+     * Get the tracked Cuboids the given player is inside.
+     * @param player The player.
+     * @return An unmodifiable view of the Cuboids.
+     */
+    public @NotNull List<Cuboid> getRegions(@NotNull final Player player) {
+        final State state = this.players.get(player.getUniqueId());
+        return state == null ? List.of() : Collections.unmodifiableList(state.regions);
+    }
+
+    private @NotNull Set<Player> get(@NotNull final Cuboid cuboid) {
+        final Set<Player> players = this.occupants.get(cuboid);
+        if (players == null) throw new IllegalArgumentException("Cuboid is not tracked!");
+        return players;
+    }
+
+    private @NotNull State state(@NotNull final Player player) {
+        return this.players.computeIfAbsent(player.getUniqueId(), uuid -> new State());
+    }
+
+    /**
+     * Move the given player to the given location, notifying the listeners of every Cuboid entered or left.
+     */
+    private void update(@NotNull final Player player, @NotNull final Location to) {
+        final State state = state(player);
+        final String worldName = to.getWorld().getName();
+        final int x = to.getBlockX(), y = to.getBlockY(), z = to.getBlockZ();
+        if (x == state.x && y == state.y && z == state.z && worldName.equals(state.worldName)) return;
+        if (state.version != this.version || (x >> 4) != (state.x >> 4) || (z >> 4) != (state.z >> 4) || !worldName.equals(state.worldName)) {
+            state.inRegionChunk = this.index.hasRegionsInChunk(worldName, x >> 4, z >> 4);
+            state.version = this.version;
+        }
+        state.worldName = worldName;
+        state.x = x;
+        state.y = y;
+        state.z = z;
+        if (!state.inRegionChunk && state.regions.isEmpty()) return;
+
+        final List<Cuboid> now = state.inRegionChunk ? this.index.getRegionsAt(worldName, x, y, z) : new ArrayList<>();
+        for (final Cuboid cuboid : state.regions) {
+            if (!containsIdentity(now, cuboid)) leave(player, cuboid);
+        }
+        for (final Cuboid cuboid : now) {
+            if (!containsIdentity(state.regions, cuboid)) enter(player, cuboid);
+        }
+        state.regions = now;
+    }
+
+    private void enter(@NotNull final Player player, @NotNull final Cuboid cuboid) {
+        this.occupants.get(cuboid).add(player);
+        for (final OccupancyListener listener : this.listeners) listener.onEnter(player, cuboid);
+    }
+
+    private void leave(@NotNull final Player player, @NotNull final Cuboid cuboid) {
+        this.occupants.get(cuboid).remove(player);
+        for (final OccupancyListener listener : this.listeners) listener.onLeave(player, cuboid);
+    }
+
+    private static boolean containsIdentity(@NotNull final List<Cuboid> regions, @NotNull final Cuboid cuboid) {
+        for (final Cuboid region : regions) {
+            if (region == cuboid) return true;
+        }
+        return false;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onMove(final PlayerMoveEvent e) {
+        update(e.getPlayer(), e.getTo());
+    }
+
+    /**
+     * Players riding a vehicle do not move themselves, so they are moved along with the vehicle.
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onVehicleMove(final VehicleMoveEvent e) {
+        for (final Entity passenger : e.getVehicle().getPassengers()) {
+            if (passenger instanceof Player player) update(player, e.getTo());
+        }
+    }
+
+    /**
+     * Players are placed beside the vehicle only after dismounting, so they are updated on the next tick.
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onDismount(final EntityDismountEvent e) {
+        if (!(e.getEntity() instanceof Player player)) return;
+        Bukkit.getScheduler().runTask(this.plugin, () -> {
+            if (player.isOnline()) update(player, player.getLocation());
+        });
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onTeleport(final PlayerTeleportEvent e) {
+        update(e.getPlayer(), e.getTo());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onRespawn(final PlayerRespawnEvent e) {
+        update(e.getPlayer(), e.getRespawnLocation());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChangedWorld(final PlayerChangedWorldEvent e) {
+        update(e.getPlayer(), e.getPlayer().getLocation());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onJoin(final PlayerJoinEvent e) {
+        update(e.getPlayer(), e.getPlayer().getLocation());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(final PlayerQuitEvent e) {
+        final State state = this.players.remove(e.getPlayer().getUniqueId());
+        if (state == null) return;
+        for (final Cuboid cuboid : state.regions) leave(e.getPlayer(), cuboid);
+    }
+
+    /**
+     * Listens for players entering and leaving the tracked Cuboids.
+     */
+    public interface OccupancyListener {
+        /**
+         * Called on the main thread when a player enters a tracked Cuboid.
+         * @param player The player.
+         * @param cuboid The Cuboid entered.
+         */
+        default void onEnter(@NotNull Player player, @NotNull Cuboid cuboid) {
+        }
+
+        /**
+         * Called on the main thread when a player leaves a tracked Cuboid, including when quitting.
+         * @param player The player.
+         * @param cuboid The Cuboid left.
+         */
+        default void onLeave(@NotNull Player player, @NotNull Cuboid cuboid) {
+        }
+    }
+
+    /**
+     * The last known position of a player, and the Cuboids containing it.
+     */
+    private static final class State {
+        private String worldName = null;
+        private int x, y, z;
+        private int version = -1;
+        private boolean inRegionChunk = false;
+        private List<Cuboid> regions = new ArrayList<>();
+    }
+}
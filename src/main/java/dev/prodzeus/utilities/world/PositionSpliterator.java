@@ -0,0 +1,105 @@
+package dev.prodzeus.utilities.world;
+
+import dev.prodzeus.utilities.world.util.BlockKey;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Spliterator;
+import java.util.function.LongConsumer;
+
+/**
+ * A spliterator over the packed block positions of a box, see {@link BlockKey}, in the {@link IterationOrder#CHUNK_SECTION} order.<br><br>
+ * <p>
+ * The box is split along chunk boundaries, first halving its chunks along the X-axis, then along the Z-axis,
+ * and once a single chunk column is left, halving its sections along the Y-axis.
+ * Every split is itself a box, so the size of both halves is known exactly, and no split ever shares a chunk section with another.
+ */
+final class PositionSpliterator implements Spliterator.OfLong {
+
+    private int minX, minY, minZ;
+    private final int maxX, maxY, maxZ;
+    private BlockCursor cursor = null;
+
+    /**
+     * Create a spliterator over the given bounds, which are all inclusive.
+     */
+    PositionSpliterator(final int minX, final int minY, final int minZ, final int maxX, final int maxY, final int maxZ) {
+        this.minX = minX;
+        this.minY = minY;
+        this.minZ = minZ;
+        this.maxX = maxX;
+        this.maxY = maxY;
+        this.maxZ = maxZ;
+    }
+
+    @Override
+    public boolean tryAdvance(@NotNull final LongConsumer action) {
+        final BlockCursor cursor = cursor();
+        if (!cursor.next()) return false;
+        action.accept(BlockKey.pack(cursor.x(), cursor.y(), cursor.z()));
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(@NotNull final LongConsumer action) {
+        final BlockCursor cursor = cursor();
+        while (cursor.next()) action.accept(BlockKey.pack(cursor.x(), cursor.y(), cursor.z()));
+    }
+
+    /**
+     * Split off the lower half of the remaining chunks, or sections if a single chunk column is left.
+     * Once traversal has started, the spliterator is no longer split.
+     */
+    @Override
+    public @Nullable PositionSpliterator trySplit() {
+        if (this.cursor != null) return null;
+        final int chunkX1 = this.minX >> 4, chunkX2 = this.maxX >> 4;
+        if (chunkX1 < chunkX2) {
+            final int split = (chunkX1 + ((chunkX2 - chunkX1 + 1) >> 1)) << 4;
+            final PositionSpliterator prefix = new PositionSpliterator(this.minX, this.minY, this.minZ, split - 1, this.maxY, this.maxZ);
+            this.minX = split;
+            return prefix;
+        }
+        final int chunkZ1 = this.minZ >> 4, chunkZ2 = this.maxZ >> 4;
+        if (chunkZ1 < chunkZ2) {
+            final int split = (chunkZ1 + ((chunkZ2 - chunkZ1 + 1) >> 1)) << 4;
+            final PositionSpliterator prefix = new PositionSpliterator(this.minX, this.minY, this.minZ, this.maxX, this.maxY, split - 1);
+            this.minZ = split;
+            return prefix;
+        }
+        final int section1 = this.minY >> 4, section2 = this.maxY >> 4;
+        if (section1 < section2) {
+            final int split = (section1 + ((section2 - section1 + 1) >> 1)) << 4;
+            final PositionSpliterator prefix = new PositionSpliterator(this.minX, this.minY, this.minZ, this.maxX, split - 1, this.maxZ);
+            this.minY = split;
+            return prefix;
+        }
+        return null;
+    }
+
+    @Override
+    public long estimateSize() {
+        return this.cursor == null ? size(this.minX, this.minY, this.minZ, this.maxX, this.maxY, this.maxZ)
+                : this.cursor.total() - this.cursor.visited();
+    }
+
+    @Override
+    public long getExactSizeIfKnown() {
+        return estimateSize();
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | DISTINCT | SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+    }
+
+    private @NotNull BlockCursor cursor() {
+        if (this.cursor == null) this.cursor = new BlockCursor(this.minX, this.minY, this.minZ, this.maxX, this.maxY, this.maxZ);
+        return this.cursor;
+    }
+
+    private static long size(final int minX, final int minY, final int minZ, final int maxX, final int maxY, final int maxZ) {
+        if (maxX < minX || maxY < minY || maxZ < minZ) return 0;
+        return (long) (maxX - minX + 1) * (maxY - minY + 1) * (maxZ - minZ + 1);
+    }
+}
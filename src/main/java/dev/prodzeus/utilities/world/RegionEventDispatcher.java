@@ -0,0 +1,321 @@
+package dev.prodzeus.utilities.world;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.block.Block;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockEvent;
+import org.bukkit.event.entity.EntityEvent;
+import org.bukkit.event.player.PlayerEvent;
+import org.bukkit.event.player.PlayerInteractEvent;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * Dispatches Bukkit events to handlers registered for specific {@link Cuboid}s, only calling the handlers of the regions an event happens in.<br><br>
+ * <p>
+ * A single listener is registered per event type, priority and cancellation filter, however many regions and handlers use it.
+ * When an event is fired, its position is resolved once, and looked up through a {@link CuboidIndex} of the regions with handlers for the event.
+ * Only the handlers of the matching regions are called, rather than every handler testing every region.
+ * The listener is unregistered as soon as its last handler is.<br><br>
+ * <p>
+ * The position of block, entity and player events is resolved automatically, using the clicked block of interactions where present.
+ * Other events require a {@link PositionResolver}, see {@link #setPositionResolver(Class, PositionResolver)}.
+ * The dispatcher must only be used from the main thread.
+ *
+ * @author prodzeus
+ */
+@SuppressWarnings("unused")
+public final class RegionEventDispatcher {
+
+    private static final EventPriority[] PRIORITIES = EventPriority.values();
+
+    private final Plugin plugin;
+    /**
+     * The channels of every event type, indexed by priority and cancellation filter.
+     */
+    private final Map<Class<? extends Event>, Channel<?>[]> channels = new HashMap<>();
+    private final Map<Class<? extends Event>, PositionResolver<?>> resolvers = new HashMap<>();
+
+    private RegionEventDispatcher(@NotNull final Plugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Create a dispatcher. Listeners are only registered once handlers are.
+     * @param plugin The plugin instance.
+     * @return The dispatcher.
+     */
+    public static @NotNull RegionEventDispatcher create(@NotNull final Plugin plugin) {
+        return new RegionEventDispatcher(plugin);
+    }
+
+    /**
+     * Set how the position of the given event type is resolved, replacing the default resolution.
+     * Must be set before handlers are registered for the event type.
+     * @param type     The event type.
+     * @param resolver The resolver.
+     * @throws IllegalStateException If handlers are already registered for the event type.
+     */
+    public <E extends Event> void setPositionResolver(@NotNull final Class<E> type, @NotNull final PositionResolver<E> resolver) {
+        if (this.channels.containsKey(type)) throw new IllegalStateException("Handlers are already registered for " + type.getSimpleName() + "!");
+        this.resolvers.put(type, resolver);
+    }
+
+    /**
+     * Register a handler for the given event type within the given region, at {@link EventPriority#NORMAL} priority, including cancelled events.
+     * @param region  The region.
+     * @param type    The event type.
+     * @param handler The handler.
+     * @return The registration, used for unregistering the handler.
+     * @throws IllegalArgumentException If the position of the event type cannot be resolved.
+     */
+    public <E extends Event> @NotNull Registration register(@NotNull final Cuboid region, @NotNull final Class<E> type,
+                                                           @NotNull final RegionHandler<E> handler) {
+        return register(region, type, EventPriority.NORMAL, false, handler);
+    }
+
+    /**
+     * Register a handler for the given event type within the given region.
+     * @param region          The region.
+     * @param type            The event type.
+     * @param priority        The priority of the handler.
+     * @param ignoreCancelled Whether cancelled events are skipped.
+     * @param handler         The handler.
+     * @return The registration, used for unregistering the handler.
+     * @throws IllegalArgumentException If the position of the event type cannot be resolved.
+     */
+    public <E extends Event> @NotNull Registration register(@NotNull final Cuboid region, @NotNull final Class<E> type,
+                                                           @NotNull final EventPriority priority, final boolean ignoreCancelled,
+                                                           @NotNull final RegionHandler<E> handler) {
+        final Channel<E> channel = channel(type, priority, ignoreCancelled);
+        channel.add(region, handler);
+        return new Registration(channel, region, handler);
+    }
+
+    /**
+     * Unregister every handler of the given region.
+     * @param region The region.
+     * @return True if any handler was registered for the region.
+     */
+    public boolean unregister(@NotNull final Cuboid region) {
+        boolean removed = false;
+        for (final Channel<?>[] channels : List.copyOf(this.channels.values())) {
+            for (final Channel<?> channel : channels) {
+                if (channel != null) removed |= channel.removeAll(region);
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Unregister every handler and listener.
+     */
+    public void unregisterAll() {
+        for (final Channel<?>[] channels : List.copyOf(this.channels.values())) {
+            for (final Channel<?> channel : channels) {
+                if (channel != null) channel.close();
+            }
+        }
+        this.channels.clear();
+    }
+
+    /**
+     * Get the number of listeners registered with the server.
+     * @return The number of listeners.
+     */
+    public int getListenerCount() {
+        int count = 0;
+        for (final Channel<?>[] channels : this.channels.values()) {
+            for (final Channel<?> channel : channels) {
+                if (channel != null) ++count;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Get the channel of the given event type, priority and cancellation filter, registering its listener if new.
+     */
+    @SuppressWarnings("unchecked")
+    private <E extends Event> @NotNull Channel<E> channel(@NotNull final Class<E> type, @NotNull final EventPriority priority, final boolean ignoreCancelled) {
+        final int slot = priority.ordinal() * 2 + (ignoreCancelled ? 1 : 0);
+        final Channel<?>[] channels = this.channels.get(type);
+        if (channels != null && channels[slot] != null) return (Channel<E>) channels[slot];
+
+        final PositionResolver<E> resolver = (PositionResolver<E>) this.resolvers.get(type);
+        if (resolver == null && !BlockEvent.class.isAssignableFrom(type) && !EntityEvent.class.isAssignableFrom(type)
+                && !PlayerEvent.class.isAssignableFrom(type)) {
+            throw new IllegalArgumentException("No position resolver for " + type.getSimpleName() + "!");
+        }
+        final Channel<E> channel = new Channel<>(type, slot, resolver);
+        this.channels.computeIfAbsent(type, key -> new Channel<?>[PRIORITIES.length * 2])[slot] = channel;
+        Bukkit.getPluginManager().registerEvent(type, channel, priority,
+                (listener, event) -> channel.dispatch(event), this.plugin, ignoreCancelled);
+        return channel;
+    }
+
+    /**
+     * The handlers of a single event type, priority and cancellation filter, along with its listener.
+     */
+    private final class Channel<E extends Event> implements Listener {
+
+        private final Class<E> type;
+        private final int slot;
+        private final @Nullable PositionResolver<E> resolver;
+        private final CuboidIndex index = new CuboidIndex();
+        /**
+         * The handlers of every region. The lists are replaced rather than modified, so handlers may unregister during dispatch.
+         */
+        private final Map<Cuboid, List<RegionHandler<E>>> handlers = new IdentityHashMap<>();
+        private boolean closed = false;
+
+        private Channel(@NotNull final Class<E> type, final int slot, @Nullable final PositionResolver<E> resolver) {
+            this.type = type;
+            this.slot = slot;
+            this.resolver = resolver;
+        }
+
+        private void add(@NotNull final Cuboid region, @NotNull final RegionHandler<E> handler) {
+            final List<RegionHandler<E>> current = this.handlers.get(region);
+            final List<RegionHandler<E>> updated = new ArrayList<>(current == null ? 1 : current.size() + 1);
+            if (current != null) updated.addAll(current);
+            updated.add(handler);
+            this.handlers.put(region, updated);
+            this.index.add(region);
+        }
+
+        private boolean remove(@NotNull final Cuboid region, @NotNull final RegionHandler<?> handler) {
+            final List<RegionHandler<E>> current = this.handlers.get(region);
+            if (current == null) return false;
+            final List<RegionHandler<E>> updated = new ArrayList<>(current);
+            if (!updated.remove(handler)) return false;
+            if (updated.isEmpty()) return removeAll(region);
+            this.handlers.put(region, updated);
+            return true;
+        }
+
+        private boolean removeAll(@NotNull final Cuboid region) {
+            if (this.handlers.remove(region) == null) return false;
+            this.index.remove(region);
+            if (this.handlers.isEmpty()) {
+                close();
+                final Channel<?>[] channels = RegionEventDispatcher.this.channels.get(this.type);
+                if (channels != null && channels[this.slot] == this) {
+                    channels[this.slot] = null;
+                    if (Arrays.stream(channels).allMatch(Objects::isNull)) RegionEventDispatcher.this.channels.remove(this.type);
+                }
+            }
+            return true;
+        }
+
+        private void close() {
+            this.closed = true;
+            this.handlers.clear();
+            this.index.clear();
+            HandlerList.unregisterAll(this);
+        }
+
+        private void dispatch(@NotNull final Event event) {
+            // Subclasses sharing the handler list of the event type are delivered as well.
+            if (this.closed || !this.type.isInstance(event)) return;
+            final E e = this.type.cast(event);
+            final List<Cuboid> regions;
+            if (this.resolver != null) {
+                final Location location = this.resolver.resolve(e);
+                if (location == null || location.getWorld() == null) return;
+                regions = this.index.getRegionsAt(location);
+            } else {
+                final Block block = event instanceof PlayerInteractEvent interact ? interact.getClickedBlock()
+                        : event instanceof BlockEvent blockEvent ? blockEvent.getBlock() : null;
+                if (block != null) {
+                    regions = this.index.getRegionsAt(block.getWorld().getName(), block.getX(), block.getY(), block.getZ());
+                } else {
+                    final Location location = event instanceof EntityEvent entityEvent ? entityEvent.getEntity().getLocation()
+                            : event instanceof PlayerEvent playerEvent ? playerEvent.getPlayer().getLocation() : null;
+                    if (location == null) return;
+                    regions = this.index.getRegionsAt(location);
+                }
+            }
+            for (final Cuboid region : regions) {
+                final List<RegionHandler<E>> handlers = this.handlers.get(region);
+                if (handlers == null) continue;
+                for (final RegionHandler<E> handler : handlers) handler.handle(e, region);
+            }
+        }
+    }
+
+    /**
+     * The registration of a handler, used for unregistering it.
+     */
+    public static final class Registration {
+
+        private final Channel<?> channel;
+        private final Cuboid region;
+        private final RegionHandler<?> handler;
+        private boolean registered = true;
+
+        private Registration(@NotNull final Channel<?> channel, @NotNull final Cuboid region, @NotNull final RegionHandler<?> handler) {
+            this.channel = channel;
+            this.region = region;
+            this.handler = handler;
+        }
+
+        /**
+         * Get the region of the handler.
+         * @return The region.
+         */
+        public @NotNull Cuboid getRegion() {
+            return this.region;
+        }
+
+        /**
+         * Check if the handler is still registered.
+         * @return True | False
+         */
+        public boolean isRegistered() {
+            return this.registered && !this.channel.closed;
+        }
+
+        /**
+         * Unregister the handler. Unregistering more than once has no effect.
+         */
+        public void unregister() {
+            if (!this.registered) return;
+            this.registered = false;
+            this.channel.remove(this.region, this.handler);
+        }
+    }
+
+    /**
+     * Handles an event happening within a region.
+     */
+    @FunctionalInterface
+    public interface RegionHandler<E extends Event> {
+        /**
+         * Called for every region containing the position of the event, in the order the regions are found.
+         * @param event  The event.
+         * @param region The region.
+         */
+        void handle(@NotNull E event, @NotNull Cuboid region);
+    }
+
+    /**
+     * Resolves the position of an event.
+     */
+    @FunctionalInterface
+    public interface PositionResolver<E extends Event> {
+        /**
+         * Get the position of the given event.
+         * @param event The event.
+         * @return The location of the event, or null if the event has no position, in which case no handler is called.
+         */
+        @Nullable Location resolve(@NotNull E event);
+    }
+}
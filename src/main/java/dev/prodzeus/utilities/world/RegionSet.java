@@ -0,0 +1,551 @@
+package dev.prodzeus.utilities.world;
+
+import dev.prodzeus.utilities.world.util.BlockKey;
+import dev.prodzeus.utilities.world.util.IntTriConsumer;
+import org.bukkit.Location;
+import org.bukkit.block.Block;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Serializable;
+import java.util.*;
+import java.util.function.LongConsumer;
+
+/**
+ * An immutable set of blocks within a single world, stored as disjoint {@link BlockCuboid}s.<br><br>
+ * <p>
+ * Unions, intersections and differences are normalized into boxes which never overlap, so the volume and iteration
+ * never count a block twice, and boxes sharing a face are merged where possible to keep the set compact.
+ * The boxes are stored in flat int arrays sorted by their lower X-coordinate, which double as an implicit interval tree over X:
+ * the middle box of every range is the root of its halves, and holds the highest upper X-coordinate of its subtree.
+ * {@link #contains(int, int, int)} descends the tree, skipping every subtree which cannot reach the X-coordinate,
+ * and every subtree starting beyond it, rather than checking every box.<br><br>
+ * <p>
+ * This makes the RegionSet suited for irregular claims, such as overlapping areas or areas with holes.
+ *
+ * @author prodzeus
+ */
+@SuppressWarnings("unused")
+public final class RegionSet implements Iterable<BlockCuboid>, Serializable {
+
+    /**
+     * The number of ints stored per box.
+     */
+    private static final int STRIDE = 6;
+    private static final int MIN_X = 0, MIN_Y = 1, MIN_Z = 2, MAX_X = 3, MAX_Y = 4, MAX_Z = 5;
+
+    /**
+     * The name of the world.
+     */
+    private final String worldName;
+    /**
+     * The bounds of every box, {@link #STRIDE} ints per box, sorted by the lower X-coordinate.
+     */
+    private final int[] boxes;
+    /**
+     * The highest upper X-coordinate within the subtree of every box, in the implicit tree rooted at the middle box.
+     */
+    private final int[] reachX;
+    private final int count;
+    private final long volume;
+
+    private RegionSet(@NotNull final String worldName, @NotNull final Boxes boxes) {
+        this.worldName = worldName;
+        this.count = boxes.count;
+        final Integer[] order = new Integer[this.count];
+        for (int i = 0; i < this.count; i++) order[i] = i;
+        Arrays.sort(order, Comparator.comparingInt(i -> boxes.data[i * STRIDE + MIN_X]));
+
+        this.boxes = new int[this.count * STRIDE];
+        this.reachX = new int[this.count];
+        long volume = 0;
+        for (int i = 0; i < this.count; i++) {
+            System.arraycopy(boxes.data, order[i] * STRIDE, this.boxes, i * STRIDE, STRIDE);
+            volume += volume(this.boxes, i);
+        }
+        this.volume = volume;
+        reach(0, this.count - 1);
+    }
+
+    /**
+     * Compute the reach of every box of the subtree spanning the given range of boxes.
+     * @return The highest upper X-coordinate of the subtree.
+     */
+    private int reach(final int low, final int high) {
+        if (low > high) return Integer.MIN_VALUE;
+        final int mid = (low + high) >>> 1;
+        final int reach = Math.max(this.boxes[mid * STRIDE + MAX_X], Math.max(reach(low, mid - 1), reach(mid + 1, high)));
+        this.reachX[mid] = reach;
+        return reach;
+    }
+
+    /**
+     * Get an empty RegionSet in the world of the given world name.
+     * @param worldName The world's name.
+     * @return The RegionSet.
+     */
+    public static @NotNull RegionSet empty(@NotNull final String worldName) {
+        return new RegionSet(worldName, new Boxes(0));
+    }
+
+    /**
+     * Get a RegionSet of the blocks of the given Cuboid.
+     * @param cuboid The Cuboid.
+     * @return The RegionSet.
+     */
+    public static @NotNull RegionSet of(@NotNull final Cuboid cuboid) {
+        return of(BlockCuboid.create(cuboid));
+    }
+
+    /**
+     * Get a RegionSet of the union of the given BlockCuboids.
+     * @param first  The first BlockCuboid.
+     * @param others The other BlockCuboids, which must be in the same world.
+     * @return The RegionSet.
+     * @throws IllegalArgumentException If the BlockCuboids are in different worlds.
+     */
+    public static @NotNull RegionSet of(@NotNull final BlockCuboid first, @NotNull final BlockCuboid... others) {
+        final List<BlockCuboid> cuboids = new ArrayList<>(others.length + 1);
+        cuboids.add(first);
+        cuboids.addAll(Arrays.asList(others));
+        return of(first.getWorldName(), cuboids);
+    }
+
+    /**
+     * Get a RegionSet of the union of the given BlockCuboids.
+     * @param worldName The world's name.
+     * @param cuboids   The BlockCuboids, which must be in the given world.
+     * @return The RegionSet.
+     * @throws IllegalArgumentException If a BlockCuboid is in another world.
+     */
+    public static @NotNull RegionSet of(@NotNull final String worldName, @NotNull final Collection<BlockCuboid> cuboids) {
+        final Boxes other = new Boxes(cuboids.size());
+        for (final BlockCuboid cuboid : cuboids) {
+            if (!cuboid.getWorldName().equals(worldName)) throw new IllegalArgumentException("BlockCuboid is in another world!");
+            other.add(cuboid.getMinX(), cuboid.getMinY(), cuboid.getMinZ(), cuboid.getMaxX(), cuboid.getMaxY(), cuboid.getMaxZ());
+        }
+        return new RegionSet(worldName, union(new Boxes(0), other));
+    }
+
+    /**
+     * Get the name of the world.
+     * @return The world's name.
+     */
+    public @NotNull String getWorldName() {
+        return this.worldName;
+    }
+
+    /**
+     * Get the number of disjoint boxes making up the RegionSet.
+     * @return The number of boxes.
+     */
+    public int getBoxCount() {
+        return this.count;
+    }
+
+    /**
+     * Get the number of blocks in the RegionSet, counting each block once.
+     * @return The volume.
+     */
+    public long getVolume() {
+        return this.volume;
+    }
+
+    /**
+     * Check if the RegionSet contains no blocks.
+     * @return True | False
+     */
+    public boolean isEmpty() {
+        return this.count == 0;
+    }
+
+    /**
+     * Get the smallest BlockCuboid containing every block of the RegionSet.
+     * @return The bounds, or null if the RegionSet is empty.
+     */
+    public @Nullable BlockCuboid getBounds() {
+        if (this.count == 0) return null;
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, minZ = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE, maxZ = Integer.MIN_VALUE;
+        for (int i = 0; i < this.count; i++) {
+            final int o = i * STRIDE;
+            minX = Math.min(minX, this.boxes[o + MIN_X]);
+            minY = Math.min(minY, this.boxes[o + MIN_Y]);
+            minZ = Math.min(minZ, this.boxes[o + MIN_Z]);
+            maxX = Math.max(maxX, this.boxes[o + MAX_X]);
+            maxY = Math.max(maxY, this.boxes[o + MAX_Y]);
+            maxZ = Math.max(maxZ, this.boxes[o + MAX_Z]);
+        }
+        return BlockCuboid.create(this.worldName, minX, minY, minZ, maxX, maxY, maxZ);
+    }
+
+    /**
+     * Check if the RegionSet contains the block at the given coordinates.
+     * @param x The X coordinate.
+     * @param y The Y coordinate.
+     * @param z The Z coordinate.
+     * @return True | False
+     */
+    public boolean contains(final int x, final int y, final int z) {
+        return overlaps(0, this.count - 1, x, y, z, x, y, z);
+    }
+
+    /**
+     * Check if the RegionSet contains the block of the given packed key.
+     * @param key The packed key, see {@link BlockKey}.
+     * @return True | False
+     */
+    public boolean contains(final long key) {
+        return contains(BlockKey.x(key), BlockKey.y(key), BlockKey.z(key));
+    }
+
+    /**
+     * Check if the RegionSet contains the given block.
+     * @param block The block.
+     * @return True | False
+     */
+    public boolean contains(@NotNull final Block block) {
+        return block.getWorld().getName().equals(this.worldName) && contains(block.getX(), block.getY(), block.getZ());
+    }
+
+    /**
+     * Check if the RegionSet contains the block at the given location.
+     * @param location The location.
+     * @return True | False
+     */
+    public boolean contains(@NotNull final Location location) {
+        return location.getWorld() != null && location.getWorld().getName().equals(this.worldName)
+                && contains(location.getBlockX(), location.getBlockY(), location.getBlockZ());
+    }
+
+    /**
+     * Check if the RegionSet shares any block with the given BlockCuboid.
+     * @param cuboid The BlockCuboid.
+     * @return True | False
+     */
+    public boolean intersects(@NotNull final BlockCuboid cuboid) {
+        if (!cuboid.getWorldName().equals(this.worldName)) return false;
+        return overlaps(0, this.count - 1, cuboid.getMinX(), cuboid.getMinY(), cuboid.getMinZ(), cuboid.getMaxX(), cuboid.getMaxY(), cuboid.getMaxZ());
+    }
+
+    /**
+     * Check if any box of the subtree spanning the given range of boxes overlaps the given bounds, which are all inclusive.
+     * Subtrees which cannot reach the lower X-coordinate are skipped, as are the boxes after the middle one if it starts beyond the upper X-coordinate.
+     */
+    private boolean overlaps(int low, int high, final int minX, final int minY, final int minZ, final int maxX, final int maxY, final int maxZ) {
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            if (this.reachX[mid] < minX) return false;
+            final int o = mid * STRIDE;
+            if (this.boxes[o + MIN_X] <= maxX && this.boxes[o + MAX_X] >= minX
+                    && this.boxes[o + MIN_Y] <= maxY && this.boxes[o + MAX_Y] >= minY
+                    && this.boxes[o + MIN_Z] <= maxZ && this.boxes[o + MAX_Z] >= minZ) return true;
+            if (this.boxes[o + MIN_X] > maxX) {
+                high = mid - 1;
+                continue;
+            }
+            if (overlaps(low, mid - 1, minX, minY, minZ, maxX, maxY, maxZ)) return true;
+            low = mid + 1;
+        }
+        return false;
+    }
+
+    /**
+     * Get the union of this RegionSet and the given BlockCuboid.
+     * @param cuboid The BlockCuboid.
+     * @return The union.
+     * @throws IllegalArgumentException If the BlockCuboid is in another world.
+     */
+    public @NotNull RegionSet union(@NotNull final BlockCuboid cuboid) {
+        return new RegionSet(this.worldName, union(boxes(), boxes(cuboid)));
+    }
+
+    /**
+     * Get the union of this and the given RegionSet.
+     * @param other The other RegionSet.
+     * @return The union.
+     * @throws IllegalArgumentException If the RegionSet is in another world.
+     */
+    public @NotNull RegionSet union(@NotNull final RegionSet other) {
+        return new RegionSet(this.worldName, union(boxes(), boxes(other)));
+    }
+
+    /**
+     * Get the blocks of this RegionSet which are also within the given BlockCuboid.
+     * @param cuboid The BlockCuboid.
+     * @return The intersection.
+     * @throws IllegalArgumentException If the BlockCuboid is in another world.
+     */
+    public @NotNull RegionSet intersection(@NotNull final BlockCuboid cuboid) {
+        return new RegionSet(this.worldName, intersection(boxes(), boxes(cuboid)));
+    }
+
+    /**
+     * Get the blocks of this RegionSet which are also within the given RegionSet.
+     * @param other The other RegionSet.
+     * @return The intersection.
+     * @throws IllegalArgumentException If the RegionSet is in another world.
+     */
+    public @NotNull RegionSet intersection(@NotNull final RegionSet other) {
+        return new RegionSet(this.worldName, intersection(boxes(), boxes(other)));
+    }
+
+    /**
+     * Get the blocks of this RegionSet which are not within the given BlockCuboid.
+     * @param cuboid The BlockCuboid.
+     * @return The difference.
+     * @throws IllegalArgumentException If the BlockCuboid is in another world.
+     */
+    public @NotNull RegionSet subtract(@NotNull final BlockCuboid cuboid) {
+        return new RegionSet(this.worldName, subtract(boxes(), boxes(cuboid)));
+    }
+
+    /**
+     * Get the blocks of this RegionSet which are not within the given RegionSet.
+     * @param other The other RegionSet.
+     * @return The difference.
+     * @throws IllegalArgumentException If the RegionSet is in another world.
+     */
+    public @NotNull RegionSet subtract(@NotNull final RegionSet other) {
+        return new RegionSet(this.worldName, subtract(boxes(), boxes(other)));
+    }
+
+    /**
+     * Get the disjoint boxes making up the RegionSet, sorted by their lower X-coordinate.
+     * @return An unmodifiable list of the boxes.
+     */
+    public @NotNull List<BlockCuboid> getBoxes() {
+        final List<BlockCuboid> list = new ArrayList<>(this.count);
+        for (final BlockCuboid box : this) list.add(box);
+        return Collections.unmodifiableList(list);
+    }
+
+    /**
+     * Get an iterator over the disjoint boxes making up the RegionSet.
+     * @return The iterator.
+     */
+    @Override
+    public @NotNull Iterator<BlockCuboid> iterator() {
+        return new Iterator<>() {
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return this.index < count;
+            }
+
+            @Override
+            public BlockCuboid next() {
+                if (this.index >= count) throw new NoSuchElementException();
+                final int o = this.index++ * STRIDE;
+                return BlockCuboid.create(worldName, boxes[o + MIN_X], boxes[o + MIN_Y], boxes[o + MIN_Z], boxes[o + MAX_X], boxes[o + MAX_Y], boxes[o + MAX_Z]);
+            }
+        };
+    }
+
+    /**
+     * Visit the coordinates of every block in the RegionSet once, box by box.
+     * @param consumer The consumer of the X, Y and Z coordinates.
+     */
+    public void forEachPosition(@NotNull final IntTriConsumer consumer) {
+        for (int i = 0; i < this.count; i++) {
+            final int o = i * STRIDE;
+            for (int z = this.boxes[o + MIN_Z]; z <= this.boxes[o + MAX_Z]; z++) {
+                for (int y = this.boxes[o + MIN_Y]; y <= this.boxes[o + MAX_Y]; y++) {
+                    for (int x = this.boxes[o + MIN_X]; x <= this.boxes[o + MAX_X]; x++) {
+                        consumer.accept(x, y, z);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Visit the packed key of every block in the RegionSet once, box by box.
+     * @param consumer The consumer of the packed keys, see {@link BlockKey}.
+     */
+    public void forEachKey(@NotNull final LongConsumer consumer) {
+        forEachPosition((x, y, z) -> consumer.accept(BlockKey.pack(x, y, z)));
+    }
+
+    @Override
+    public String toString() {
+        return "RegionSet{worldName='%s', boxes=%d, volume=%d}".formatted(this.worldName, this.count, this.volume);
+    }
+
+    private @NotNull Boxes boxes() {
+        final Boxes boxes = new Boxes(this.count);
+        System.arraycopy(this.boxes, 0, boxes.data, 0, this.count * STRIDE);
+        boxes.count = this.count;
+        return boxes;
+    }
+
+    private @NotNull Boxes boxes(@NotNull final BlockCuboid cuboid) {
+        if (!cuboid.getWorldName().equals(this.worldName)) throw new IllegalArgumentException("BlockCuboid is in another world!");
+        final Boxes boxes = new Boxes(1);
+        boxes.add(cuboid.getMinX(), cuboid.getMinY(), cuboid.getMinZ(), cuboid.getMaxX(), cuboid.getMaxY(), cuboid.getMaxZ());
+        return boxes;
+    }
+
+    private @NotNull Boxes boxes(@NotNull final RegionSet other) {
+        if (!other.worldName.equals(this.worldName)) throw new IllegalArgumentException("RegionSet is in another world!");
+        return other.boxes();
+    }
+
+    /**
+     * Add the parts of the boxes of b not covered by a to the disjoint boxes of a.
+     */
+    private static @NotNull Boxes union(@NotNull final Boxes a, @NotNull final Boxes b) {
+        final Boxes result = a;
+        for (int i = 0; i < b.count; i++) {
+            final Boxes pieces = new Boxes(1);
+            pieces.add(b.data, i);
+            final int existing = result.count;
+            for (int j = 0; j < existing && pieces.count > 0; j++) pieces.subtractAll(result.data, j);
+            for (int p = 0; p < pieces.count; p++) result.add(pieces.data, p);
+        }
+        result.coalesce();
+        return result;
+    }
+
+    /**
+     * Intersect every box of a with every box of b. Both are disjoint, so the pieces are as well.
+     */
+    private static @NotNull Boxes intersection(@NotNull final Boxes a, @NotNull final Boxes b) {
+        final Boxes result = new Boxes(Math.max(a.count, b.count));
+        for (int i = 0; i < a.count; i++) {
+            final int o = i * STRIDE;
+            for (int j = 0; j < b.count; j++) {
+                final int p = j * STRIDE;
+                final int minX = Math.max(a.data[o + MIN_X], b.data[p + MIN_X]), maxX = Math.min(a.data[o + MAX_X], b.data[p + MAX_X]);
+                final int minY = Math.max(a.data[o + MIN_Y], b.data[p + MIN_Y]), maxY = Math.min(a.data[o + MAX_Y], b.data[p + MAX_Y]);
+                final int minZ = Math.max(a.data[o + MIN_Z], b.data[p + MIN_Z]), maxZ = Math.min(a.data[o + MAX_Z], b.data[p + MAX_Z]);
+                if (minX <= maxX && minY <= maxY && minZ <= maxZ) result.add(minX, minY, minZ, maxX, maxY, maxZ);
+            }
+        }
+        result.coalesce();
+        return result;
+    }
+
+    /**
+     * Remove every box of b from the boxes of a.
+     */
+    private static @NotNull Boxes subtract(@NotNull final Boxes a, @NotNull final Boxes b) {
+        for (int j = 0; j < b.count && a.count > 0; j++) a.subtractAll(b.data, j);
+        a.coalesce();
+        return a;
+    }
+
+    private static long volume(final int @NotNull [] data, final int index) {
+        final int o = index * STRIDE;
+        return (long) (data[o + MAX_X] - data[o + MIN_X] + 1) * (data[o + MAX_Y] - data[o + MIN_Y] + 1) * (data[o + MAX_Z] - data[o + MIN_Z] + 1);
+    }
+
+    /**
+     * A growable list of boxes, used while building a RegionSet.
+     */
+    private static final class Boxes {
+        private int[] data;
+        private int count = 0;
+
+        private Boxes(final int capacity) {
+            this.data = new int[Math.max(1, capacity) * STRIDE];
+        }
+
+        private void add(final int minX, final int minY, final int minZ, final int maxX, final int maxY, final int maxZ) {
+            if ((this.count + 1) * STRIDE > this.data.length) this.data = Arrays.copyOf(this.data, this.data.length << 1);
+            final int o = this.count++ * STRIDE;
+            this.data[o + MIN_X] = minX;
+            this.data[o + MIN_Y] = minY;
+            this.data[o + MIN_Z] = minZ;
+            this.data[o + MAX_X] = maxX;
+            this.data[o + MAX_Y] = maxY;
+            this.data[o + MAX_Z] = maxZ;
+        }
+
+        private void add(final int @NotNull [] source, final int index) {
+            final int o = index * STRIDE;
+            add(source[o + MIN_X], source[o + MIN_Y], source[o + MIN_Z], source[o + MAX_X], source[o + MAX_Y], source[o + MAX_Z]);
+        }
+
+        /**
+         * Replace every box overlapping the given box by the up to six boxes of its blocks outside the given box.
+         */
+        private void subtractAll(final int @NotNull [] source, final int index) {
+            final int p = index * STRIDE;
+            final int bMinX = source[p + MIN_X], bMinY = source[p + MIN_Y], bMinZ = source[p + MIN_Z];
+            final int bMaxX = source[p + MAX_X], bMaxY = source[p + MAX_Y], bMaxZ = source[p + MAX_Z];
+            final int end = this.count;
+            int i = 0, kept = end;
+            while (i < kept) {
+                final int o = i * STRIDE;
+                int minX = this.data[o + MIN_X], minY = this.data[o + MIN_Y], minZ = this.data[o + MIN_Z];
+                int maxX = this.data[o + MAX_X], maxY = this.data[o + MAX_Y], maxZ = this.data[o + MAX_Z];
+                if (minX > bMaxX || maxX < bMinX || minY > bMaxY || maxY < bMinY || minZ > bMaxZ || maxZ < bMinZ) {
+                    i++;
+                    continue;
+                }
+                // Move the last unvisited box into this slot, then slice the overlapping box into slabs along X, then Y, then Z.
+                --kept;
+                System.arraycopy(this.data, kept * STRIDE, this.data, o, STRIDE);
+                System.arraycopy(this.data, this.count * STRIDE - STRIDE, this.data, kept * STRIDE, STRIDE);
+                --this.count;
+                if (minX < bMinX) add(minX, minY, minZ, bMinX - 1, maxY, maxZ);
+                if (maxX > bMaxX) add(bMaxX + 1, minY, minZ, maxX, maxY, maxZ);
+                minX = Math.max(minX, bMinX);
+                maxX = Math.min(maxX, bMaxX);
+                if (minY < bMinY) add(minX, minY, minZ, maxX, bMinY - 1, maxZ);
+                if (maxY > bMaxY) add(minX, bMaxY + 1, minZ, maxX, maxY, maxZ);
+                minY = Math.max(minY, bMinY);
+                maxY = Math.min(maxY, bMaxY);
+                if (minZ < bMinZ) add(minX, minY, minZ, maxX, maxY, bMinZ - 1);
+                if (maxZ > bMaxZ) add(minX, minY, bMaxZ + 1, maxX, maxY, maxZ);
+            }
+        }
+
+        /**
+         * Merge boxes which share a whole face, one axis at a time, until no axis merges any box.
+         */
+        private void coalesce() {
+            boolean merged = true;
+            while (merged && this.count > 1) {
+                merged = false;
+                for (int axis = 0; axis < 3; axis++) merged |= coalesce(axis);
+            }
+        }
+
+        /**
+         * Merge every run of boxes adjacent along the given axis, with equal bounds along the other two axes.
+         * Sorting by the other bounds, then the lower bound along the axis, places every such run next to each other.
+         * @return True if any box was merged.
+         */
+        private boolean coalesce(final int axis) {
+            final int a = (axis + 1) % 3, b = (axis + 2) % 3;
+            final Integer[] order = new Integer[this.count];
+            for (int i = 0; i < this.count; i++) order[i] = i;
+            final int[] data = this.data;
+            Arrays.sort(order, Comparator.<Integer>comparingInt(i -> data[i * STRIDE + a])
+                    .thenComparingInt(i -> data[i * STRIDE + 3 + a])
+                    .thenComparingInt(i -> data[i * STRIDE + b])
+                    .thenComparingInt(i -> data[i * STRIDE + 3 + b])
+                    .thenComparingInt(i -> data[i * STRIDE + axis]));
+            final int[] sorted = new int[Math.max(1, this.count) * STRIDE];
+            int size = 0;
+            for (final int index : order) {
+                final int p = index * STRIDE;
+                final int o = (size - 1) * STRIDE;
+                if (size > 0 && sorted[o + a] == data[p + a] && sorted[o + 3 + a] == data[p + 3 + a]
+                        && sorted[o + b] == data[p + b] && sorted[o + 3 + b] == data[p + 3 + b]
+                        && sorted[o + 3 + axis] + 1 == data[p + axis]) {
+                    sorted[o + 3 + axis] = data[p + 3 + axis];
+                } else {
+                    System.arraycopy(data, p, sorted, size++ * STRIDE, STRIDE);
+                }
+            }
+            final boolean merged = size < this.count;
+            this.data = sorted;
+            this.count = size;
+            return merged;
+        }
+    }
+}
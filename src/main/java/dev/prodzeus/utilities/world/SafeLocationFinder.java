@@ -0,0 +1,201 @@
+package dev.prodzeus.utilities.world;
+
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Finds safe locations within a {@link Cuboid}, with one solid block beneath and two non-solid blocks above, none of which are harmful.<br><br>
+ * <p>
+ * The search starts at the center column of the Cuboid and moves outward one ring of columns at a time.
+ * Each column is read from a {@link ChunkSnapshot}, starting at the top of its heightmap, as no floor can exist above it.
+ * Chunks are only captured once the search reaches them, so a safe location near the center is found after capturing a single chunk.<br><br>
+ * <p>
+ * Found locations are cached per Cuboid. A cached location is verified before it is returned, and recomputed if it is no longer safe.
+ * If a {@link BlockChangeTracker} is given, cached locations are also dropped as soon as one of their blocks changes,
+ * until the finder is closed.
+ * Instances must only be used from the main thread.
+ *
+ * @author prodzeus
+ */
+@SuppressWarnings("unused")
+public final class SafeLocationFinder implements AutoCloseable {
+
+    private static final Set<Material> HAZARDS = EnumSet.of(
+            Material.LAVA, Material.FIRE, Material.SOUL_FIRE, Material.MAGMA_BLOCK, Material.CACTUS,
+            Material.CAMPFIRE, Material.SOUL_CAMPFIRE, Material.SWEET_BERRY_BUSH, Material.WITHER_ROSE,
+            Material.POWDER_SNOW, Material.POINTED_DRIPSTONE, Material.COBWEB);
+
+    private final Map<Cuboid, Location> cache = new IdentityHashMap<>();
+    private final @Nullable BlockChangeTracker tracker;
+    private final @Nullable BlockChangeTracker.ChangeListener listener;
+
+    /**
+     * Create a finder whose cached locations are only verified when requested.
+     */
+    public SafeLocationFinder() {
+        this.tracker = null;
+        this.listener = null;
+    }
+
+    /**
+     * Create a finder whose cached locations are dropped when one of their blocks is changed, as reported by the given tracker.
+     * Only changes within Cuboids tracked by the tracker are reported.
+     * The finder must be closed once no longer used, which removes its listener from the tracker.
+     * @param tracker The tracker.
+     */
+    public SafeLocationFinder(@NotNull final BlockChangeTracker tracker) {
+        this.tracker = tracker;
+        this.listener = (cuboid, x, y, z) -> {
+            final Location cached = this.cache.get(cuboid);
+            if (cached != null && cached.getBlockX() == x && cached.getBlockZ() == z
+                    && y >= cached.getBlockY() && y <= cached.getBlockY() + 2) {
+                this.cache.remove(cuboid);
+            }
+        };
+        tracker.addListener(this.listener);
+    }
+
+    /**
+     * Get a safe location within the given Cuboid, using the cached location if it is still safe.
+     * @param cuboid The Cuboid.
+     * @return The location of the solid block beneath the safe location, or null if none was found.
+     */
+    public @Nullable Location getSafeLocation(@NotNull final Cuboid cuboid) {
+        final Location cached = this.cache.get(cuboid);
+        if (cached != null) {
+            final World world = cached.getWorld();
+            final int x = cached.getBlockX(), y = cached.getBlockY(), z = cached.getBlockZ();
+            if (isFloor(world.getType(x, y, z)) && isOpen(world.getType(x, y + 1, z)) && isOpen(world.getType(x, y + 2, z))) {
+                return cached.clone();
+            }
+            this.cache.remove(cuboid);
+        }
+        final Location location = find(cuboid);
+        if (location != null) this.cache.put(cuboid, location.clone());
+        return location;
+    }
+
+    /**
+     * Drop the cached location of the given Cuboid.
+     * @param cuboid The Cuboid.
+     */
+    public void invalidate(@NotNull final Cuboid cuboid) {
+        this.cache.remove(cuboid);
+    }
+
+    /**
+     * Drop every cached location.
+     */
+    public void invalidateAll() {
+        this.cache.clear();
+    }
+
+    /**
+     * Stop listening for changes reported by the tracker, if any, and drop every cached location.
+     * The tracker no longer holds a reference to the finder afterward. Closing more than once has no effect.
+     */
+    @Override
+    public void close() {
+        if (this.tracker != null) this.tracker.removeListener(this.listener);
+        this.cache.clear();
+    }
+
+    /**
+     * Find the safe location closest to the center of the given Cuboid, capturing chunks as the search reaches them.
+     * Must be called on the main thread.
+     * @param cuboid The Cuboid.
+     * @return The location of the solid block beneath the safe location, or null if none was found.
+     */
+    public static @Nullable Location find(@NotNull final Cuboid cuboid) {
+        final World world = cuboid.getWorld();
+        final Map<Long, ChunkSnapshot> chunks = new HashMap<>();
+        return search(cuboid, world, (chunkX, chunkZ) -> chunks.computeIfAbsent(((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL),
+                key -> world.getChunkAt(chunkX, chunkZ).getChunkSnapshot(true, false, false)));
+    }
+
+    /**
+     * Find the safe location closest to the center of the Cuboid of the given snapshot.
+     * This does not access the world, and may be called off the main thread.
+     * @param snapshot The snapshot.
+     * @return The location of the solid block beneath the safe location, or null if none was found.
+     */
+    public static @Nullable Location find(@NotNull final CuboidSnapshot snapshot) {
+        return search(snapshot.getCuboid(), snapshot.getWorld(), (chunkX, chunkZ) -> snapshot.getChunk(chunkX << 4, chunkZ << 4));
+    }
+
+    /**
+     * Search the columns of the Cuboid one ring at a time, starting at the center column.
+     */
+    private static @Nullable Location search(@NotNull final Cuboid cuboid, @NotNull final World world, @NotNull final ChunkSource chunks) {
+        final int x1 = (int) cuboid.getLowerX(), x2 = (int) cuboid.getUpperX();
+        final int z1 = (int) cuboid.getLowerZ(), z2 = (int) cuboid.getUpperZ();
+        final int y1 = Math.max((int) cuboid.getLowerY(), world.getMinHeight());
+        final int y2 = Math.min((int) cuboid.getUpperY(), world.getMaxHeight() - 1);
+        if (y2 < y1) return null;
+        final int centerX = Math.floorDiv(x1 + x2, 2), centerZ = Math.floorDiv(z1 + z2, 2);
+        final int rings = Math.max(Math.max(centerX - x1, x2 - centerX), Math.max(centerZ - z1, z2 - centerZ));
+        final int top = world.getMaxHeight();
+
+        for (int ring = 0; ring <= rings; ring++) {
+            // Walk the ring clockwise from its North-West corner, each side being twice the ring long.
+            final int side = Math.max(1, ring * 2);
+            for (int i = 0; i < (ring == 0 ? 1 : side * 4); i++) {
+                final int step = i % side;
+                final int x, z;
+                switch (i / side) {
+                    case 0 -> { x = centerX - ring + step; z = centerZ - ring; }
+                    case 1 -> { x = centerX + ring; z = centerZ - ring + step; }
+                    case 2 -> { x = centerX + ring - step; z = centerZ + ring; }
+                    default -> { x = centerX - ring; z = centerZ + ring - step; }
+                }
+                if (x < x1 || x > x2 || z < z1 || z > z2) continue;
+                final int y = searchColumn(chunks.get(x >> 4, z >> 4), x & 0xf, z & 0xf, y1, y2, top);
+                if (y != Integer.MIN_VALUE) return new Location(world, x, y, z);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Search a single column from the top of its heightmap downward.
+     * @return The Y-coordinate of the floor, or {@link Integer#MIN_VALUE} if the column has no safe location.
+     */
+    private static int searchColumn(@NotNull final ChunkSnapshot chunk, final int x, final int z, final int y1, final int y2, final int top) {
+        final int start = Math.min(y2, chunk.getHighestBlockYAt(x, z));
+        for (int y = start; y >= y1; y--) {
+            if (!isFloor(chunk.getBlockType(x, y, z))) continue;
+            if (isOpen(type(chunk, x, y + 1, z, top)) && isOpen(type(chunk, x, y + 2, z, top))) return y;
+        }
+        return Integer.MIN_VALUE;
+    }
+
+    private static @NotNull Material type(@NotNull final ChunkSnapshot chunk, final int x, final int y, final int z, final int top) {
+        return y < top ? chunk.getBlockType(x, y, z) : Material.AIR;
+    }
+
+    private static boolean isFloor(@NotNull final Material type) {
+        return type.isSolid() && !HAZARDS.contains(type);
+    }
+
+    private static boolean isOpen(@NotNull final Material type) {
+        return !type.isSolid() && !HAZARDS.contains(type);
+    }
+
+    /**
+     * Provides the chunk snapshot at the given chunk coordinates.
+     */
+    @FunctionalInterface
+    private interface ChunkSource {
+        @NotNull ChunkSnapshot get(int chunkX, int chunkZ);
+    }
+}
@@ -0,0 +1,133 @@
+package dev.prodzeus.utilities.world;
+
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.WorldUnloadEvent;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves and caches {@link World}s by name and {@link UUID}, used by {@link Cuboid} to avoid calling {@link Bukkit#getWorld} repeatedly.<br><br>
+ * <p>
+ * Worlds are only held through weak references, and every cached world is invalidated when a {@link WorldUnloadEvent} passes.
+ * Caching is only enabled once the resolver has been registered through {@link WorldResolver#register(Plugin)},
+ * as stale worlds can otherwise not be detected. Until then, every lookup is passed on to {@link Bukkit#getWorld}.
+ *
+ * @author prodzeus
+ */
+@SuppressWarnings("unused")
+public final class WorldResolver implements Listener {
+
+    private static final Map<String, WeakReference<World>> byName = new ConcurrentHashMap<>();
+    private static final Map<UUID, WeakReference<World>> byUid = new ConcurrentHashMap<>();
+    private static volatile boolean registered = false;
+    /**
+     * Incremented every time a world is unloaded, invalidating every {@link Handle} created before.
+     */
+    private static volatile int epoch = 0;
+
+    private WorldResolver() {
+    }
+
+    /**
+     * Registers the resolver, enabling caching. This method should be called in the onEnable method in your main class.
+     * @param plugin The plugin instance.
+     */
+    public static synchronized void register(@NotNull final Plugin plugin) {
+        if (registered) return;
+        Bukkit.getPluginManager().registerEvents(new WorldResolver(), plugin);
+        registered = true;
+    }
+
+    /**
+     * Check if the resolver has been registered, and caching is enabled.
+     * @return True | False
+     */
+    public static boolean isRegistered() {
+        return registered;
+    }
+
+    /**
+     * Get the loaded world with the given name.
+     * @param name The name of the world.
+     * @return The world, or null if no world with the given name is loaded.
+     */
+    public static @Nullable World getWorld(@NotNull final String name) {
+        if (!registered) return Bukkit.getWorld(name);
+        final WeakReference<World> reference = byName.get(name);
+        World world = reference == null ? null : reference.get();
+        if (world == null) {
+            world = Bukkit.getWorld(name);
+            if (world != null) cache(world);
+        }
+        return world;
+    }
+
+    /**
+     * Get the loaded world with the given {@link UUID}.
+     * @param uid The UUID of the world.
+     * @return The world, or null if no world with the given UUID is loaded.
+     */
+    public static @Nullable World getWorld(@NotNull final UUID uid) {
+        if (!registered) return Bukkit.getWorld(uid);
+        final WeakReference<World> reference = byUid.get(uid);
+        World world = reference == null ? null : reference.get();
+        if (world == null) {
+            world = Bukkit.getWorld(uid);
+            if (world != null) cache(world);
+        }
+        return world;
+    }
+
+    /**
+     * Create a handle to the given world, which can be held instead of looking the world up again.
+     * @param world The world.
+     * @return The handle, or null if caching is not enabled.
+     */
+    static @Nullable Handle handle(@NotNull final World world) {
+        return registered ? new Handle(world, epoch) : null;
+    }
+
+    private static void cache(@NotNull final World world) {
+        final WeakReference<World> reference = new WeakReference<>(world);
+        byName.put(world.getName(), reference);
+        byUid.put(world.getUID(), reference);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onWorldUnload(final WorldUnloadEvent event) {
+        byName.remove(event.getWorld().getName());
+        byUid.remove(event.getWorld().getUID());
+        ++epoch;
+    }
+
+    /**
+     * A weak reference to a resolved world, which becomes invalid once any world is unloaded.
+     */
+    static final class Handle extends WeakReference<World> {
+
+        private final int epoch;
+
+        private Handle(@NotNull final World world, final int epoch) {
+            super(world);
+            this.epoch = epoch;
+        }
+
+        /**
+         * Get the referenced world, if the handle is still valid.
+         * @return The world, or null if the world may have been unloaded.
+         */
+        @Nullable World getIfValid() {
+            return this.epoch == WorldResolver.epoch ? get() : null;
+        }
+    }
+}
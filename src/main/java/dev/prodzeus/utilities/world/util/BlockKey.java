@@ -0,0 +1,71 @@
+package dev.prodzeus.utilities.world.util;
+
+import org.bukkit.block.Block;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Packs block coordinates into a single {@code long}, using the same layout as Paper's {@link Block#getBlockKey()}.<br><br>
+ * <p>
+ * The X and Z coordinates use 27 bits each, and the Y coordinate uses the remaining 10 bits,
+ * which covers every position within the world border and build height of a vanilla world.
+ */
+@SuppressWarnings("unused")
+public final class BlockKey {
+
+    private BlockKey() {
+        throw new IllegalStateException("BlockKey class.");
+    }
+
+    /**
+     * Pack the given block coordinates into a key.
+     * @param x The X coordinate.
+     * @param y The Y coordinate.
+     * @param z The Z coordinate.
+     * @return The packed key.
+     */
+    @Contract(pure = true)
+    public static long pack(final int x, final int y, final int z) {
+        return ((long) x & 0x7FFFFFF) | (((long) z & 0x7FFFFFF) << 27) | ((long) y << 54);
+    }
+
+    /**
+     * Pack the coordinates of the given block into a key.
+     * @param block The block.
+     * @return The packed key.
+     */
+    @Contract(pure = true)
+    public static long pack(@NotNull final Block block) {
+        return pack(block.getX(), block.getY(), block.getZ());
+    }
+
+    /**
+     * Get the X coordinate of a packed key.
+     * @param key The packed key.
+     * @return The X coordinate.
+     */
+    @Contract(pure = true)
+    public static int x(final long key) {
+        return (int) ((key << 37) >> 37);
+    }
+
+    /**
+     * Get the Y coordinate of a packed key.
+     * @param key The packed key.
+     * @return The Y coordinate.
+     */
+    @Contract(pure = true)
+    public static int y(final long key) {
+        return (int) (key >> 54);
+    }
+
+    /**
+     * Get the Z coordinate of a packed key.
+     * @param key The packed key.
+     * @return The Z coordinate.
+     */
+    @Contract(pure = true)
+    public static int z(final long key) {
+        return (int) ((key << 10) >> 37);
+    }
+}
@@ -0,0 +1,16 @@
+package dev.prodzeus.utilities.world.util;
+
+/**
+ * Accepts three primitive int values, usually the X, Y and Z coordinates of a block,
+ * without boxing or allocating an object for each call.
+ */
+@FunctionalInterface
+public interface IntTriConsumer {
+    /**
+     * Perform this operation on the given values.
+     * @param x The X coordinate.
+     * @param y The Y coordinate.
+     * @param z The Z coordinate.
+     */
+    void accept(int x, int y, int z);
+}
@@ -0,0 +1,17 @@
+package dev.prodzeus.utilities.world.util;
+
+/**
+ * Tests three primitive int values, usually the X, Y and Z coordinates of a block,
+ * without boxing or allocating an object for each call.
+ */
+@FunctionalInterface
+public interface IntTriPredicate {
+    /**
+     * Evaluate this predicate on the given values.
+     * @param x The X coordinate.
+     * @param y The Y coordinate.
+     * @param z The Z coordinate.
+     * @return True if the values match the predicate, otherwise false.
+     */
+    boolean test(int x, int y, int z);
+}
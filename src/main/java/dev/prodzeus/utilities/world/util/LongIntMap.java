@@ -0,0 +1,247 @@
+package dev.prodzeus.utilities.world.util;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+/**
+ * A hash map of primitive {@code long} keys to primitive {@code int} values, usually packed {@link BlockKey}s mapped to a tick.<br><br>
+ * <p>
+ * Entries are stored in two flat arrays using open addressing with linear probing, without boxing or allocating an object per entry.
+ * The key 0 is stored separately, as it marks empty slots. This class is not thread-safe.
+ */
+@SuppressWarnings("unused")
+public final class LongIntMap {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size = 0;
+    private boolean hasZero = false;
+    private int zeroValue;
+
+    /**
+     * Create an empty map.
+     */
+    public LongIntMap() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * Create an empty map, sized to hold the given number of entries without resizing.
+     * @param expected The expected number of entries.
+     */
+    public LongIntMap(final int expected) {
+        allocate(capacityFor(expected));
+    }
+
+    /**
+     * Get the number of entries.
+     * @return The number of entries.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Check if the map has no entries.
+     * @return True | False
+     */
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Check if the map holds the given key.
+     * @param key The key.
+     * @return True | False
+     */
+    public boolean containsKey(final long key) {
+        if (key == 0) return this.hasZero;
+        return this.keys[slot(key)] == key;
+    }
+
+    /**
+     * Get the value of the given key.
+     * @param key          The key.
+     * @param defaultValue The value returned if the key is absent.
+     * @return The value, or the default value if the key is absent.
+     */
+    public int get(final long key, final int defaultValue) {
+        if (key == 0) return this.hasZero ? this.zeroValue : defaultValue;
+        final int slot = slot(key);
+        return this.keys[slot] == key ? this.values[slot] : defaultValue;
+    }
+
+    /**
+     * Set the value of the given key.
+     * @param key   The key.
+     * @param value The value.
+     */
+    public void put(final long key, final int value) {
+        if (key == 0) {
+            if (!this.hasZero) ++this.size;
+            this.hasZero = true;
+            this.zeroValue = value;
+            return;
+        }
+        final int slot = slot(key);
+        if (this.keys[slot] != key) {
+            this.keys[slot] = key;
+            if (++this.size > (this.keys.length >> 1) + (this.keys.length >> 2)) {
+                this.values[slot] = value;
+                allocate(this.keys.length << 1);
+                return;
+            }
+        }
+        this.values[slot] = value;
+    }
+
+    /**
+     * Remove the given key.
+     * @param key The key.
+     * @return True if the key was present.
+     */
+    public boolean remove(final long key) {
+        if (key == 0) {
+            if (!this.hasZero) return false;
+            this.hasZero = false;
+            --this.size;
+            return true;
+        }
+        int slot = slot(key);
+        if (this.keys[slot] != key) return false;
+        // Shift the following entries of the probe sequence back, so no tombstones are needed.
+        for (int next = (slot + 1) & this.mask; this.keys[next] != 0; next = (next + 1) & this.mask) {
+            final int home = mix(this.keys[next]) & this.mask;
+            if (((next - home) & this.mask) >= ((next - slot) & this.mask)) {
+                this.keys[slot] = this.keys[next];
+                this.values[slot] = this.values[next];
+                slot = next;
+            }
+        }
+        this.keys[slot] = 0;
+        --this.size;
+        return true;
+    }
+
+    /**
+     * Remove every entry matching the given predicate.
+     * @param predicate The predicate.
+     * @return The number of entries removed.
+     */
+    public int removeIf(@NotNull final Predicate predicate) {
+        final int before = this.size;
+        if (this.hasZero && predicate.test(0, this.zeroValue)) {
+            this.hasZero = false;
+            --this.size;
+        }
+        final long[] oldKeys = this.keys;
+        final int[] oldValues = this.values;
+        boolean removed = false;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0 && predicate.test(oldKeys[i], oldValues[i])) {
+                oldKeys[i] = 0;
+                --this.size;
+                removed = true;
+            }
+        }
+        if (removed) rehash(oldKeys, oldValues, capacityFor(this.size));
+        return before - this.size;
+    }
+
+    /**
+     * Remove every entry.
+     */
+    public void clear() {
+        this.size = 0;
+        this.hasZero = false;
+        allocate(MIN_CAPACITY);
+    }
+
+    /**
+     * Perform the given action for every entry, in no particular order.
+     * @param action The action.
+     */
+    public void forEach(@NotNull final Consumer action) {
+        if (this.hasZero) action.accept(0, this.zeroValue);
+        for (int i = 0; i < this.keys.length; i++) {
+            if (this.keys[i] != 0) action.accept(this.keys[i], this.values[i]);
+        }
+    }
+
+    /**
+     * Get every key whose value is at least the given value.
+     * @param value The minimum value.
+     * @return The matching keys, in no particular order.
+     */
+    public long @NotNull [] keysAtLeast(final int value) {
+        long[] result = new long[Math.min(this.size, MIN_CAPACITY)];
+        int count = 0;
+        if (this.hasZero && this.zeroValue >= value) result[count++] = 0;
+        for (int i = 0; i < this.keys.length; i++) {
+            if (this.keys[i] == 0 || this.values[i] < value) continue;
+            if (count == result.length) result = Arrays.copyOf(result, Math.min(this.size, count << 1));
+            result[count++] = this.keys[i];
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    private int slot(final long key) {
+        int slot = mix(key) & this.mask;
+        while (this.keys[slot] != 0 && this.keys[slot] != key) slot = (slot + 1) & this.mask;
+        return slot;
+    }
+
+    private void allocate(final int capacity) {
+        final long[] oldKeys = this.keys;
+        final int[] oldValues = this.values;
+        if (oldKeys == null) {
+            this.keys = new long[capacity];
+            this.values = new int[capacity];
+            this.mask = capacity - 1;
+            return;
+        }
+        rehash(oldKeys, oldValues, capacity);
+    }
+
+    private void rehash(final long @NotNull [] oldKeys, final int @NotNull [] oldValues, final int capacity) {
+        this.keys = new long[capacity];
+        this.values = new int[capacity];
+        this.mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == 0) continue;
+            final int slot = slot(oldKeys[i]);
+            this.keys[slot] = oldKeys[i];
+            this.values[slot] = oldValues[i];
+        }
+    }
+
+    private static int capacityFor(final int expected) {
+        final int capacity = Integer.highestOneBit(Math.max(MIN_CAPACITY, (int) Math.min(1 << 30, expected * 4L / 3 + 1)) - 1) << 1;
+        return Math.max(MIN_CAPACITY, capacity);
+    }
+
+    private static int mix(final long key) {
+        final long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Accepts an entry of the map.
+     */
+    @FunctionalInterface
+    public interface Consumer {
+        void accept(long key, int value);
+    }
+
+    /**
+     * Tests an entry of the map.
+     */
+    @FunctionalInterface
+    public interface Predicate {
+        boolean test(long key, int value);
+    }
+}
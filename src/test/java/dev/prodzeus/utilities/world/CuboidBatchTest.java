@@ -0,0 +1,89 @@
+package dev.prodzeus.utilities.world;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares {@link Cuboid#containsAll} and {@link CuboidBatch} against {@link Cuboid#contains(int, int, int)} on random points and regions.
+ *
+ * @author prodzeus
+ */
+class CuboidBatchTest {
+
+    private static final int POINTS = 5000;
+
+    private final Random random = new Random(9);
+    private final List<Cuboid> cuboids = new ArrayList<>();
+    private final double[] xs = new double[POINTS], ys = new double[POINTS], zs = new double[POINTS];
+
+    CuboidBatchTest() {
+        for (int i = 0; i < 50; i++) {
+            this.cuboids.add(Cuboid.create(i % 2 == 0 ? "a" : "b", coordinate(), coordinate(), coordinate(), coordinate(), coordinate(), coordinate()));
+        }
+        for (int i = 0; i < POINTS; i++) {
+            this.xs[i] = this.random.nextDouble() * 50 - 25;
+            this.ys[i] = this.random.nextDouble() * 50 - 25;
+            this.zs[i] = this.random.nextDouble() * 50 - 25;
+        }
+    }
+
+    @Test
+    void containsAllMatchesContains() {
+        final BitSet out = new BitSet();
+        for (final Cuboid cuboid : this.cuboids) {
+            // Stale bits of the points are cleared, and bits beyond them are left as they are.
+            out.set(0, POINTS + 10);
+            int expected = 0;
+            final int count = cuboid.containsAll(this.xs, this.ys, this.zs, out);
+            for (int i = 0; i < POINTS; i++) {
+                final boolean inside = contains(cuboid, i);
+                if (inside) ++expected;
+                assertEquals(inside, out.get(i), cuboid + " containing point " + i);
+            }
+            assertEquals(expected, count, "Count of " + cuboid);
+            assertEquals(expected + 10, out.cardinality(), "Bits of " + cuboid);
+        }
+    }
+
+    @Test
+    void batchMatchesContains() {
+        final CuboidBatch batch = CuboidBatch.of(this.cuboids);
+        final BitSet out = new BitSet();
+        for (int i = 0; i < POINTS; i++) {
+            out.set(0, this.cuboids.size() + 10);
+            final int count = batch.containing("a", this.xs[i], this.ys[i], this.zs[i], out);
+            int expected = 0, first = -1;
+            for (int j = 0; j < this.cuboids.size(); j++) {
+                final boolean inside = this.cuboids.get(j).getWorldName().equals("a") && contains(this.cuboids.get(j), i);
+                if (inside && expected++ == 0) first = j;
+                assertEquals(inside, out.get(j), "Cuboid " + j + " containing point " + i);
+            }
+            assertEquals(expected, count, "Count of point " + i);
+            assertEquals(expected + 10, out.cardinality(), "Bits of point " + i);
+            assertEquals(first, batch.indexOf("a", this.xs[i], this.ys[i], this.zs[i]), "Index of point " + i);
+            assertEquals(first >= 0, batch.anyContains("a", this.xs[i], this.ys[i], this.zs[i]), "Any containing point " + i);
+        }
+    }
+
+    @Test
+    void unknownWorldContainsNothing() {
+        final BitSet out = new BitSet();
+        out.set(0, this.cuboids.size());
+        assertEquals(0, CuboidBatch.of(this.cuboids).containing("c", 0, 0, 0, out));
+        assertTrue(out.isEmpty());
+    }
+
+    private int coordinate() {
+        return this.random.nextInt(40) - 20;
+    }
+
+    private boolean contains(final Cuboid cuboid, final int point) {
+        return cuboid.contains((int) Math.floor(this.xs[point]), (int) Math.floor(this.ys[point]), (int) Math.floor(this.zs[point]));
+    }
+}
@@ -0,0 +1,69 @@
+package dev.prodzeus.utilities.world;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares the nearest and range queries of {@link CuboidIndex} against a scan of every indexed region.
+ *
+ * @author prodzeus
+ */
+class CuboidIndexTest {
+
+    private final Random random = new Random(11);
+
+    @Test
+    void queriesMatchScan() {
+        for (int iteration = 0; iteration < 60; iteration++) {
+            final CuboidIndex index = new CuboidIndex();
+            final List<Cuboid> all = new ArrayList<>();
+            for (int i = 0; i < 300; i++) {
+                final int x = this.random.nextInt(4000) - 2000, y = this.random.nextInt(100), z = this.random.nextInt(4000) - 2000;
+                // A few regions span many columns, which must only be reported once.
+                final int width = this.random.nextInt(20) == 0 ? 1500 : this.random.nextInt(60);
+                final Cuboid cuboid = Cuboid.create("world", x, y, z, x + width, y + this.random.nextInt(30), z + this.random.nextInt(60));
+                all.add(cuboid);
+                index.add(cuboid);
+            }
+            for (int query = 0; query < 50; query++) {
+                final double x = this.random.nextDouble() * 5000 - 2500, y = this.random.nextDouble() * 200 - 50, z = this.random.nextDouble() * 5000 - 2500;
+                final double[] distances = all.stream().mapToDouble(cuboid -> cuboid.squaredDistanceToSurface(x, y, z)).sorted().toArray();
+
+                final Cuboid nearest = index.getNearest("world", x, y, z);
+                assertNotNull(nearest);
+                assertEquals(distances[0], nearest.squaredDistanceToSurface(x, y, z), "Nearest to " + x + ", " + y + ", " + z);
+
+                final int count = 1 + this.random.nextInt(12);
+                final List<Cuboid> nearestK = index.getNearest("world", x, y, z, count);
+                assertEquals(count, nearestK.size(), "Number of nearest");
+                assertEquals(count, new HashSet<>(nearestK).size(), "Distinct nearest");
+                for (int i = 0; i < count; i++) {
+                    assertEquals(distances[i], nearestK.get(i).squaredDistanceToSurface(x, y, z), "Nearest " + i);
+                }
+
+                final double range = this.random.nextDouble() * 400;
+                final List<Cuboid> inRange = index.getInRange("world", x, y, z, range);
+                final long expected = all.stream().filter(cuboid -> cuboid.isPointInRange(x, y, z, range)).count();
+                assertEquals(expected, inRange.size(), "Regions in range " + range);
+                assertEquals(expected, new HashSet<>(inRange).size(), "Distinct regions in range " + range);
+                assertTrue(inRange.stream().allMatch(cuboid -> cuboid.isPointInRange(x, y, z, range)), "Regions in range " + range);
+            }
+        }
+    }
+
+    @Test
+    void fewerRegionsThanRequested() {
+        final CuboidIndex index = new CuboidIndex();
+        index.add(Cuboid.create("world", 0, 0, 0, 10, 10, 10));
+        index.add(Cuboid.create("world", 5000, 0, 5000, 5010, 10, 5010));
+        assertEquals(2, index.getNearest("world", -3000, 0, -3000, 5).size());
+        assertTrue(index.getNearest("other", 0, 0, 0, 5).isEmpty());
+        assertNull(index.getNearest("other", 0, 0, 0));
+    }
+}
@@ -0,0 +1,50 @@
+package dev.prodzeus.utilities.world;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the biome cells {@link CuboidStats} groups positions by, across the height of a world.
+ *
+ * @author prodzeus
+ */
+class CuboidStatsTest {
+
+    @Test
+    void cellsBelowZeroDifferFromNoCell() {
+        // The cell of Y -4 to -1 at local X and Z of 12 to 15 is -1, which once was the initial cell.
+        for (int y = -4; y <= -1; y++) {
+            for (int x = 12; x <= 15; x++) {
+                for (int z = 12; z <= 15; z++) {
+                    assertEquals(-1, CuboidStats.biomeCell(x, y, z), "Cell of " + x + ", " + y + ", " + z);
+                }
+            }
+        }
+        for (int y = -2048; y < 2048; y++) {
+            for (int x = 0; x < 16; x++) {
+                for (int z = 0; z < 16; z++) {
+                    assertNotEquals(CuboidStats.NO_CELL, CuboidStats.biomeCell(x, y, z), "Cell of " + x + ", " + y + ", " + z);
+                }
+            }
+        }
+    }
+
+    @Test
+    void cellsMatchBiomeStorage() {
+        final Map<Integer, String> cells = new HashMap<>();
+        for (int y = -64; y < 320; y++) {
+            for (int x = 0; x < 16; x++) {
+                for (int z = 0; z < 16; z++) {
+                    final String storage = (x >> 2) + ", " + (y >> 2) + ", " + (z >> 2);
+                    final String previous = cells.putIfAbsent(CuboidStats.biomeCell(x, y, z), storage);
+                    if (previous != null) assertEquals(previous, storage, "Cell of " + x + ", " + y + ", " + z);
+                }
+            }
+        }
+        assertEquals(4 * 96 * 4, cells.size());
+    }
+}
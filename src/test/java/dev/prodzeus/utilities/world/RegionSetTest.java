@@ -0,0 +1,93 @@
+package dev.prodzeus.utilities.world;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares random sequences of {@link RegionSet} operations against a grid of booleans.
+ *
+ * @author prodzeus
+ */
+class RegionSetTest {
+
+    private static final int SIZE = 12;
+
+    @Test
+    void operationsMatchGrid() {
+        final Random random = new Random(1);
+        for (int iteration = 0; iteration < 3000; iteration++) {
+            final boolean[][][] grid = new boolean[SIZE][SIZE][SIZE];
+            RegionSet set = RegionSet.empty("world");
+            for (int operation = 0; operation < 10; operation++) {
+                final BlockCuboid cuboid = box(random);
+                final int kind = random.nextInt(10);
+                if (kind < 5) set = set.union(cuboid);
+                else if (kind < 8) set = set.subtract(RegionSet.of(cuboid));
+                else set = set.intersection(cuboid);
+                for (int x = 0; x < SIZE; x++) {
+                    for (int y = 0; y < SIZE; y++) {
+                        for (int z = 0; z < SIZE; z++) {
+                            final boolean inside = cuboid.contains(x, y, z);
+                            if (kind < 5) grid[x][y][z] |= inside;
+                            else if (kind < 8) grid[x][y][z] &= !inside;
+                            else grid[x][y][z] &= inside;
+                        }
+                    }
+                }
+                assertMatches(grid, set);
+                for (int query = 0; query < 20; query++) {
+                    final BlockCuboid box = box(random);
+                    assertEquals(intersects(grid, box), set.intersects(box), "Intersection with " + box);
+                }
+            }
+        }
+    }
+
+    @Test
+    void wideBoxDoesNotHideLaterBoxes() {
+        // A box spanning the whole X-axis sorts first, so lookups must not stop at the first box which ends before the query.
+        RegionSet set = RegionSet.of(BlockCuboid.create("world", 0, 0, 0, 1000, 0, 0));
+        for (int x = 0; x < 1000; x += 2) set = set.union(BlockCuboid.create("world", x, 2, 0, x, 2, 0));
+        for (int x = 0; x < 1000; x++) {
+            assertTrue(set.contains(x, 0, 0), "Wide box at " + x);
+            assertEquals(x % 2 == 0, set.contains(x, 2, 0), "Narrow box at " + x);
+            assertFalse(set.contains(x, 1, 0), "Gap at " + x);
+        }
+    }
+
+    private static BlockCuboid box(final Random random) {
+        return BlockCuboid.create("world", random.nextInt(SIZE), random.nextInt(SIZE), random.nextInt(SIZE),
+                random.nextInt(SIZE), random.nextInt(SIZE), random.nextInt(SIZE));
+    }
+
+    private static void assertMatches(final boolean[][][] grid, final RegionSet set) {
+        final int[] visits = new int[SIZE * SIZE * SIZE];
+        set.forEachPosition((x, y, z) -> ++visits[(x * SIZE + y) * SIZE + z]);
+        long volume = 0;
+        for (int x = 0; x < SIZE; x++) {
+            for (int y = 0; y < SIZE; y++) {
+                for (int z = 0; z < SIZE; z++) {
+                    final int expected = grid[x][y][z] ? 1 : 0;
+                    assertEquals(expected, visits[(x * SIZE + y) * SIZE + z], "Visits of " + x + ", " + y + ", " + z);
+                    assertEquals(grid[x][y][z], set.contains(x, y, z), "Containment of " + x + ", " + y + ", " + z);
+                    volume += expected;
+                }
+            }
+        }
+        assertEquals(volume, set.getVolume(), "Volume");
+    }
+
+    private static boolean intersects(final boolean[][][] grid, final BlockCuboid box) {
+        for (int x = 0; x < SIZE; x++) {
+            for (int y = 0; y < SIZE; y++) {
+                for (int z = 0; z < SIZE; z++) {
+                    if (grid[x][y][z] && box.contains(x, y, z)) return true;
+                }
+            }
+        }
+        return false;
+    }
+}